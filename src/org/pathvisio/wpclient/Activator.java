@@ -17,10 +17,17 @@
 
 package org.pathvisio.wpclient;
 
+import java.io.File;
+
 import org.osgi.framework.BundleActivator;
 import org.osgi.framework.BundleContext;
+import org.pathvisio.core.preferences.GlobalPreference;
 import org.pathvisio.desktop.plugin.Plugin;
+import org.pathvisio.wpclient.impl.QueryCache;
 import org.pathvisio.wpclient.impl.WPQueries;
+import org.pathvisio.wpclient.impl.XrefMappingCache;
+import org.pathvisio.wpclient.store.LocalStore;
+import org.pathvisio.wpclient.store.OrganismCache;
 
 /**
  * OSGi activator class for the WikiPathways Plugin
@@ -30,22 +37,36 @@ import org.pathvisio.wpclient.impl.WPQueries;
 public class Activator implements BundleActivator {
 	
 	private WikiPathwaysClientPlugin plugin;
+	private QueryCache queryCache;
+	private XrefMappingCache mappingCache;
 
 	@Override
 	public void start(BundleContext context) throws Exception {
+		// search results and xref mappings are cached between sessions
+		File storeDir = new File(GlobalPreference.getPluginDir(), "wpclient-store");
+		queryCache = new QueryCache(new File(storeDir, "queries.bin"), 8 * 1024 * 1024);
+		mappingCache = new XrefMappingCache(new File(storeDir, "mappings.bin"), 50000);
+
+		// local copy of the pathway catalog and indexes
+		LocalStore localStore = new LocalStore(storeDir);
+
 		// provide API for wikipathways queries
 		// other plugins that depend on this plugin can use this API to
 		// query data on wikipathways
-		IWPQueries wpQueries = new WPQueries();
+		IWPQueries wpQueries = new WPQueries(queryCache, mappingCache, localStore);
 		context.registerService(IWPQueries.class.getName(), wpQueries, null);
 		
+		OrganismCache organismCache = new OrganismCache(wpQueries, new File(storeDir, "organisms.txt"));
+
 		// register plugin so it will be initialized by PathVisio
-		plugin = new WikiPathwaysClientPlugin(wpQueries);
+		plugin = new WikiPathwaysClientPlugin(wpQueries, localStore, organismCache);
 		context.registerService(Plugin.class.getName(), plugin, null);
 	}
 
 	@Override
 	public void stop(BundleContext context) throws Exception {
 		plugin.done();
+		queryCache.save();
+		mappingCache.save();
 	}
 }
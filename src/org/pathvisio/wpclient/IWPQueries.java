@@ -18,9 +18,12 @@ package org.pathvisio.wpclient;
 
 import java.rmi.RemoteException;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.bridgedb.DataSource;
+import org.bridgedb.IDMapper;
+import org.bridgedb.IDMapperException;
 import org.bridgedb.Xref;
 import org.bridgedb.bio.Organism;
 import org.pathvisio.libgpml.io.ConverterException;
@@ -28,6 +31,7 @@ import org.pathvisio.libgpml.model.PathwayModel;
 import org.pathvisio.core.util.ProgressKeeper;
 import org.pathvisio.wikipathways.webservice.WSCurationTag;
 import org.pathvisio.wikipathways.webservice.WSPathway;
+import org.pathvisio.wikipathways.webservice.WSPathwayHistory;
 import org.pathvisio.wikipathways.webservice.WSPathwayInfo;
 import org.pathvisio.wikipathways.webservice.WSSearchResult;
 
@@ -55,6 +59,16 @@ public interface IWPQueries {
 
 	public Set<WSCurationTag> getCurationTags(String pwId, ProgressKeeper pk) throws RemoteException, FailedConnectionException;
 
+	/**
+	 * all tags with the given name, one call covers every pathway with the tag
+	 */
+	public WSCurationTag[] getCurationTagsByName(String tagName, ProgressKeeper pk) throws RemoteException, FailedConnectionException;
+
+	/**
+	 * complete edit history of a pathway
+	 */
+	public WSPathwayHistory getPathwayHistory(String pwId, ProgressKeeper pk) throws RemoteException, FailedConnectionException;
+
 	public WSPathway getPathway(String id, Integer revision, ProgressKeeper pk) throws RemoteException, FailedConnectionException, ConverterException;
 
 	public WSSearchResult[] findByTextInOrganism(String text, Organism organism, ProgressKeeper pk) throws RemoteException, FailedConnectionException;
@@ -72,5 +86,30 @@ public interface IWPQueries {
 
 	public WSSearchResult[] findByXref(Xref[] xrefs, ProgressKeeper pk) throws RemoteException, FailedConnectionException, ConverterException;
 
+	/**
+	 * each xref with its equivalents in other data sources (including the
+	 * xref itself), e.g. to search pathways annotated with another data source
+	 */
+	public Map<Xref, Set<Xref>> mapXrefs(Xref[] xrefs, IDMapper mapper, ProgressKeeper pk) throws IDMapperException;
+
 	public String[] getXrefList(String pwId, DataSource ds, ProgressKeeper pk) throws RemoteException, FailedConnectionException;
+
+	/**
+	 * pathways sharing xrefs with the given pathway, the score of the results
+	 * is the estimated Jaccard similarity, uses the local pathway store
+	 * (empty if the pathway has not been imported)
+	 */
+	public WSSearchResult[] findRelatedPathways(String pwId, int max, ProgressKeeper pk);
+
+	/**
+	 * pathways sharing xrefs with the given list, e.g. of an open pathway
+	 */
+	public WSSearchResult[] findRelatedPathways(Xref[] xrefs, int max, ProgressKeeper pk);
+
+	/**
+	 * pathways of the local store with an interaction path from one xref to
+	 * the other of at most maxSteps interactions, the score of the results is
+	 * the number of steps and the field "path" lists the xrefs on the path
+	 */
+	public WSSearchResult[] findConnectingPathways(Xref from, Xref to, int maxSteps, ProgressKeeper pk);
 }
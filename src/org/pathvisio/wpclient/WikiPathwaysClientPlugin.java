@@ -18,18 +18,41 @@
 package org.pathvisio.wpclient;
 
 import java.awt.Color;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.awt.geom.Rectangle2D;
 import java.io.File;
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.swing.JDialog;
 import javax.swing.JMenu;
 import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
 import javax.swing.JPopupMenu;
+import javax.swing.JRadioButtonMenuItem;
+import javax.swing.SwingUtilities;
 import javax.swing.SwingWorker;
+import javax.swing.event.MenuEvent;
+import javax.swing.event.MenuListener;
 import javax.xml.rpc.ServiceException;
 
 import org.bridgedb.DataSource;
@@ -41,11 +64,15 @@ import org.pathvisio.core.Engine.ApplicationEventListener;
 import org.pathvisio.core.data.GdbManager;
 import org.pathvisio.libgpml.debug.Logger;
 import org.pathvisio.libgpml.io.ConverterException;
+import org.pathvisio.libgpml.model.DataNode;
 import org.pathvisio.libgpml.model.PathwayModel;
 import org.pathvisio.libgpml.model.Xrefable;
 import org.pathvisio.libgpml.model.PathwayElement;
+import org.pathvisio.libgpml.model.type.DataNodeType;
 import org.pathvisio.core.preferences.GlobalPreference;
 import org.pathvisio.core.util.ProgressKeeper;
+import org.pathvisio.core.view.model.SelectionBox.SelectionEvent;
+import org.pathvisio.core.view.model.SelectionBox.SelectionListener;
 import org.pathvisio.core.view.model.VDataNode;
 import org.pathvisio.core.view.model.VPathwayObject;
 import org.pathvisio.core.view.model.VPathwayElement;
@@ -59,15 +86,31 @@ import org.pathvisio.desktop.plugin.Plugin;
 import org.pathvisio.gui.PathwayElementMenuListener.PathwayElementMenuHook;
 import org.pathvisio.gui.ProgressDialog;
 import org.pathvisio.wikipathways.webservice.WSPathway;
+import org.pathvisio.wikipathways.webservice.WSPathwayInfo;
 import org.pathvisio.wikipathways.webservice.WSSearchResult;
 import org.pathvisio.wpclient.actions.BrowseAction;
+import org.pathvisio.wpclient.actions.FindPathwaysForSelectionAction;
+import org.pathvisio.wpclient.actions.GmtExportAction;
+import org.pathvisio.wpclient.actions.ImportAction;
 import org.pathvisio.wpclient.actions.OpenPathwayFromXrefAction;
+import org.pathvisio.wpclient.actions.QuickOpenAction;
 import org.pathvisio.wpclient.actions.SearchAction;
 import org.pathvisio.wpclient.actions.UpdateAction;
 import org.pathvisio.wpclient.actions.UploadAction;
+import org.pathvisio.wpclient.impl.GpmlCache;
+import org.pathvisio.wpclient.impl.PathwayDocument;
+import org.pathvisio.wpclient.impl.PathwayMetadataCache;
+import org.pathvisio.wpclient.impl.ThumbnailCache;
+import org.pathvisio.wpclient.impl.XrefMatchCounter;
 import org.pathvisio.wpclient.panels.PathwayPanel;
+import org.pathvisio.wpclient.panels.RelatedPathwaysPanel;
 import org.pathvisio.wpclient.preferences.URLPreference;
+import org.pathvisio.wpclient.store.FacetIndex;
+import org.pathvisio.wpclient.store.LocalStore;
+import org.pathvisio.wpclient.store.OrganismCache;
+import org.pathvisio.wpclient.store.PathwayCatalog;
 import org.pathvisio.wpclient.utils.FileUtils;
+import org.pathvisio.wpclient.utils.XrefNodeIndex;
 import org.wikipathways.client.WikiPathwaysClient;
 
 /**
@@ -84,37 +127,103 @@ public class WikiPathwaysClientPlugin implements Plugin, ApplicationEventListene
 
 	private PvDesktop desktop;
 	private File tmpDir = new File(GlobalPreference.getPluginDir(), "wpclient-cache");
+	// kept between sessions, tmpDir is deleted when the plugin is closed
+	private File storeDir = new File(GlobalPreference.getPluginDir(), "wpclient-store");
 	private JMenu wikipathwaysMenu;
 	private JMenuItem createMenu, updateMenu;
 
-	private static String revisionno = "";
-	private static String pathwayid = "";
+	private JMenu documentsMenu;
+
+	// downloaded documents by pathway model and by local file
+	private Map<PathwayModel, PathwayDocument> documents = Collections
+			.synchronizedMap(new WeakHashMap<PathwayModel, PathwayDocument>());
+	private Map<File, PathwayDocument> documentFiles = Collections
+			.synchronizedMap(new LinkedHashMap<File, PathwayDocument>());
+
+	private static final int OPEN_CONCURRENCY = 4;
 
 	private WikiPathwaysClientPlugin plugin;
 
+	/**
+	 * revision of the active document, empty if the active
+	 * pathway has not been loaded from WikiPathways
+	 */
 	public String getRevision() {
-		return revisionno;
+		PathwayDocument doc = getActiveDocument();
+		return doc == null ? "" : doc.getRevision();
 	}
 
 	public String getPathwayID() {
-		return pathwayid;
+		PathwayDocument doc = getActiveDocument();
+		return doc == null ? "" : doc.getId();
 	}
 
 	public void setRevision(String revision) {
-		revisionno = revision;
+		PathwayDocument doc = getActiveDocument();
+		if (doc != null) {
+			doc.setRevision(revision);
+		}
 	}
 
-	public void setPathwayID(String pathwayID) {
-		pathwayid = pathwayID;
+	/**
+	 * makes the active pathway a WikiPathways document, e.g. after
+	 * it has been uploaded as a new pathway
+	 */
+	public void setDocument(String pathwayID, String revision) {
+		PathwayModel model = desktop.getSwingEngine().getEngine().getActivePathwayModel();
+		if (model != null) {
+			documents.put(model, new PathwayDocument(pathwayID, revision, model.getSourceFile()));
+		}
+	}
+
+	public PathwayDocument getActiveDocument() {
+		return getDocument(desktop.getSwingEngine().getEngine().getActivePathwayModel());
+	}
+
+	/**
+	 * WikiPathways document of a pathway model, a downloaded file
+	 * that is opened again is recognized by its source file
+	 */
+	public PathwayDocument getDocument(PathwayModel model) {
+		if (model == null) {
+			return null;
+		}
+		PathwayDocument doc = documents.get(model);
+		if (doc == null && model.getSourceFile() != null) {
+			doc = documentFiles.get(model.getSourceFile().getAbsoluteFile());
+			if (doc != null) {
+				documents.put(model, doc);
+			}
+		}
+		return doc;
 	}
 
 	public static final String ARG_PROPERTY_WPID = "wp.id";
 
 	// handles
 	private IWPQueries wpQueries;
-
-	public WikiPathwaysClientPlugin(IWPQueries wpQueries) {
+	private LocalStore localStore;
+	private OrganismCache organismCache;
+	private RelatedPathwaysPanel relatedPanel;
+	private XrefNodeIndex nodeIndex;
+	private XrefMatchCounter matchCounter;
+	private GpmlCache gpmlCache;
+	private ThumbnailCache thumbnailCache;
+	private PathwayMetadataCache metadataCache;
+	private FacetIndex facetIndex;
+	private int facetModCount;
+	private boolean facetTagsComplete;
+
+	public WikiPathwaysClientPlugin(IWPQueries wpQueries, LocalStore localStore, OrganismCache organismCache) {
 		this.wpQueries = wpQueries;
+		this.localStore = localStore;
+		this.organismCache = organismCache;
+		this.matchCounter = new XrefMatchCounter(wpQueries, localStore);
+		// downloaded pathways and previews are stored by revision, so they
+		// stay valid between sessions
+		this.gpmlCache = new GpmlCache(wpQueries, new File(storeDir, "pathways"));
+		this.thumbnailCache = new ThumbnailCache(wpQueries, localStore, gpmlCache, new File(storeDir, "previews"));
+		this.metadataCache = new PathwayMetadataCache(wpQueries, localStore);
 		plugin = this;
 	}
 
@@ -128,9 +237,15 @@ public class WikiPathwaysClientPlugin implements Plugin, ApplicationEventListene
 			// intialization
 			initPreferences();
 			registerActions();
+			loadLocalStore();
 
 			new WikipathwaysPluginManagerAction(desktop);
 
+			// side bar with the pathways related to the open pathway
+			relatedPanel = new RelatedPathwaysPanel(this);
+			desktop.getSideBarTabbedPane().addTab("Related pathways", relatedPanel);
+			desktop.getSwingEngine().getEngine().addApplicationEventListener(relatedPanel);
+
 			// register a listener to notify when a pathway is opened
 			desktop.getSwingEngine().getEngine().addApplicationEventListener(this);
 
@@ -157,6 +272,33 @@ public class WikiPathwaysClientPlugin implements Plugin, ApplicationEventListene
 				dlg.builder().stringField(URLPreference.CONNECTION_URL, "WP webservice URL").build());
 	}
 
+	/**
+	 * Loads the local pathway store and the cached list of organisms
+	 * from the plugin directory in the background and limits the size
+	 * of the downloaded pathways and previews
+	 */
+	private void loadLocalStore() {
+		new SwingWorker<Void, Void>() {
+			protected Void doInBackground() throws Exception {
+				try {
+					localStore.load();
+				} catch (IOException e) {
+					Logger.log.error("Could not load local pathway store", e);
+				}
+				try {
+					organismCache.load();
+				} catch (IOException e) {
+					Logger.log.error("Could not load list of organisms", e);
+				}
+				// refreshes the list if it is outdated
+				organismCache.getOrganisms();
+				gpmlCache.prune();
+				thumbnailCache.prune();
+				return null;
+			}
+		}.execute();
+	}
+
 	/**
 	 * Preparing the Submenu For WikiPathways Menu
 	 */
@@ -185,11 +327,34 @@ public class WikiPathwaysClientPlugin implements Plugin, ApplicationEventListene
 			createMenu.addActionListener(createAction);
 			updateMenu.addActionListener(updateAction);
 
+			JMenuItem importMenu = new JMenuItem(new ImportAction(plugin));
+			JMenuItem gmtExportMenu = new JMenuItem(new GmtExportAction(plugin));
+			JMenuItem quickOpenMenu = new JMenuItem(new QuickOpenAction(plugin));
+
+			// switches between the downloaded pathways
+			documentsMenu = new JMenu("Open Documents");
+			documentsMenu.addMenuListener(new MenuListener() {
+				public void menuSelected(MenuEvent e) {
+					updateDocumentsMenu();
+				}
+
+				public void menuDeselected(MenuEvent e) {
+				}
+
+				public void menuCanceled(MenuEvent e) {
+				}
+			});
+
 			wikipathwaysMenu.add(searchMenu);
 			wikipathwaysMenu.add(browseMenu);
+			wikipathwaysMenu.add(quickOpenMenu);
+			wikipathwaysMenu.add(documentsMenu);
 			wikipathwaysMenu.addSeparator();
 			wikipathwaysMenu.add(updateMenu);
 			wikipathwaysMenu.add(createMenu);
+			wikipathwaysMenu.addSeparator();
+			wikipathwaysMenu.add(importMenu);
+			wikipathwaysMenu.add(gmtExportMenu);
 
 			desktop.registerSubMenu("Plugins", wikipathwaysMenu);
 			updateState();
@@ -202,7 +367,8 @@ public class WikiPathwaysClientPlugin implements Plugin, ApplicationEventListene
 	 */
 	public void updateState() {
 		boolean status = (desktop.getSwingEngine().getEngine().hasVPathwayModel());
-		if (pathwayid.equals("")) {
+		documentsMenu.setEnabled(!documentFiles.isEmpty());
+		if (getPathwayID().equals("")) {
 			updateMenu.setEnabled(false);
 			createMenu.setEnabled(status);
 		} else {
@@ -211,6 +377,35 @@ public class WikiPathwaysClientPlugin implements Plugin, ApplicationEventListene
 		}
 	}
 
+	/**
+	 * lists the downloaded documents, the active one is selected
+	 */
+	private void updateDocumentsMenu() {
+		documentsMenu.removeAll();
+		PathwayDocument active = getActiveDocument();
+		List<PathwayDocument> docs;
+		synchronized (documentFiles) {
+			docs = new ArrayList<PathwayDocument>(documentFiles.values());
+		}
+		for (final PathwayDocument doc : docs) {
+			JRadioButtonMenuItem item = new JRadioButtonMenuItem(doc.toString(), doc == active);
+			item.addActionListener(new ActionListener() {
+				public void actionPerformed(ActionEvent e) {
+					if (doc != getActiveDocument() && desktop.getSwingEngine().canDiscardPathwayModel()) {
+						try {
+							openDocument(doc);
+						} catch (ConverterException ex) {
+							desktop.getSwingEngine().handleConverterException("Could not open " + doc.getId(),
+									desktop.getFrame(), ex);
+						}
+						updateState();
+					}
+				}
+			});
+			documentsMenu.add(item);
+		}
+	}
+
 	/**
 	 * Register actions to provide option to open a pathway From Xref on right click
 	 */
@@ -221,6 +416,14 @@ public class WikiPathwaysClientPlugin implements Plugin, ApplicationEventListene
 					return;
 				}
 
+				// several data nodes or a group are searched together
+				Set<VElement> selection = new LinkedHashSet<VElement>(e.getDrawing().getSelectedPathwayElements());
+				selection.add(e);
+				List<Xref> xrefs = FindPathwaysForSelectionAction.getXrefs(selection);
+				if (xrefs.size() > 1) {
+					menu.add(new FindPathwaysForSelectionAction(WikiPathwaysClientPlugin.this, xrefs));
+				}
+
 				PathwayElement pe = ((VPathwayElement) e).getPathwayObject();
 
 				if (pe instanceof Xrefable) {
@@ -307,27 +510,156 @@ public class WikiPathwaysClientPlugin implements Plugin, ApplicationEventListene
 	}
 
 	/**
-	 * Load Pathway into PathVisio on selection of pathway from list provided by any
-	 * Search/ Browse Dialog.
-	 * 
-	 * @throws FailedConnectionException
+	 * downloads the selected pathways in parallel, the first one is opened
+	 * in the editor, the others are listed in the open documents menu
 	 */
-	protected void openPathway(String id, int rev, File tmpDir)
+	public void openPathwaysWithProgress(final List<String> ids, final File tmpDir) {
+		final ProgressKeeper pk = new ProgressKeeper(ids.size());
+		final ProgressDialog d = new ProgressDialog(
+				JOptionPane.getFrameForComponent(desktop.getSwingEngine().getApplicationPanel()), "", pk, true, true);
+
+		SwingWorker<List<PathwayDocument>, Void> sw = new SwingWorker<List<PathwayDocument>, Void>() {
+			protected List<PathwayDocument> doInBackground() throws Exception {
+				try {
+					return downloadPathways(ids, tmpDir, pk);
+				} finally {
+					pk.finished();
+				}
+			}
+
+			protected void done() {
+				if (pk.isCancelled()) {
+					updateState();
+					return;
+				}
+				try {
+					List<PathwayDocument> docs = get();
+					if (!docs.isEmpty() && desktop.getSwingEngine().canDiscardPathwayModel()) {
+						openDocument(docs.get(0));
+					}
+					if (docs.size() < ids.size()) {
+						JOptionPane.showMessageDialog(desktop.getFrame(),
+								(ids.size() - docs.size()) + " of " + ids.size() + " pathways could not be opened.",
+								"Error", JOptionPane.ERROR_MESSAGE);
+					}
+				} catch (Exception e) {
+					Logger.log.error("Could not open pathways", e);
+					JOptionPane.showMessageDialog(desktop.getFrame(), "Could not open the pathways.", "Error",
+							JOptionPane.ERROR_MESSAGE);
+				}
+				updateState();
+			}
+		};
+
+		sw.execute();
+		d.setVisible(true);
+	}
+
+	/**
+	 * downloads and converts the pathways on a fixed number of threads,
+	 * returns the documents in the order of the ids without the failed ones
+	 */
+	private List<PathwayDocument> downloadPathways(final List<String> ids, final File tmpDir, final ProgressKeeper pk)
+			throws InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(OPEN_CONCURRENCY, ids.size())));
+		final AtomicInteger count = new AtomicInteger();
+		try {
+			pk.setTaskName("Opening " + ids.size() + " pathways");
+			List<Future<PathwayDocument>> futures = new ArrayList<Future<PathwayDocument>>();
+			for (final String id : ids) {
+				futures.add(executor.submit(new Callable<PathwayDocument>() {
+					public PathwayDocument call() throws Exception {
+						if (pk.isCancelled()) {
+							return null;
+						}
+						try {
+							return downloadPathway(id, 0, tmpDir);
+						} finally {
+							synchronized (pk) {
+								pk.worked(1);
+								pk.setTaskName("Opened " + count.incrementAndGet() + " of " + ids.size() + " pathways");
+							}
+						}
+					}
+				}));
+			}
+			List<PathwayDocument> docs = new ArrayList<PathwayDocument>();
+			for (int i = 0; i < futures.size(); i++) {
+				try {
+					PathwayDocument doc = futures.get(i).get();
+					if (doc != null) {
+						docs.add(doc);
+					}
+				} catch (ExecutionException e) {
+					Logger.log.error("Could not open pathway " + ids.get(i), e.getCause());
+				}
+			}
+			return docs;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * downloads a pathway and writes it into the cache directory,
+	 * does not touch the editor so it can run on any thread
+	 */
+	public PathwayDocument downloadPathway(String id, int rev, File tmpDir)
 			throws RemoteException, ConverterException, FailedConnectionException {
 		WSPathway wsp = getWpQueries().getPathway(id, rev, null);
 		PathwayModel p = WikiPathwaysClient.toPathway(wsp);
-		File tmp = new File(tmpDir, wsp.getId() + ".r" + wsp.getRevision() + ".gpml");
+		File tmp = new File(tmpDir, wsp.getId() + ".r" + wsp.getRevision() + ".gpml").getAbsoluteFile();
 		p.writeToXml(tmp, true);
-		revisionno = wsp.getRevision();
-		pathwayid = wsp.getId();
+		PathwayDocument doc = new PathwayDocument(wsp.getId(), wsp.getRevision(), tmp);
+		doc.setName(wsp.getName());
+		doc.setSpecies(wsp.getSpecies());
+		synchronized (documentFiles) {
+			// an older or the same revision is superseded by the new download
+			Iterator<PathwayDocument> it = documentFiles.values().iterator();
+			while (it.hasNext()) {
+				PathwayDocument old = it.next();
+				if (old.getId().equals(doc.getId()) && !isNewer(old.getRevision(), doc.getRevision())) {
+					it.remove();
+				}
+			}
+			documentFiles.put(tmp, doc);
+		}
+		return doc;
+	}
+
+	private static boolean isNewer(String revision, String other) {
+		try {
+			return Integer.parseInt(revision) > Integer.parseInt(other);
+		} catch (NumberFormatException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * opens a downloaded document in the editor
+	 */
+	public void openDocument(PathwayDocument doc) throws ConverterException {
 		Engine engine = desktop.getSwingEngine().getEngine();
 		engine.setWrapper(desktop.getSwingEngine().createWrapper());
-		engine.openPathwayModel(tmp);
+		engine.openPathwayModel(doc.getFile());
+		documents.put(engine.getActivePathwayModel(), doc);
+	}
+
+	/**
+	 * Load Pathway into PathVisio on selection of pathway from list provided by any
+	 * Search/ Browse Dialog.
+	 * 
+	 * @throws FailedConnectionException
+	 */
+	protected void openPathway(String id, int rev, File tmpDir)
+			throws RemoteException, ConverterException, FailedConnectionException {
+		PathwayDocument doc = downloadPathway(id, rev, tmpDir);
+		openDocument(doc);
 		if (System.getProperty(ARG_PROPERTY_WPID) != null) {
 			GdbManager mgr = desktop.getSwingEngine().getGdbManager();
 			// Instantiate BridgeDb webservice rest mapper
 			try {
-				mgr.setGeneDb("idmapper-bridgerest:http://webservice.bridgedb.org/" + wsp.getSpecies());
+				mgr.setGeneDb("idmapper-bridgerest:http://webservice.bridgedb.org/" + doc.getSpecies());
 				mgr.initPreferred();
 				mgr.getCurrentGdb().setTransitive(false);
 			} catch (IDMapperException e) {
@@ -345,15 +677,7 @@ public class WikiPathwaysClientPlugin implements Plugin, ApplicationEventListene
 	 */
 	protected void openPathway(String id, int rev, File tmpDir, Xref[] xrefs)
 			throws RemoteException, ConverterException, FailedConnectionException {
-		WSPathway wsp = getWpQueries().getPathway(id, rev, null);
-		PathwayModel p = WikiPathwaysClient.toPathway(wsp);
-		File tmp = new File(tmpDir, wsp.getId() + ".r" + wsp.getRevision() + ".gpml");
-		p.writeToXml(tmp, true);
-		revisionno = wsp.getRevision();
-		pathwayid = wsp.getId();
-		Engine engine = desktop.getSwingEngine().getEngine();
-		engine.setWrapper(desktop.getSwingEngine().createWrapper());
-		engine.openPathwayModel(tmp);
+		openDocument(downloadPathway(id, rev, tmpDir));
 
 		highlightResults(xrefs);
 	}
@@ -362,31 +686,56 @@ public class WikiPathwaysClientPlugin implements Plugin, ApplicationEventListene
 	 * HighLight the DataNodes With particular Xref
 	 */
 	private void highlightResults(Xref[] xrefs) {
-		Rectangle2D interestingRect = null;
-		Engine engine = desktop.getSwingEngine().getEngine();
-		VPathwayModel vpy = engine.getActiveVPathwayModel();
-		for (VElement velt : vpy.getDrawingObjects()) {
-			if (velt instanceof VDataNode) {
-				VDataNode gp = (VDataNode) velt;
-				for (Xref xref : xrefs) {
-					if (xref.equals(gp.getPathwayObject().getXref())) {
-						gp.highlight(Color.YELLOW);
-						if (interestingRect == null) {
-							interestingRect = gp.getVBounds();
-						}
-						break;
+		if (xrefs != null) {
+			highlightXrefs(Collections.<Color, Collection<Xref>>singletonMap(Color.YELLOW, Arrays.asList(xrefs)));
+		}
+	}
+
+	/**
+	 * highlights the data nodes of each xref group in the color of the
+	 * group and zooms to the hits, can be called from any thread
+	 */
+	public void highlightXrefs(final Map<Color, ? extends Collection<Xref>> groups) {
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+				XrefNodeIndex index = getNodeIndex();
+				if (index != null) {
+					Rectangle2D interestingRect = index.highlight(groups);
+					if (interestingRect != null) {
+						index.zoomTo(interestingRect);
 					}
 				}
 			}
+		});
+	}
+
+	/**
+	 * xref index of the open pathway, built once per pathway
+	 */
+	public XrefNodeIndex getNodeIndex() {
+		VPathwayModel vpy = desktop.getSwingEngine().getEngine().getActiveVPathwayModel();
+		if (nodeIndex != null && nodeIndex.getVPathwayModel() != vpy) {
+			nodeIndex.dispose();
+			nodeIndex = null;
 		}
-		if (interestingRect != null) {
-			vpy.getWrapper().scrollTo(interestingRect.getBounds());
+		if (nodeIndex == null && vpy != null) {
+			nodeIndex = new XrefNodeIndex(vpy);
 		}
+		return nodeIndex;
 	}
 
 	@Override
 	public void done() {
 		desktop.unregisterSubMenu("Plugins", wikipathwaysMenu);
+		if (nodeIndex != null) {
+			nodeIndex.dispose();
+		}
+		thumbnailCache.dispose();
+		metadataCache.dispose();
+		if (relatedPanel != null) {
+			desktop.getSideBarTabbedPane().remove(relatedPanel);
+			desktop.getSwingEngine().getEngine().removeApplicationEventListener(relatedPanel);
+		}
 		if (tmpDir.exists()) {
 			FileUtils.deleteDirectory(tmpDir);
 		}
@@ -448,22 +797,32 @@ public class WikiPathwaysClientPlugin implements Plugin, ApplicationEventListene
 
 	@Override
 	public void applicationEvent(ApplicationEvent e) {
-		if (e.getType().equals(ApplicationEvent.Type.VPATHWAY_NEW)) {
-			revisionno = "";
-			pathwayid = "";
-		} else if (e.getType().equals(ApplicationEvent.Type.VPATHWAY_OPENED)) {
-			if (desktop.getSwingEngine().getEngine().getActivePathwayModel().getSourceFile() != null) {
-				// pathway has not been loaded from webservice
-				if (!desktop.getSwingEngine().getEngine().getActivePathwayModel().getSourceFile().getAbsolutePath()
-						.contains(GlobalPreference.getPluginDir().getAbsolutePath())) {
-					revisionno = "";
-					pathwayid = "";
-				}
-			}
+		if (e.getType().equals(ApplicationEvent.Type.VPATHWAY_CREATED) && e.getSource() instanceof VPathwayModel) {
+			((VPathwayModel) e.getSource()).addSelectionListener(selectionListener);
 		}
+		// new pathways and files opened from elsewhere have no document
 		updateState();
 	}
 
+	/**
+	 * counts the pathways of a selected data node in advance,
+	 * they are shown in the popup menu, nothing is counted while
+	 * several objects are selected, e.g. with select all
+	 */
+	private SelectionListener selectionListener = new SelectionListener() {
+		public void selectionEvent(SelectionEvent e) {
+			if (e.type == SelectionEvent.OBJECT_ADDED && e.affectedObject instanceof VDataNode
+					&& !e.source.hasMultipleSelection()) {
+				DataNode node = ((VDataNode) e.affectedObject).getPathwayObject();
+				Xref xref = node.getXref();
+				if (node.getType() != DataNodeType.PATHWAY && xref != null && xref.getDataSource() != null
+						&& xref.getId() != null && !xref.getId().isEmpty()) {
+					matchCounter.count(xref);
+				}
+			}
+		}
+	};
+
 	@Override
 	public void vPathwayModelEvent(VPathwayModelEvent e) {
 		updateState();
@@ -477,6 +836,59 @@ public class WikiPathwaysClientPlugin implements Plugin, ApplicationEventListene
 		return wpQueries;
 	}
 
+	public XrefMatchCounter getMatchCounter() {
+		return matchCounter;
+	}
+
+	public GpmlCache getGpmlCache() {
+		return gpmlCache;
+	}
+
+	public ThumbnailCache getThumbnailCache() {
+		return thumbnailCache;
+	}
+
+	public PathwayMetadataCache getMetadataCache() {
+		return metadataCache;
+	}
+
+	/**
+	 * species and curation tags of all pathways for the browse counts, built
+	 * from the local store (or the webservice if nothing has been imported)
+	 * and again after an import or while not all curation tags could be
+	 * loaded, call it outside of the event dispatch thread
+	 */
+	public synchronized FacetIndex getFacetIndex() throws RemoteException, FailedConnectionException {
+		if (facetIndex == null || facetModCount != localStore.getCatalog().getModCount() || !facetTagsComplete) {
+			facetModCount = localStore.getCatalog().getModCount();
+			FacetIndex index = new FacetIndex();
+			if (localStore.isEmpty()) {
+				for (WSPathwayInfo info : wpQueries.browseAll(null)) {
+					index.add(info.getId(), info.getSpecies());
+				}
+			} else {
+				PathwayCatalog catalog = localStore.getCatalog();
+				for (int slot = 0; slot < catalog.size(); slot++) {
+					index.add(catalog.getId(slot), catalog.getSpecies(slot));
+				}
+			}
+			for (Map.Entry<String, Set<String>> entry : metadataCache.getTagMembers().entrySet()) {
+				index.setTag(entry.getKey(), entry.getValue());
+			}
+			facetTagsComplete = metadataCache.hasAllTags();
+			facetIndex = index;
+		}
+		return facetIndex;
+	}
+
+	public OrganismCache getOrganismCache() {
+		return organismCache;
+	}
+
+	public LocalStore getLocalStore() {
+		return localStore;
+	}
+
 	public File getTmpDir() {
 		return tmpDir;
 	}
@@ -17,6 +17,7 @@
 package org.pathvisio.wpclient.actions;
 
 import java.awt.event.ActionEvent;
+import java.lang.ref.SoftReference;
 
 import javax.swing.AbstractAction;
 
@@ -36,6 +37,7 @@ import org.pathvisio.wpclient.dialogs.BrowseDialog;
 public class BrowseAction extends AbstractAction {
 
 	private WikiPathwaysClientPlugin plugin;
+	private SoftReference<BrowseDialog> dialog;
 
 	public BrowseAction(WikiPathwaysClientPlugin plugin) {
 		this.plugin = plugin;
@@ -44,6 +46,12 @@ public class BrowseAction extends AbstractAction {
 	}
 
 	public void actionPerformed(ActionEvent e) {
-		new BrowseDialog(plugin);
+		// reuses the dialog with the last browse results (see SearchAction)
+		BrowseDialog d = dialog == null ? null : dialog.get();
+		if(d == null) {
+			d = new BrowseDialog(plugin);
+			dialog = new SoftReference<BrowseDialog>(d);
+		}
+		d.showDialog();
 	}
 }
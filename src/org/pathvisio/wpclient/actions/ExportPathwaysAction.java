@@ -0,0 +1,174 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.actions;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.swing.AbstractAction;
+import javax.swing.JCheckBox;
+import javax.swing.JCheckBoxMenuItem;
+import javax.swing.JFileChooser;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JPopupMenu;
+import javax.swing.JSpinner;
+import javax.swing.JTable;
+import javax.swing.ListSelectionModel;
+import javax.swing.SpinnerNumberModel;
+import javax.swing.SwingWorker;
+import javax.swing.filechooser.FileNameExtensionFilter;
+
+import org.pathvisio.core.util.ProgressKeeper;
+import org.pathvisio.gui.ProgressDialog;
+import org.pathvisio.libgpml.debug.Logger;
+import org.pathvisio.wpclient.WikiPathwaysClientPlugin;
+import org.pathvisio.wpclient.impl.PathwayBatchExporter;
+import org.pathvisio.wpclient.panels.ThumbnailColumn;
+
+import com.jgoodies.forms.layout.CellConstraints;
+import com.jgoodies.forms.layout.FormLayout;
+
+/**
+ * exports the selected pathways of a result table into one zip file,
+ * the pathway id has to be in the first column of the table
+ * @author mkutmon
+ */
+public class ExportPathwaysAction extends AbstractAction {
+
+	private WikiPathwaysClientPlugin plugin;
+	private JTable table;
+
+	public ExportPathwaysAction(WikiPathwaysClientPlugin plugin, JTable table) {
+		this.plugin = plugin;
+		this.table = table;
+		putValue(NAME, "Export selected...");
+		putValue(SHORT_DESCRIPTION, "Export the selected pathways as GPML and PNG files into a zip file");
+	}
+
+	/**
+	 * enables multiple selection and adds the open and export
+	 * actions and the thumbnail switch to the popup menu of the table
+	 */
+	public static void install(WikiPathwaysClientPlugin plugin, JTable table) {
+		table.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+		JPopupMenu menu = new JPopupMenu();
+		menu.add(new OpenPathwaysAction(plugin, table));
+		menu.add(new ExportPathwaysAction(plugin, table));
+		menu.addSeparator();
+		final ThumbnailColumn thumbnails = new ThumbnailColumn(plugin.getThumbnailCache(), table);
+		final JCheckBoxMenuItem showThumbnails = new JCheckBoxMenuItem("Show thumbnails");
+		showThumbnails.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				thumbnails.setShown(showThumbnails.isSelected());
+			}
+		});
+		menu.add(showThumbnails);
+		table.setComponentPopupMenu(menu);
+	}
+
+	/**
+	 * distinct pathway ids of the selected rows
+	 */
+	static List<String> getSelectedIds(JTable table) {
+		Set<String> selected = new LinkedHashSet<String>();
+		for(int row : table.getSelectedRows()) {
+			Object id = table.getModel().getValueAt(table.convertRowIndexToModel(row), 0);
+			if(id != null) {
+				selected.add(id.toString());
+			}
+		}
+		return new ArrayList<String>(selected);
+	}
+
+	@Override
+	public void actionPerformed(ActionEvent e) {
+		final List<String> ids = getSelectedIds(table);
+		if(ids.isEmpty()) {
+			JOptionPane.showMessageDialog(table, "Select the pathways to export first.", "Error", JOptionPane.ERROR_MESSAGE);
+			return;
+		}
+
+		JCheckBox chkGpml = new JCheckBox("GPML files", true);
+		JCheckBox chkPng = new JCheckBox("PNG images", true);
+		JSpinner spConcurrency = new JSpinner(new SpinnerNumberModel(PathwayBatchExporter.DEFAULT_CONCURRENCY, 1, 16, 1));
+		JPanel panel = new JPanel(new FormLayout("p,3dlu,p", "p,3dlu,p,3dlu,p"));
+		CellConstraints cc = new CellConstraints();
+		panel.add(chkGpml, cc.xyw(1, 1, 3));
+		panel.add(chkPng, cc.xyw(1, 3, 3));
+		panel.add(new JLabel("Parallel downloads:"), cc.xy(1, 5));
+		panel.add(spConcurrency, cc.xy(3, 5));
+		if(JOptionPane.showConfirmDialog(table, panel, "Export " + ids.size() + " pathways",
+				JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE) != JOptionPane.OK_OPTION) {
+			return;
+		}
+		if(!chkGpml.isSelected() && !chkPng.isSelected()) {
+			return;
+		}
+
+		JFileChooser chooser = new JFileChooser();
+		chooser.setFileFilter(new FileNameExtensionFilter("ZIP archive", "zip"));
+		if(chooser.showSaveDialog(table) != JFileChooser.APPROVE_OPTION) {
+			return;
+		}
+		File file = chooser.getSelectedFile();
+		if(!file.getName().contains(".")) {
+			file = new File(file.getParentFile(), file.getName() + ".zip");
+		}
+
+		final PathwayBatchExporter exporter = new PathwayBatchExporter(plugin.getWpQueries(), plugin.getGpmlCache());
+		exporter.setGpml(chkGpml.isSelected());
+		exporter.setPng(chkPng.isSelected());
+		exporter.setConcurrency((Integer) spConcurrency.getValue());
+		export(exporter, ids, file);
+	}
+
+	private void export(final PathwayBatchExporter exporter, final List<String> ids, final File file) {
+		final ProgressKeeper pk = new ProgressKeeper(100);
+		final ProgressDialog d = new ProgressDialog(plugin.getDesktop().getFrame(), "", pk, true, true);
+
+		SwingWorker<Integer, Void> sw = new SwingWorker<Integer, Void>() {
+			protected Integer doInBackground() throws Exception {
+				try {
+					return exporter.export(ids, file, pk);
+				} finally {
+					pk.finished();
+				}
+			}
+
+			protected void done() {
+				if(!pk.isCancelled()) {
+					try {
+						JOptionPane.showMessageDialog(plugin.getDesktop().getFrame(),
+								get() + " of " + ids.size() + " pathways exported to " + file.getName() + ".");
+					} catch (Exception ex) {
+						JOptionPane.showMessageDialog(plugin.getDesktop().getFrame(), "Could not export the pathways.", "Error", JOptionPane.ERROR_MESSAGE);
+						Logger.log.error("Could not export pathways", ex);
+					}
+				}
+			}
+		};
+		sw.execute();
+		d.setVisible(true);
+	}
+}
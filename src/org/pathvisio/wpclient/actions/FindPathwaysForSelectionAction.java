@@ -0,0 +1,137 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.actions;
+
+import java.awt.event.ActionEvent;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.swing.AbstractAction;
+import javax.swing.JDialog;
+import javax.swing.JOptionPane;
+import javax.swing.SwingWorker;
+
+import org.bridgedb.Xref;
+import org.pathvisio.core.util.ProgressKeeper;
+import org.pathvisio.core.view.model.VDataNode;
+import org.pathvisio.core.view.model.VElement;
+import org.pathvisio.core.view.model.VGroup;
+import org.pathvisio.gui.ProgressDialog;
+import org.pathvisio.libgpml.debug.Logger;
+import org.pathvisio.libgpml.model.DataNode;
+import org.pathvisio.libgpml.model.Group;
+import org.pathvisio.libgpml.model.Groupable;
+import org.pathvisio.libgpml.model.type.DataNodeType;
+import org.pathvisio.wpclient.WikiPathwaysClientPlugin;
+import org.pathvisio.wpclient.impl.WSResult;
+import org.pathvisio.wpclient.impl.XrefBatchSearch;
+import org.pathvisio.wpclient.panels.PathwayPanel;
+import org.pathvisio.wpclient.utils.FileUtils;
+
+/**
+ * right click action for a selection of data nodes or a group,
+ * finds the pathways containing the xrefs of all nodes in one search
+ * and ranks them by the number of nodes they contain
+ * @author mkutmon
+ */
+public class FindPathwaysForSelectionAction extends AbstractAction {
+
+	private WikiPathwaysClientPlugin plugin;
+	private List<Xref> xrefs;
+
+	public FindPathwaysForSelectionAction(WikiPathwaysClientPlugin plugin, List<Xref> xrefs) {
+		this.plugin = plugin;
+		this.xrefs = xrefs;
+		putValue(NAME, "Find pathways containing the " + xrefs.size() + " selected nodes");
+	}
+
+	/**
+	 * xrefs of the selected data nodes, group members are included,
+	 * pathway nodes and nodes without xref are skipped
+	 */
+	public static List<Xref> getXrefs(Collection<VElement> selection) {
+		Set<DataNode> nodes = new LinkedHashSet<DataNode>();
+		for(VElement e : selection) {
+			if(e instanceof VDataNode) {
+				nodes.add(((VDataNode) e).getPathwayObject());
+			} else if(e instanceof VGroup) {
+				addMembers(((VGroup) e).getPathwayObject(), nodes);
+			}
+		}
+		List<Xref> xrefs = new ArrayList<Xref>();
+		for(DataNode node : nodes) {
+			Xref xref = node.getXref();
+			if(node.getType() != DataNodeType.PATHWAY && xref != null && xref.getDataSource() != null
+					&& xref.getId() != null && !xref.getId().isEmpty()) {
+				xrefs.add(xref);
+			}
+		}
+		return xrefs;
+	}
+
+	private static void addMembers(Group group, Set<DataNode> nodes) {
+		for(Groupable member : group.getPathwayElements()) {
+			if(member instanceof DataNode) {
+				nodes.add((DataNode) member);
+			} else if(member instanceof Group) {
+				addMembers((Group) member, nodes);
+			}
+		}
+	}
+
+	public void actionPerformed(ActionEvent evt) {
+		final ProgressKeeper pk = new ProgressKeeper(100);
+		final ProgressDialog d = new ProgressDialog(plugin.getDesktop().getFrame(), "", pk, true, true);
+
+		SwingWorker<WSResult[], Void> sw = new SwingWorker<WSResult[], Void>() {
+			protected WSResult[] doInBackground() throws Exception {
+				pk.setTaskName("Find pathways containing " + xrefs.size() + " nodes");
+				try {
+					return new XrefBatchSearch(plugin.getWpQueries()).search(xrefs, pk);
+				} finally {
+					pk.finished();
+				}
+			}
+
+			protected void done() {
+				if (pk.isCancelled()) {
+					return;
+				}
+				try {
+					WSResult[] results = get();
+					File tmpDir = new File(plugin.getTmpDir(), FileUtils.getTimeStamp());
+					PathwayPanel p = new PathwayPanel(plugin, results, tmpDir, xrefs.toArray(new Xref[xrefs.size()]));
+					JDialog dialog = new JDialog(plugin.getDesktop().getFrame(), results.length + " pathways containing the selected nodes", false);
+					dialog.getContentPane().add(p);
+					dialog.pack();
+					dialog.setLocationRelativeTo(plugin.getDesktop().getFrame());
+					dialog.setVisible(true);
+				} catch (Exception ex) {
+					JOptionPane.showMessageDialog(plugin.getDesktop().getFrame(),
+							"Error occured when searching for pathways.", "Error", JOptionPane.ERROR_MESSAGE);
+					Logger.log.error("Error searching pathways for the selection", ex);
+				}
+			}
+		};
+		sw.execute();
+		d.setVisible(true);
+	}
+}
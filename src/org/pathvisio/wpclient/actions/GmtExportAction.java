@@ -0,0 +1,182 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.actions;
+
+import java.awt.event.ActionEvent;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.swing.AbstractAction;
+import javax.swing.JComboBox;
+import javax.swing.JFileChooser;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.SwingWorker;
+import javax.swing.filechooser.FileNameExtensionFilter;
+
+import org.bridgedb.DataSource;
+import org.bridgedb.IDMapperStack;
+import org.pathvisio.core.util.ProgressKeeper;
+import org.pathvisio.gui.ProgressDialog;
+import org.pathvisio.libgpml.debug.Logger;
+import org.pathvisio.wikipathways.webservice.WSPathwayInfo;
+import org.pathvisio.wpclient.WikiPathwaysClientPlugin;
+import org.pathvisio.wpclient.store.GmtExporter;
+import org.pathvisio.wpclient.store.LocalStore;
+
+import com.jgoodies.forms.layout.CellConstraints;
+import com.jgoodies.forms.layout.FormLayout;
+
+/**
+ * action that exports the pathways of the local store as GMT gene sets
+ * @author mkutmon
+ */
+public class GmtExportAction extends AbstractAction {
+
+	private static final String ORIGINAL_IDS = "Original identifiers (SystemCode:id)";
+
+	private WikiPathwaysClientPlugin plugin;
+	private Map<String, String> collections = new LinkedHashMap<String, String>();
+
+	public GmtExportAction(WikiPathwaysClientPlugin plugin) {
+		this.plugin = plugin;
+		putValue(NAME, "Export GMT Gene Sets");
+		putValue(SHORT_DESCRIPTION, "Export the pathways of the local store as GMT gene sets");
+
+		collections.put("All pathways", null);
+		collections.put("Approved pathways", "Curation:AnalysisCollection");
+		collections.put("Featured pathways", "Curation:FeaturedPathway");
+		collections.put("Reactome pathways", "Curation:Reactome_Approved");
+		collections.put("WormBase pathways", "Curation:WormBase_Approved");
+		collections.put("CIRM pathways", "Curation:CIRM_Related");
+		collections.put("Wikipedia pathways", "Curation:Wikipedia");
+		collections.put("Open Access pathways", "Curation:OpenAccess");
+	}
+
+	@Override
+	public void actionPerformed(ActionEvent e) {
+		LocalStore store = plugin.getLocalStore();
+		if(store.isEmpty()) {
+			JOptionPane.showMessageDialog(plugin.getDesktop().getFrame(),
+					"Import a GPML archive first, the gene sets are exported from the local pathway store.",
+					"Error", JOptionPane.ERROR_MESSAGE);
+			return;
+		}
+
+		List<String> species = new ArrayList<String>();
+		species.add("All species");
+		species.addAll(store.getSpecies());
+		JComboBox cbSpecies = new JComboBox(species.toArray());
+		JComboBox cbCollection = new JComboBox(collections.keySet().toArray());
+		JComboBox cbTarget = new JComboBox(getDataSources().toArray());
+		if(DataSource.fullNameExists("Entrez Gene")) {
+			cbTarget.setSelectedItem("Entrez Gene");
+		}
+
+		JPanel panel = new JPanel(new FormLayout("p,3dlu,p", "p,3dlu,p,3dlu,p"));
+		CellConstraints cc = new CellConstraints();
+		panel.add(new JLabel("Species:"), cc.xy(1, 1));
+		panel.add(cbSpecies, cc.xy(3, 1));
+		panel.add(new JLabel("Collection:"), cc.xy(1, 3));
+		panel.add(cbCollection, cc.xy(3, 3));
+		panel.add(new JLabel("Identifiers:"), cc.xy(1, 5));
+		panel.add(cbTarget, cc.xy(3, 5));
+		if(JOptionPane.showConfirmDialog(plugin.getDesktop().getFrame(), panel, "Export GMT Gene Sets",
+				JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE) != JOptionPane.OK_OPTION) {
+			return;
+		}
+
+		JFileChooser chooser = new JFileChooser();
+		chooser.setFileFilter(new FileNameExtensionFilter("GMT gene sets", "gmt"));
+		if(chooser.showSaveDialog(plugin.getDesktop().getFrame()) == JFileChooser.APPROVE_OPTION) {
+			File file = chooser.getSelectedFile();
+			if(!file.getName().contains(".")) {
+				file = new File(file.getParentFile(), file.getName() + ".gmt");
+			}
+			export(file, cbSpecies.getSelectedIndex() == 0 ? null : cbSpecies.getSelectedItem().toString(),
+					collections.get(cbCollection.getSelectedItem()),
+					cbTarget.getSelectedIndex() == 0 ? null : DataSource.getExistingByFullName(cbTarget.getSelectedItem().toString()));
+		}
+	}
+
+	private void export(final File file, final String species, final String collection, final DataSource target) {
+		final GmtExporter exporter = new GmtExporter(plugin.getLocalStore());
+		exporter.setSpecies(species);
+		exporter.setTargetDataSource(target);
+		IDMapperStack mapper = plugin.getDesktop().getSwingEngine().getGdbManager().getCurrentGdb();
+		if(target != null && mapper != null && mapper.getSize() > 0) {
+			exporter.setMapper(mapper);
+		}
+
+		final ProgressKeeper pk = new ProgressKeeper();
+		final ProgressDialog d = new ProgressDialog(plugin.getDesktop().getFrame(), "", pk, true, true);
+
+		SwingWorker<Integer, Void> sw = new SwingWorker<Integer, Void>() {
+			protected Integer doInBackground() throws Exception {
+				try {
+					if(collection != null) {
+						// one request for the members of the collection
+						Set<String> ids = new HashSet<String>();
+						for(WSPathwayInfo info : plugin.getWpQueries().browseByCurationTag(collection, pk)) {
+							ids.add(info.getId());
+						}
+						exporter.setPathwayIds(ids);
+					}
+					return exporter.export(file, pk);
+				} finally {
+					pk.finished();
+				}
+			}
+
+			protected void done() {
+				if(!pk.isCancelled()) {
+					try {
+						JOptionPane.showMessageDialog(plugin.getDesktop().getFrame(), get() + " gene sets exported.");
+					} catch (Exception ex) {
+						JOptionPane.showMessageDialog(plugin.getDesktop().getFrame(), "Could not export " + file.getName() + ".", "Error", JOptionPane.ERROR_MESSAGE);
+						Logger.log.error("Could not export GMT file", ex);
+					}
+				}
+			}
+		};
+		sw.execute();
+		d.setVisible(true);
+	}
+
+	/**
+	 * full names of the known data sources, sorted, with the option
+	 * to keep the original identifiers first
+	 */
+	private List<String> getDataSources() {
+		List<String> names = new ArrayList<String>();
+		for(DataSource ds : DataSource.getDataSources()) {
+			if(ds.getFullName() != null && ds.getSystemCode() != null) {
+				names.add(ds.getFullName());
+			}
+		}
+		Collections.sort(names, String.CASE_INSENSITIVE_ORDER);
+		names.add(0, ORIGINAL_IDS);
+		return names;
+	}
+}
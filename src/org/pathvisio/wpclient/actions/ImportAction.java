@@ -0,0 +1,98 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.actions;
+
+import java.awt.event.ActionEvent;
+import java.io.File;
+
+import javax.swing.AbstractAction;
+import javax.swing.JFileChooser;
+import javax.swing.JOptionPane;
+import javax.swing.SwingWorker;
+import javax.swing.filechooser.FileNameExtensionFilter;
+
+import org.pathvisio.core.util.ProgressKeeper;
+import org.pathvisio.gui.ProgressDialog;
+import org.pathvisio.libgpml.debug.Logger;
+import org.pathvisio.wpclient.WikiPathwaysClientPlugin;
+import org.pathvisio.wpclient.store.GpmlZipImporter;
+import org.pathvisio.wpclient.store.LocalStore;
+
+/**
+ * action that imports a GPML zip archive (e.g. from data.wikipathways.org)
+ * into the local pathway store
+ * @author mkutmon
+ */
+public class ImportAction extends AbstractAction {
+
+	private WikiPathwaysClientPlugin plugin;
+
+	public ImportAction(WikiPathwaysClientPlugin plugin) {
+		this.plugin = plugin;
+		putValue(NAME, "Import GPML Archive");
+		putValue(SHORT_DESCRIPTION, "Import a WikiPathways GPML zip archive into the local store");
+	}
+
+	@Override
+	public void actionPerformed(ActionEvent e) {
+		JFileChooser chooser = new JFileChooser();
+		chooser.setFileFilter(new FileNameExtensionFilter("GPML zip archive", "zip"));
+		if(chooser.showOpenDialog(plugin.getDesktop().getFrame()) == JFileChooser.APPROVE_OPTION) {
+			importArchive(chooser.getSelectedFile());
+		}
+	}
+
+	private void importArchive(final File file) {
+		final LocalStore store = plugin.getLocalStore();
+		final ProgressKeeper pk = new ProgressKeeper();
+		final ProgressDialog d = new ProgressDialog(plugin.getDesktop().getFrame(), "", pk, true, true);
+
+		SwingWorker<Integer, Void> sw = new SwingWorker<Integer, Void>() {
+			protected Integer doInBackground() throws Exception {
+				try {
+					int count = new GpmlZipImporter(store).importArchive(file, pk);
+					if(pk.isCancelled()) {
+						// a partial import would replace the server in the title search
+						store.reload();
+						return 0;
+					}
+					pk.report("Saving local store");
+					store.save();
+					return count;
+				} finally {
+					pk.finished();
+				}
+			}
+
+			protected void done() {
+				try {
+					int count = get();
+					if(pk.isCancelled()) {
+						JOptionPane.showMessageDialog(plugin.getDesktop().getFrame(), "Import cancelled, the local store has not been changed.");
+					} else {
+						JOptionPane.showMessageDialog(plugin.getDesktop().getFrame(), count + " pathways imported.");
+					}
+				} catch (Exception ex) {
+					JOptionPane.showMessageDialog(plugin.getDesktop().getFrame(), "Could not import " + file.getName() + ".", "Error", JOptionPane.ERROR_MESSAGE);
+					Logger.log.error("Could not import GPML archive", ex);
+				}
+			}
+		};
+		sw.execute();
+		d.setVisible(true);
+	}
+}
@@ -28,6 +28,7 @@ import org.pathvisio.libgpml.model.PathwayElement;
 import org.pathvisio.libgpml.model.type.DataNodeType;
 import org.pathvisio.libgpml.model.type.ObjectType;
 import org.pathvisio.wpclient.WikiPathwaysClientPlugin;
+import org.pathvisio.wpclient.impl.XrefMatchCounter;
 
 /**
  * This class handles the GUI for the pathway to load Load Pathway into
@@ -49,11 +50,39 @@ public class OpenPathwayFromXrefAction extends AbstractAction {
 			if (((DataNode) elm).getType() == DataNodeType.PATHWAY) {
 				putValue(NAME, "Open Pathway from WikiPathways");
 			} else {
-				putValue(NAME, "Find pathways containing " + ((DataNode) elm).getXref());
+				final String name = "Find pathways containing " + ((DataNode) elm).getXref();
+				putValue(NAME, name);
+				countMatches(((DataNode) elm).getXref(), name);
 			}
 		}
 	}
 
+	/**
+	 * shows the number of pathways in the menu text once it is
+	 * known, the item is disabled if there are none
+	 */
+	private void countMatches(Xref xref, final String name) {
+		if (xref == null || xref.getDataSource() == null || xref.getId() == null) {
+			return;
+		}
+		XrefMatchCounter counter = plugin.getMatchCounter();
+		Integer count = counter.getCount(xref);
+		if (count != null) {
+			showCount(name, count);
+		} else {
+			counter.count(xref, new XrefMatchCounter.Listener() {
+				public void countFound(Xref xref, int count) {
+					showCount(name, count);
+				}
+			});
+		}
+	}
+
+	private void showCount(String name, int count) {
+		putValue(NAME, name + " (" + count + (count == 1 ? " pathway)" : " pathways)"));
+		setEnabled(count > 0);
+	}
+
 	public void actionPerformed(ActionEvent evt) {
 		if (elm.getObjectType() == ObjectType.DATANODE) {
 			Xref xref = ((DataNode) elm).getXref();
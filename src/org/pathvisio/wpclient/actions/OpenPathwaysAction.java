@@ -0,0 +1,54 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.actions;
+
+import java.awt.event.ActionEvent;
+import java.util.List;
+
+import javax.swing.AbstractAction;
+import javax.swing.JOptionPane;
+import javax.swing.JTable;
+
+import org.pathvisio.wpclient.WikiPathwaysClientPlugin;
+
+/**
+ * opens the selected pathways of a result table, the pathway
+ * id has to be in the first column of the table
+ * @author mkutmon
+ */
+public class OpenPathwaysAction extends AbstractAction {
+
+	private WikiPathwaysClientPlugin plugin;
+	private JTable table;
+
+	public OpenPathwaysAction(WikiPathwaysClientPlugin plugin, JTable table) {
+		this.plugin = plugin;
+		this.table = table;
+		putValue(NAME, "Open selected");
+		putValue(SHORT_DESCRIPTION, "Open the selected pathways, they are listed in the open documents menu");
+	}
+
+	@Override
+	public void actionPerformed(ActionEvent e) {
+		List<String> ids = ExportPathwaysAction.getSelectedIds(table);
+		if(ids.isEmpty()) {
+			JOptionPane.showMessageDialog(table, "Select the pathways to open first.", "Error", JOptionPane.ERROR_MESSAGE);
+			return;
+		}
+		plugin.openPathwaysWithProgress(ids, plugin.getTmpDir());
+	}
+}
@@ -0,0 +1,53 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.actions;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+
+import javax.swing.AbstractAction;
+import javax.swing.KeyStroke;
+
+import org.pathvisio.wpclient.WikiPathwaysClientPlugin;
+import org.pathvisio.wpclient.dialogs.QuickOpenDialog;
+
+/**
+ * opens the quick open dialog (Ctrl+Shift+O)
+ * @author mkutmon
+ */
+public class QuickOpenAction extends AbstractAction {
+
+	private WikiPathwaysClientPlugin plugin;
+	private QuickOpenDialog dialog;
+
+	public QuickOpenAction(WikiPathwaysClientPlugin plugin) {
+		this.plugin = plugin;
+		putValue(NAME, "Quick Open");
+		putValue(SHORT_DESCRIPTION, "Open a WikiPathways pathway by id, title or species");
+		putValue(ACCELERATOR_KEY, KeyStroke.getKeyStroke(KeyEvent.VK_O, InputEvent.CTRL_DOWN_MASK | InputEvent.SHIFT_DOWN_MASK));
+	}
+
+	@Override
+	public void actionPerformed(ActionEvent e) {
+		// the dialog is reused, only the matcher is refreshed
+		if(dialog == null) {
+			dialog = new QuickOpenDialog(plugin);
+		}
+		dialog.showDialog();
+	}
+}
@@ -17,6 +17,7 @@
 package org.pathvisio.wpclient.actions;
 
 import java.awt.event.ActionEvent;
+import java.lang.ref.SoftReference;
 import java.net.URL;
 
 import javax.swing.AbstractAction;
@@ -33,6 +34,7 @@ public class SearchAction extends AbstractAction
 	private String IMG_SEARCH = "resources/search.gif";
 	private URL url = WikiPathwaysClientPlugin.class.getClassLoader().getResource(IMG_SEARCH);
 	private WikiPathwaysClientPlugin plugin;
+	private SoftReference<SearchDialog> dialog;
 
 	public SearchAction(WikiPathwaysClientPlugin plugin) {
 		this.plugin = plugin;
@@ -42,6 +44,13 @@ public class SearchAction extends AbstractAction
 	}
 
 	public void actionPerformed(ActionEvent e)  {
-		new SearchDialog(plugin);
+		// the dialog keeps its state between searches, it is only created
+		// again if it has been collected because memory was running low
+		SearchDialog d = dialog == null ? null : dialog.get();
+		if(d == null) {
+			d = new SearchDialog(plugin);
+			dialog = new SoftReference<SearchDialog>(d);
+		}
+		d.showDialog();
 	}
 }
\ No newline at end of file
@@ -18,76 +18,56 @@ package org.pathvisio.wpclient.dialogs;
 
 import java.awt.BorderLayout;
 import java.awt.CardLayout;
-import java.net.MalformedURLException;
-import java.rmi.RemoteException;
 
 import javax.swing.BorderFactory;
 import javax.swing.JDialog;
-import javax.swing.JOptionPane;
 import javax.swing.JPanel;
-import javax.swing.SwingWorker;
 import javax.swing.border.Border;
-import javax.xml.rpc.ServiceException;
 
-import org.pathvisio.libgpml.debug.Logger;
-import org.pathvisio.core.util.ProgressKeeper;
-import org.pathvisio.gui.ProgressDialog;
-import org.pathvisio.wpclient.FailedConnectionException;
 import org.pathvisio.wpclient.WikiPathwaysClientPlugin;
 import org.pathvisio.wpclient.panels.BrowsePanel;
 
+/**
+ * browse dialog, created once and reused for the session
+ * (see {@link SearchDialog})
+ */
 public class BrowseDialog {
 
 	private JDialog dialog;
 	private Browse browsePanel;
+	private WikiPathwaysClientPlugin plugin;
+	private boolean shown;
 	
 	public BrowseDialog(final WikiPathwaysClientPlugin plugin) {
+		this.plugin = plugin;
 		dialog = new JDialog(plugin.getDesktop().getFrame(), "Browse WikiPathways", false);
 		
-		final ProgressKeeper pk = new ProgressKeeper();
-		final ProgressDialog d = new ProgressDialog(plugin.getDesktop().getFrame(), "", pk, true, true);
-
-		SwingWorker<Exception, Void> sw = new SwingWorker<Exception, Void>() {
-			protected Exception doInBackground() throws Exception {
-				pk.setTaskName("Connecting to WikiPathways");
-				try {
-					browsePanel = new Browse(plugin);
-					dialog.setLayout(new BorderLayout());
-					Border padBorder = BorderFactory.createEmptyBorder(5, 5, 5, 5);
-					browsePanel.setLayout(new CardLayout());
-					browsePanel.setBorder(padBorder);	
-					
-					dialog.add(browsePanel);
-					dialog.pack();	
-					//loading dialog at the centre of the frame
-					dialog.setLocationRelativeTo(plugin.getDesktop().getSwingEngine().getFrame());
-					dialog.setVisible(true);
-					
-					return null;
-				} catch(Exception e) {
-					return e;
-				}
-			}
-			
-			protected void done() {
-				if(!pk.isCancelled()) {
-					try {
-						if(get() == null) {
-							dialog.setVisible(true);
-							pk.finished();
-						} else {
-							JOptionPane.showMessageDialog(d, "Unable to connect to WikiPathways.", "Connection error", JOptionPane.ERROR_MESSAGE);
-							Logger.log.error("Unable to conntect to WikiPathways\n" + get().getMessage() + "\n");
-						}
-					} catch (Exception e) {
-						JOptionPane.showMessageDialog(d, "Unable to connect to WikiPathways.", "Connection error", JOptionPane.ERROR_MESSAGE);
-						Logger.log.error("Unable to conntect to WikiPathways\n" + e.getMessage() + "\n");
-					} 
-				} 
-			}
-		};
-		sw.execute();
-		d.setVisible(true);
+		// the species list comes from the organism cache, no need to connect first
+		browsePanel = new Browse(plugin);
+		dialog.setLayout(new BorderLayout());
+		Border padBorder = BorderFactory.createEmptyBorder(5, 5, 5, 5);
+		browsePanel.setLayout(new CardLayout());
+		browsePanel.setBorder(padBorder);	
+		
+		dialog.add(browsePanel);
+		dialog.pack();	
+		// disposing keeps the panel and its results, the window
+		// can be shown again
+		dialog.setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
+	}
+	
+	/**
+	 * shows the dialog, centered on the frame the first time
+	 * and at its last position afterwards
+	 */
+	public void showDialog() {
+		if(!shown) {
+			//loading dialog at the centre of the frame
+			dialog.setLocationRelativeTo(plugin.getDesktop().getSwingEngine().getFrame());
+			shown = true;
+		}
+		dialog.setVisible(true);
+		dialog.toFront();
 	}
 	
 	/**
@@ -95,7 +75,7 @@ public class BrowseDialog {
 	 */
 	private class Browse extends JPanel {
 		
-		public Browse(WikiPathwaysClientPlugin plugin) throws RemoteException, MalformedURLException, ServiceException, FailedConnectionException {
+		public Browse(WikiPathwaysClientPlugin plugin) {
 			BrowsePanel p = new BrowsePanel(plugin);
 			add(p);
 		}
@@ -0,0 +1,256 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.dialogs;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.File;
+
+import javax.swing.AbstractAction;
+import javax.swing.BorderFactory;
+import javax.swing.DefaultListModel;
+import javax.swing.JComponent;
+import javax.swing.JDialog;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextField;
+import javax.swing.KeyStroke;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingWorker;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+import org.pathvisio.libgpml.debug.Logger;
+import org.pathvisio.wpclient.WikiPathwaysClientPlugin;
+import org.pathvisio.wpclient.store.LocalStore;
+import org.pathvisio.wpclient.store.PathwayCatalog;
+import org.pathvisio.wpclient.store.QuickOpenMatcher;
+import org.pathvisio.wpclient.utils.FileUtils;
+
+/**
+ * keyboard driven dialog to open a pathway by id, title or species
+ * 
+ * matches are computed from the local store on every keystroke,
+ * Enter opens the selected pathway, Escape closes the dialog
+ * @author mkutmon
+ */
+public class QuickOpenDialog extends JDialog {
+
+	private static final int MAX_RESULTS = 50;
+
+	private WikiPathwaysClientPlugin plugin;
+	private JTextField queryField;
+	private JList resultList;
+	private DefaultListModel listModel;
+	private JLabel statusLabel;
+
+	private QuickOpenMatcher matcher;
+	private PathwayCatalog catalog;
+	private SwingWorker<QuickOpenMatcher, Void> loading;
+
+	public QuickOpenDialog(WikiPathwaysClientPlugin plugin) {
+		super(plugin.getDesktop().getFrame(), "Open WikiPathways Pathway", false);
+		this.plugin = plugin;
+
+		queryField = new JTextField();
+		queryField.setToolTipText("Pathway id, title or species (e.g. 'WP254', 'apoptosis', 'apop mus')");
+		listModel = new DefaultListModel();
+		resultList = new JList(listModel);
+		resultList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+		resultList.setFocusable(false);
+		statusLabel = new JLabel(" ");
+
+		JPanel content = new JPanel(new BorderLayout(0, 3));
+		content.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+		content.add(queryField, BorderLayout.NORTH);
+		JScrollPane scroll = new JScrollPane(resultList);
+		scroll.setPreferredSize(new Dimension(500, 300));
+		content.add(scroll, BorderLayout.CENTER);
+		content.add(statusLabel, BorderLayout.SOUTH);
+		setContentPane(content);
+
+		queryField.getDocument().addDocumentListener(new DocumentListener() {
+			public void insertUpdate(DocumentEvent e) {
+				updateResults();
+			}
+
+			public void removeUpdate(DocumentEvent e) {
+				updateResults();
+			}
+
+			public void changedUpdate(DocumentEvent e) {
+				updateResults();
+			}
+		});
+
+		// arrow keys move the selection while the focus stays in the text field
+		bind(KeyEvent.VK_DOWN, "next", new AbstractAction() {
+			public void actionPerformed(ActionEvent e) {
+				moveSelection(1);
+			}
+		});
+		bind(KeyEvent.VK_UP, "previous", new AbstractAction() {
+			public void actionPerformed(ActionEvent e) {
+				moveSelection(-1);
+			}
+		});
+		bind(KeyEvent.VK_ENTER, "open", new AbstractAction() {
+			public void actionPerformed(ActionEvent e) {
+				openSelected();
+			}
+		});
+		bind(KeyEvent.VK_ESCAPE, "close", new AbstractAction() {
+			public void actionPerformed(ActionEvent e) {
+				setVisible(false);
+			}
+		});
+
+		resultList.addMouseListener(new MouseAdapter() {
+			public void mouseClicked(MouseEvent e) {
+				if (e.getClickCount() == 2) {
+					openSelected();
+				}
+			}
+		});
+		pack();
+	}
+
+	/**
+	 * shows the dialog with an empty query, the title index
+	 * is loaded in the background and the matches are shown
+	 * as soon as it is ready
+	 */
+	public void showDialog() {
+		final LocalStore store = plugin.getLocalStore();
+		catalog = store.getCatalog();
+		matcher = null;
+		if (loading != null) {
+			loading.cancel(false);
+		}
+		// the title index is cached by the store but is rebuilt after an import
+		loading = new SwingWorker<QuickOpenMatcher, Void>() {
+			protected QuickOpenMatcher doInBackground() throws Exception {
+				return new QuickOpenMatcher(catalog, store.getTitleIndex());
+			}
+
+			protected void done() {
+				if (isCancelled() || loading != this) {
+					return;
+				}
+				loading = null;
+				try {
+					matcher = get();
+				} catch (Exception ex) {
+					Logger.log.error("Could not load the title index", ex);
+				}
+				updateResults();
+			}
+		};
+		loading.execute();
+		queryField.setText("");
+		updateResults();
+		setLocationRelativeTo(plugin.getDesktop().getFrame());
+		setVisible(true);
+		queryField.requestFocusInWindow();
+	}
+
+	private void bind(int key, String name, AbstractAction action) {
+		queryField.getInputMap(JComponent.WHEN_FOCUSED).put(KeyStroke.getKeyStroke(key, 0), name);
+		queryField.getActionMap().put(name, action);
+	}
+
+	private void updateResults() {
+		listModel.clear();
+		String query = queryField.getText().trim();
+		if (catalog.size() == 0) {
+			statusLabel.setText("Local store is empty, import a GPML archive to search titles. Enter opens a WP id.");
+			return;
+		}
+		if (query.isEmpty()) {
+			statusLabel.setText(catalog.size() + " pathways");
+			return;
+		}
+		if (matcher == null) {
+			statusLabel.setText("Loading titles...");
+			return;
+		}
+		int[] slots = matcher.match(query, MAX_RESULTS);
+		for (int slot : slots) {
+			listModel.addElement(new Entry(catalog.getId(slot), catalog.getName(slot), catalog.getSpecies(slot)));
+		}
+		if (slots.length > 0) {
+			resultList.setSelectedIndex(0);
+		}
+		statusLabel.setText(slots.length == MAX_RESULTS ? "first " + MAX_RESULTS + " matches" : slots.length + " matches");
+	}
+
+	private void moveSelection(int delta) {
+		int size = listModel.getSize();
+		if (size > 0) {
+			int index = Math.max(0, Math.min(size - 1, resultList.getSelectedIndex() + delta));
+			resultList.setSelectedIndex(index);
+			resultList.ensureIndexIsVisible(index);
+		}
+	}
+
+	private void openSelected() {
+		String id;
+		Entry entry = (Entry) resultList.getSelectedValue();
+		if (entry != null) {
+			id = entry.id;
+		} else if (queryField.getText().trim().toUpperCase().matches("WP\\d+")) {
+			// allow opening by id without a local store
+			id = queryField.getText().trim().toUpperCase();
+		} else {
+			return;
+		}
+		setVisible(false);
+
+		File tmpDir = new File(plugin.getTmpDir(), FileUtils.getTimeStamp());
+		tmpDir.mkdirs();
+		try {
+			plugin.openPathwayWithProgress(id, 0, tmpDir);
+		} catch (Exception ex) {
+			JOptionPane.showMessageDialog(plugin.getDesktop().getFrame(), ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+			Logger.log.error("Error", ex);
+		}
+	}
+
+	/**
+	 * list entry, rendered as "WP254 Apoptosis (Homo sapiens)"
+	 */
+	private static class Entry {
+		private String id;
+		private String text;
+
+		private Entry(String id, String name, String species) {
+			this.id = id;
+			this.text = id + "  " + name + "  (" + species + ")";
+		}
+
+		public String toString() {
+			return text;
+		}
+	}
+}
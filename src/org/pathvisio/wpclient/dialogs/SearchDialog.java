@@ -18,75 +18,63 @@ package org.pathvisio.wpclient.dialogs;
 
 import java.awt.BorderLayout;
 import java.awt.CardLayout;
-import java.net.MalformedURLException;
-import java.rmi.RemoteException;
 
 import javax.swing.BorderFactory;
 import javax.swing.JDialog;
-import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JTabbedPane;
-import javax.swing.SwingWorker;
 import javax.swing.border.Border;
-import javax.xml.rpc.ServiceException;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 
-import org.pathvisio.libgpml.debug.Logger;
-import org.pathvisio.core.util.ProgressKeeper;
-import org.pathvisio.gui.ProgressDialog;
-import org.pathvisio.wpclient.FailedConnectionException;
 import org.pathvisio.wpclient.WikiPathwaysClientPlugin;
+import org.pathvisio.wpclient.panels.ConnectionSearchPanel;
+import org.pathvisio.wpclient.panels.FederatedSearchPanel;
 import org.pathvisio.wpclient.panels.KeywordSearchPanel;
 import org.pathvisio.wpclient.panels.LiteratureSearchPanel;
 import org.pathvisio.wpclient.panels.PathwaySearchPanel;
 import org.pathvisio.wpclient.panels.XrefSearchPanel;
 
+/**
+ * search dialog, created once and reused for the session
+ * 
+ * closing the dialog only releases its window resources, the
+ * panels keep their queries, filters and results for the next time
+ */
 public class SearchDialog extends JDialog {
 	
+	private WikiPathwaysClientPlugin plugin;
+	private boolean shown;
+	
 	public SearchDialog(final WikiPathwaysClientPlugin plugin) {
-		final JDialog dialog = new JDialog(plugin.getDesktop().getFrame(), "Search WikiPathways",false);
-		final ProgressKeeper pk = new ProgressKeeper();
-		final ProgressDialog d = new ProgressDialog(plugin.getDesktop().getFrame(), "", pk, true, true);
-
-		SwingWorker<Exception, Void> sw = new SwingWorker<Exception, Void>() {
-			protected Exception doInBackground() throws Exception {
-				pk.setTaskName("Connecting to WikiPathways");
-				try {
-					Search p = new Search(plugin);
-					dialog.setLayout(new BorderLayout());
-					Border padBorder = BorderFactory.createEmptyBorder(5, 5, 5, 5);
-					p.setLayout(new CardLayout());
-					p.setBorder(padBorder);	
-					
-					dialog.add(p);
-					dialog.pack();	
-					//loading dialog at the centre of the frame
-					dialog.setLocationRelativeTo(plugin.getDesktop().getSwingEngine().getFrame());
-					
-					return null;
-				} catch (Exception e) {
-					return e;
-				}
-			}
-			
-			protected void done() {
-				if(!pk.isCancelled()) {
-					try {
-						if(get() == null) {
-							dialog.setVisible(true);
-							pk.finished();
-						} else {
-							JOptionPane.showMessageDialog(d, "Unable to connect to WikiPathways.", "Connection error", JOptionPane.ERROR_MESSAGE);
-							Logger.log.error("Unable to conntect to WikiPathways\n" + get().getMessage() + "\n");
-						}
-					} catch (Exception e) {
-						JOptionPane.showMessageDialog(d, "Unable to connect to WikiPathways.", "Connection error", JOptionPane.ERROR_MESSAGE);
-						Logger.log.error("Unable to conntect to WikiPathways\n" + e.getMessage() + "\n");
-					} 
-				} 
-			}
-		};
-		sw.execute();
-		d.setVisible(true);
+		super(plugin.getDesktop().getFrame(), "Search WikiPathways", false);
+		this.plugin = plugin;
+		
+		// no connection needed to open the dialog, the tabs are created
+		// when they are first shown and the species list comes from the cache
+		Search p = new Search(plugin);
+		setLayout(new BorderLayout());
+		Border padBorder = BorderFactory.createEmptyBorder(5, 5, 5, 5);
+		p.setLayout(new CardLayout());
+		p.setBorder(padBorder);	
+		
+		add(p);
+		pack();	
+		setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+	}
+	
+	/**
+	 * shows the dialog, centered on the frame the first time
+	 * and at its last position afterwards
+	 */
+	public void showDialog() {
+		if(!shown) {
+			//loading dialog at the centre of the frame
+			setLocationRelativeTo(plugin.getDesktop().getSwingEngine().getFrame());
+			shown = true;
+		}
+		setVisible(true);
+		toFront();
 	}
 	
 	/**
@@ -94,20 +82,57 @@ public class SearchDialog extends JDialog {
 	 */
 	private class Search extends JPanel {
 		private JTabbedPane searchTabbedPane;
+		private WikiPathwaysClientPlugin plugin;
 		 
-		public Search(WikiPathwaysClientPlugin plugin) throws MalformedURLException, RemoteException, ServiceException, FailedConnectionException {
-			KeywordSearchPanel p = new KeywordSearchPanel(plugin);
-			PathwaySearchPanel a = new PathwaySearchPanel(plugin);
-			LiteratureSearchPanel r = new LiteratureSearchPanel(plugin);
-			XrefSearchPanel sp = new XrefSearchPanel(plugin);
+		public Search(WikiPathwaysClientPlugin plugin) {
+			this.plugin = plugin;
 			
 			searchTabbedPane = new JTabbedPane();
-			searchTabbedPane.addTab("KeyWord Search", p);
-			searchTabbedPane.addTab("Pathway Search", a);
-			searchTabbedPane.addTab("Search By Identifier", sp);
-			searchTabbedPane.addTab("References", r);
+			searchTabbedPane.addTab("All", new JPanel(new BorderLayout()));
+			searchTabbedPane.addTab("KeyWord Search", new JPanel(new BorderLayout()));
+			searchTabbedPane.addTab("Pathway Search", new JPanel(new BorderLayout()));
+			searchTabbedPane.addTab("Search By Identifier", new JPanel(new BorderLayout()));
+			searchTabbedPane.addTab("References", new JPanel(new BorderLayout()));
+			searchTabbedPane.addTab("Connections", new JPanel(new BorderLayout()));
+			createTab(0);
+			searchTabbedPane.addChangeListener(new ChangeListener() {
+				public void stateChanged(ChangeEvent e) {
+					createTab(searchTabbedPane.getSelectedIndex());
+				}
+			});
 			
 			add(searchTabbedPane);
 		}
+		
+		/**
+		 * creates the panel of a tab if it has not been shown before
+		 */
+		private void createTab(int index) {
+			JPanel tab = (JPanel) searchTabbedPane.getComponentAt(index);
+			if(tab.getComponentCount() > 0) {
+				return;
+			}
+			switch(index) {
+			case 0:
+				tab.add(new FederatedSearchPanel(plugin));
+				break;
+			case 1:
+				tab.add(new KeywordSearchPanel(plugin));
+				break;
+			case 2:
+				tab.add(new PathwaySearchPanel(plugin));
+				break;
+			case 3:
+				tab.add(new XrefSearchPanel(plugin));
+				break;
+			case 4:
+				tab.add(new LiteratureSearchPanel(plugin));
+				break;
+			case 5:
+				tab.add(new ConnectionSearchPanel(plugin));
+				break;
+			}
+			tab.revalidate();
+		}
 	}
 }
@@ -0,0 +1,81 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.dialogs;
+
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+
+import javax.swing.JDialog;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JOptionPane;
+import javax.swing.JScrollPane;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
+
+/**
+ * "Did you mean..." dialog that is shown when a search
+ * did not return any results
+ * @author mkutmon
+ */
+public class SuggestionDialog {
+
+	/**
+	 * shows the suggestions (or just "0 results found" if there are none)
+	 * and returns the suggestion the user picked or null
+	 */
+	public static String showSuggestions(Component parent, List<String> suggestions) {
+		if(suggestions.isEmpty()) {
+			JOptionPane.showMessageDialog(parent, "0 results found");
+			return null;
+		}
+
+		final JList list = new JList(suggestions.toArray());
+		list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+		list.setSelectedIndex(0);
+		list.setVisibleRowCount(Math.min(suggestions.size(), 8));
+		JScrollPane scroll = new JScrollPane(list);
+		scroll.setPreferredSize(new Dimension(350, scroll.getPreferredSize().height));
+
+		final JOptionPane pane = new JOptionPane(new Object[] { new JLabel("0 results found. Did you mean:"), scroll },
+				JOptionPane.QUESTION_MESSAGE, JOptionPane.OK_CANCEL_OPTION);
+		final JDialog dialog = pane.createDialog(parent, "No results");
+		list.addMouseListener(new MouseAdapter() {
+			public void mouseClicked(MouseEvent e) {
+				if(e.getClickCount() == 2) {
+					pane.setValue(JOptionPane.OK_OPTION);
+				}
+			}
+		});
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+				list.requestFocusInWindow();
+			}
+		});
+		dialog.setVisible(true);
+		dialog.dispose();
+
+		Object value = pane.getValue();
+		if(value instanceof Integer && (Integer) value == JOptionPane.OK_OPTION) {
+			return (String) list.getSelectedValue();
+		}
+		return null;
+	}
+}
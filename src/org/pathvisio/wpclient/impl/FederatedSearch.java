@@ -0,0 +1,173 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.bridgedb.DataSource;
+import org.bridgedb.Xref;
+import org.pathvisio.wikipathways.webservice.WSPathwayInfo;
+import org.pathvisio.wikipathways.webservice.WSSearchResult;
+import org.pathvisio.wpclient.IWPQueries;
+
+/**
+ * runs all search modes that fit a query at the same time
+ * 
+ * the query is classified as pathway id, pubmed id, xref (SysCode:id)
+ * or free text and the matching {@link IWPQueries} calls are started
+ * in parallel, results are reported per call as soon as it finishes
+ * @author mkutmon
+ */
+public class FederatedSearch {
+
+	/**
+	 * search modes
+	 */
+	public enum Source {
+		PATHWAY_ID("Pathway ID"),
+		XREF("Identifier"),
+		LITERATURE("Reference"),
+		TEXT("Keyword");
+
+		private String label;
+
+		private Source(String label) {
+			this.label = label;
+		}
+
+		public String getLabel() {
+			return label;
+		}
+	}
+
+	/**
+	 * receives the results of the single searches, called on
+	 * the search threads
+	 */
+	public interface Listener {
+		public void found(Source source, WSSearchResult[] results);
+
+		public void failed(Source source, Exception e);
+	}
+
+	private static final Pattern PATHWAY_ID = Pattern.compile("(?i)WP\\d+");
+	private static final Pattern PUBMED_ID = Pattern.compile("\\d{4,9}");
+	private static final Pattern XREF = Pattern.compile("([^:\\s]+):(\\S+)");
+
+	private IWPQueries wpQueries;
+	private ExecutorService executor;
+
+	public FederatedSearch(IWPQueries wpQueries) {
+		this.wpQueries = wpQueries;
+		// idle threads end after a minute
+		executor = Executors.newCachedThreadPool(new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "wpclient-search");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+	}
+
+	/**
+	 * returns the search modes that are relevant for the query,
+	 * the most relevant first
+	 */
+	public static List<Source> classify(String query) {
+		String q = query.trim();
+		if(PATHWAY_ID.matcher(q).matches()) {
+			return Arrays.asList(Source.PATHWAY_ID);
+		}
+		if(toXref(q) != null) {
+			return Arrays.asList(Source.XREF);
+		}
+		// the literature search also matches titles and authors of
+		// references, for free text the keyword results come first
+		if(PUBMED_ID.matcher(q).matches()) {
+			return Arrays.asList(Source.LITERATURE, Source.TEXT);
+		}
+		return Arrays.asList(Source.TEXT, Source.LITERATURE);
+	}
+
+	/**
+	 * parses "SysCode:id", returns null if the query is not an xref
+	 * with a known system code
+	 */
+	public static Xref toXref(String query) {
+		Matcher m = XREF.matcher(query.trim());
+		if(!m.matches() || !DataSource.systemCodeExists(m.group(1))) {
+			return null;
+		}
+		return new Xref(m.group(2), DataSource.getExistingBySystemCode(m.group(1)));
+	}
+
+	/**
+	 * starts the searches, every search reports to the listener
+	 * when it is done, the returned futures can be used to cancel
+	 */
+	public List<Future<?>> search(String query, final Listener listener) {
+		final String q = query.trim();
+		List<Future<?>> futures = new ArrayList<Future<?>>();
+		for(final Source source : classify(q)) {
+			futures.add(executor.submit(new Runnable() {
+				public void run() {
+					try {
+						WSSearchResult[] results = query(source, q);
+						if(!Thread.currentThread().isInterrupted()) {
+							listener.found(source, results);
+						}
+					} catch (Exception e) {
+						if(!Thread.currentThread().isInterrupted()) {
+							listener.failed(source, e);
+						}
+					}
+				}
+			}));
+		}
+		return futures;
+	}
+
+	private WSSearchResult[] query(Source source, String query) throws Exception {
+		switch(source) {
+		case PATHWAY_ID:
+			WSPathwayInfo info = wpQueries.getPathwayInfo(query.toUpperCase(), null);
+			if(info == null) {
+				return new WSSearchResult[0];
+			}
+			WSSearchResult result = new WSSearchResult();
+			result.setId(info.getId());
+			result.setName(info.getName());
+			result.setSpecies(info.getSpecies());
+			result.setRevision(info.getRevision());
+			return new WSSearchResult[] { result };
+		case XREF:
+			return wpQueries.findByXref(new Xref[] { toXref(query) }, null);
+		case LITERATURE:
+			return wpQueries.findByLiteratureReference(query, null);
+		default:
+			return wpQueries.findByText(query, null);
+		}
+	}
+}
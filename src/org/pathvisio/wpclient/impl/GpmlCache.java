@@ -0,0 +1,97 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.impl;
+
+import java.io.File;
+import java.rmi.RemoteException;
+
+import org.pathvisio.libgpml.io.ConverterException;
+import org.pathvisio.libgpml.model.PathwayModel;
+import org.pathvisio.wikipathways.webservice.WSPathway;
+import org.pathvisio.wpclient.FailedConnectionException;
+import org.pathvisio.wpclient.IWPQueries;
+import org.pathvisio.wpclient.utils.FileUtils;
+import org.wikipathways.client.WikiPathwaysClient;
+
+/**
+ * downloaded GPML files by pathway id and revision, a revision
+ * never changes so a cached file never has to be downloaded again
+ *
+ * files are written to a temporary name first, so several threads
+ * can ask for the same pathway at the same time
+ *
+ * the directory is kept between sessions, {@link #prune} removes the
+ * least recently used files, a cache hit updates the modification time
+ * @author mkutmon
+ */
+public class GpmlCache {
+
+	private static final long MAX_BYTES = 256L * 1024 * 1024;
+
+	private IWPQueries wpQueries;
+	private File dir;
+
+	public GpmlCache(IWPQueries wpQueries, File dir) {
+		this.wpQueries = wpQueries;
+		this.dir = dir;
+	}
+
+	/**
+	 * local GPML file of a pathway revision, downloads the
+	 * pathway if it is not in the cache yet
+	 */
+	public File getFile(String id, String revision) throws RemoteException, ConverterException, FailedConnectionException {
+		File cached = new File(dir, id + ".r" + revision + ".gpml");
+		if(!cached.exists()) {
+			dir.mkdirs();
+			WSPathway wsp = wpQueries.getPathway(id, Integer.parseInt(revision), null);
+			PathwayModel pathway = WikiPathwaysClient.toPathway(wsp);
+			File tmp = new File(dir, cached.getName() + "." + Thread.currentThread().getId() + ".tmp");
+			pathway.writeToXml(tmp, true);
+			if(!tmp.renameTo(cached)) {
+				tmp.delete();
+			}
+		} else {
+			cached.setLastModified(System.currentTimeMillis());
+		}
+		return cached;
+	}
+
+	/**
+	 * removes the least recently used files above 256 MB
+	 */
+	public void prune() {
+		FileUtils.pruneDirectory(dir, MAX_BYTES);
+	}
+
+	/**
+	 * reads a pathway revision from the cache
+	 */
+	public PathwayModel getPathway(String id, String revision) throws RemoteException, ConverterException, FailedConnectionException {
+		PathwayModel pathway = new PathwayModel();
+		pathway.readFromXml(getFile(id, revision), false);
+		return pathway;
+	}
+
+	//////////////////////////////////////
+	// SETTERS & GETTERS
+	//////////////////////////////////////
+
+	public File getDir() {
+		return dir;
+	}
+}
@@ -0,0 +1,211 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.impl;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.imageio.ImageIO;
+
+import org.pathvisio.core.model.ImageExporter;
+import org.pathvisio.core.model.RasterImageExporter;
+import org.pathvisio.core.util.ProgressKeeper;
+import org.pathvisio.libgpml.model.PathwayModel;
+import org.pathvisio.wikipathways.webservice.WSPathwayInfo;
+import org.pathvisio.wpclient.IWPQueries;
+
+/**
+ * exports a list of pathways into one zip file with a GPML file
+ * and/or a PNG image per pathway and a manifest
+ *
+ * the pathways are downloaded and rendered on a bounded number of
+ * threads, the GPML files are kept in the {@link GpmlCache} by revision
+ * so a pathway is only downloaded again when it has changed, the
+ * entries are written to the zip as soon as a pathway is done
+ * @author mkutmon
+ */
+public class PathwayBatchExporter {
+
+	public static final int DEFAULT_CONCURRENCY = 4;
+
+	private IWPQueries wpQueries;
+	private GpmlCache gpmlCache;
+	private int concurrency = DEFAULT_CONCURRENCY;
+	private boolean gpml = true;
+	private boolean png = true;
+
+	public PathwayBatchExporter(IWPQueries wpQueries, GpmlCache gpmlCache) {
+		this.wpQueries = wpQueries;
+		this.gpmlCache = gpmlCache;
+	}
+
+	/**
+	 * exports the pathways, returns the number of pathways that could
+	 * be exported, failures are listed in the manifest
+	 */
+	public int export(List<String> ids, File zipFile, final ProgressKeeper pk) throws IOException, InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, concurrency), new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "wpclient-export");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		CompletionService<Export> completion = new ExecutorCompletionService<Export>(executor);
+		for(final String id : ids) {
+			completion.submit(new Callable<Export>() {
+				public Export call() {
+					return export(id, pk);
+				}
+			});
+		}
+
+		List<Export> manifest = new ArrayList<Export>();
+		int exported = 0;
+		ZipOutputStream out = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(zipFile)));
+		try {
+			if(pk != null) pk.setTaskName("Exporting " + ids.size() + " pathways");
+			for(int i = 0; i < ids.size(); i++) {
+				if(pk != null && pk.isCancelled()) {
+					break;
+				}
+				Export export;
+				try {
+					export = completion.take().get();
+				} catch (ExecutionException e) {
+					throw new IOException(e.getCause());
+				}
+				for(Map.Entry<String, byte[]> entry : export.files.entrySet()) {
+					out.putNextEntry(new ZipEntry(entry.getKey()));
+					out.write(entry.getValue());
+					out.closeEntry();
+				}
+				// the content is in the zip, only the manifest line is kept
+				export.files.clear();
+				manifest.add(export);
+				if(export.error == null) {
+					exported++;
+				}
+				if(pk != null) pk.setProgress((i + 1) * 100 / ids.size());
+			}
+			out.putNextEntry(new ZipEntry("manifest.txt"));
+			out.write(getManifest(manifest).getBytes("UTF-8"));
+			out.closeEntry();
+		} finally {
+			executor.shutdownNow();
+			out.close();
+		}
+		return exported;
+	}
+
+	private Export export(String id, ProgressKeeper pk) {
+		Export export = new Export(id);
+		if(pk != null && pk.isCancelled()) {
+			export.error = "cancelled";
+			return export;
+		}
+		try {
+			WSPathwayInfo info = wpQueries.getPathwayInfo(id, null);
+			export.revision = info.getRevision();
+			export.name = info.getName();
+			export.species = info.getSpecies();
+
+			File cached = gpmlCache.getFile(id, info.getRevision());
+			if(gpml) {
+				export.files.put(id + ".gpml", Files.readAllBytes(cached.toPath()));
+			}
+			if(png) {
+				PathwayModel pathway = new PathwayModel();
+				pathway.readFromXml(cached, false);
+				// rendered without a window, no need for the event dispatch thread
+				ByteArrayOutputStream image = new ByteArrayOutputStream();
+				ImageIO.write(new RasterImageExporter(ImageExporter.TYPE_PNG).exportAsImage(pathway), "png", image);
+				export.files.put(id + ".png", image.toByteArray());
+			}
+		} catch (Exception e) {
+			export.files.clear();
+			export.error = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+		}
+		return export;
+	}
+
+	private String getManifest(List<Export> exports) {
+		StringBuilder builder = new StringBuilder("id\trevision\tname\tspecies\tstatus\n");
+		for(Export e : exports) {
+			builder.append(e.id).append('\t').append(clean(e.revision)).append('\t').append(clean(e.name))
+				.append('\t').append(clean(e.species)).append('\t')
+				.append(e.error == null ? "exported" : "failed: " + clean(e.error)).append('\n');
+		}
+		return builder.toString();
+	}
+
+	private String clean(String value) {
+		return value == null ? "" : value.replaceAll("[\\t\\r\\n]", " ");
+	}
+
+	//////////////////////////////////////
+	// SETTERS & GETTERS
+	//////////////////////////////////////
+
+	/**
+	 * maximum number of pathways downloaded and rendered at the same time
+	 */
+	public void setConcurrency(int concurrency) {
+		this.concurrency = concurrency;
+	}
+
+	public void setGpml(boolean gpml) {
+		this.gpml = gpml;
+	}
+
+	public void setPng(boolean png) {
+		this.png = png;
+	}
+
+	/**
+	 * files and manifest line of one pathway
+	 */
+	private static class Export {
+		private String id;
+		private String revision;
+		private String name;
+		private String species;
+		private String error;
+		private Map<String, byte[]> files = new LinkedHashMap<String, byte[]>();
+
+		private Export(String id) {
+			this.id = id;
+		}
+	}
+}
@@ -0,0 +1,84 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.impl;
+
+import java.io.File;
+
+/**
+ * a pathway downloaded from WikiPathways, remembers the
+ * revision it is based on so every open document can be
+ * checked and updated independently
+ * @author mkutmon
+ */
+public class PathwayDocument {
+
+	private String id;
+	private String revision;
+	private String name;
+	private String species;
+	private File file;
+
+	public PathwayDocument(String id, String revision, File file) {
+		this.id = id;
+		this.revision = revision;
+		this.file = file;
+	}
+
+	@Override
+	public String toString() {
+		return id + " " + (name == null ? "" : name) + " (revision " + revision + ")";
+	}
+
+	//////////////////////////////////////
+	// SETTERS & GETTERS
+	//////////////////////////////////////
+
+	public String getId() {
+		return id;
+	}
+
+	public String getRevision() {
+		return revision;
+	}
+
+	public void setRevision(String revision) {
+		this.revision = revision;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public String getSpecies() {
+		return species;
+	}
+
+	public void setSpecies(String species) {
+		this.species = species;
+	}
+
+	/**
+	 * local GPML file the document is opened from
+	 */
+	public File getFile() {
+		return file;
+	}
+}
@@ -0,0 +1,83 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * extra information about a pathway that is shown in
+ * the result tables once it has been loaded
+ * @author mkutmon
+ */
+public class PathwayMetadata {
+
+	private String id;
+	private String revision = "";
+	private String lastModified = "";
+	private String author = "";
+	private List<String> tags = new ArrayList<String>();
+
+	public PathwayMetadata(String id) {
+		this.id = id;
+	}
+
+	//////////////////////////////////////
+	// SETTERS & GETTERS
+	//////////////////////////////////////
+
+	public String getId() {
+		return id;
+	}
+
+	public String getRevision() {
+		return revision;
+	}
+
+	public void setRevision(String revision) {
+		this.revision = revision;
+	}
+
+	/**
+	 * date of the last edit as yyyy-MM-dd
+	 */
+	public String getLastModified() {
+		return lastModified;
+	}
+
+	public void setLastModified(String lastModified) {
+		this.lastModified = lastModified;
+	}
+
+	/**
+	 * user of the last edit
+	 */
+	public String getAuthor() {
+		return author;
+	}
+
+	public void setAuthor(String author) {
+		this.author = author;
+	}
+
+	/**
+	 * display names of the curation tags
+	 */
+	public List<String> getTags() {
+		return tags;
+	}
+}
@@ -0,0 +1,325 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import javax.swing.SwingUtilities;
+
+import org.pathvisio.libgpml.debug.Logger;
+import org.pathvisio.wikipathways.webservice.WSCurationTag;
+import org.pathvisio.wikipathways.webservice.WSHistoryRow;
+import org.pathvisio.wikipathways.webservice.WSPathwayHistory;
+import org.pathvisio.wpclient.IWPQueries;
+import org.pathvisio.wpclient.store.LocalStore;
+
+/**
+ * loads the {@link PathwayMetadata} of pathways in batches and
+ * keeps it for the session
+ *
+ * the curation tags of all pathways are retrieved once with one call
+ * per tag name, the history is retrieved per pathway (the webservice
+ * has no call for several pathways) on a few threads, so a batch
+ * should only contain the pathways the user is looking at
+ *
+ * failed requests are not cached, a pathway whose history could not be
+ * loaded is asked for again after a minute, the curation tags are loaded
+ * again after a minute until every tag name has been loaded once
+ * @author mkutmon
+ */
+public class PathwayMetadataCache {
+
+	// curation tags and collections shown in the tag column
+	public static final String[] TAG_NAMES = new String[] {
+		"Curation:AnalysisCollection", "Curation:FeaturedPathway", "Curation:Reactome_Approved",
+		"Curation:WormBase_Approved", "Curation:CIRM_Related", "Curation:Wikipedia", "Curation:OpenAccess",
+		"Curation:GenMAPP_Approved", "Curation:MissingXRef", "Curation:NoInteractions",
+		"Curation:UnderConstruction", "Curation:Stub", "Curation:NeedsWork",
+		"Curation:MissingDescription", "Curation:NeedsReference"
+	};
+
+	private static final int THREADS = 4;
+	private static final long RETRY_DELAY = 60 * 1000L;
+
+	/**
+	 * notified on the event dispatch thread when a batch is loaded
+	 */
+	public interface Listener {
+		public void metadataLoaded(Collection<String> ids);
+	}
+
+	private IWPQueries wpQueries;
+	private LocalStore localStore;
+	private Map<String, PathwayMetadata> cache = new ConcurrentHashMap<String, PathwayMetadata>();
+	private Set<String> pending = ConcurrentHashMap.newKeySet();
+	// time until which a pathway with a failed history is not asked for again
+	private Map<String, Long> failed = new ConcurrentHashMap<String, Long>();
+	// null until all tag names have been loaded
+	private Map<String, List<String>> tags;
+	private Map<String, Set<String>> tagMembers;
+	// tags of the last attempt if a tag name failed, used until tagsRetry
+	private Map<String, List<String>> partialTags;
+	private Map<String, Set<String>> partialMembers;
+	private long tagsRetry;
+	// cached pathways that only have the tags of a partial attempt
+	private Set<String> incomplete = ConcurrentHashMap.newKeySet();
+
+	// batches one after the other, the pathways of a batch in parallel
+	private ExecutorService batches = Executors.newSingleThreadExecutor(new Factory());
+	private ExecutorService workers = Executors.newFixedThreadPool(THREADS, new Factory());
+
+	public PathwayMetadataCache(IWPQueries wpQueries, LocalStore localStore) {
+		this.wpQueries = wpQueries;
+		this.localStore = localStore;
+	}
+
+	/**
+	 * metadata of a pathway, null if it has not been loaded yet
+	 */
+	public PathwayMetadata get(String id) {
+		return cache.get(id);
+	}
+
+	/**
+	 * loads the metadata of the pathways that are neither loaded
+	 * nor requested yet nor failed recently as one batch in the background
+	 */
+	public void request(Collection<String> ids, final Listener listener) {
+		final List<String> batch = new ArrayList<String>();
+		for(String id : ids) {
+			if(!cache.containsKey(id) && !isFailed(id) && pending.add(id)) {
+				batch.add(id);
+			}
+		}
+		if(batch.isEmpty()) {
+			return;
+		}
+		batches.execute(new Runnable() {
+			public void run() {
+				load(batch);
+				SwingUtilities.invokeLater(new Runnable() {
+					public void run() {
+						listener.metadataLoaded(batch);
+					}
+				});
+			}
+		});
+	}
+
+	public void dispose() {
+		batches.shutdownNow();
+		workers.shutdownNow();
+	}
+
+	private boolean isFailed(String id) {
+		Long until = failed.get(id);
+		if(until == null) {
+			return false;
+		}
+		if(until < System.currentTimeMillis()) {
+			failed.remove(id);
+			return false;
+		}
+		return true;
+	}
+
+	private void load(List<String> batch) {
+		Map<String, List<String>> tags = getTags();
+		boolean complete = hasAllTags();
+		List<Future<PathwayMetadata>> futures = new ArrayList<Future<PathwayMetadata>>();
+		for(final String id : batch) {
+			futures.add(workers.submit(new Callable<PathwayMetadata>() {
+				public PathwayMetadata call() throws Exception {
+					return loadHistory(id);
+				}
+			}));
+		}
+		for(int i = 0; i < batch.size(); i++) {
+			String id = batch.get(i);
+			PathwayMetadata metadata;
+			try {
+				metadata = futures.get(i).get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (ExecutionException e) {
+				Logger.log.error("Could not load history of " + id, e.getCause());
+				failed.put(id, System.currentTimeMillis() + RETRY_DELAY);
+				pending.remove(id);
+				continue;
+			}
+			if(tags.containsKey(id)) {
+				metadata.getTags().addAll(tags.get(id));
+			}
+			if(!complete) {
+				incomplete.add(id);
+			}
+			cache.put(id, metadata);
+			pending.remove(id);
+		}
+		// the tags may have been completed while the batch was loading
+		if(!complete && hasAllTags()) {
+			completeTags(getTags());
+		}
+	}
+
+	/**
+	 * replaces the cached metadata that was loaded with partial
+	 * tags once all tags are available
+	 */
+	private void completeTags(Map<String, List<String>> tags) {
+		for(String id : new ArrayList<String>(incomplete)) {
+			PathwayMetadata old = cache.get(id);
+			if(old != null) {
+				PathwayMetadata metadata = new PathwayMetadata(id);
+				metadata.setRevision(old.getRevision());
+				metadata.setLastModified(old.getLastModified());
+				metadata.setAuthor(old.getAuthor());
+				if(tags.containsKey(id)) {
+					metadata.getTags().addAll(tags.get(id));
+				}
+				cache.put(id, metadata);
+			}
+			incomplete.remove(id);
+		}
+	}
+
+	private PathwayMetadata loadHistory(String id) throws Exception {
+		PathwayMetadata metadata = new PathwayMetadata(id);
+		WSPathwayHistory history = wpQueries.getPathwayHistory(id, null);
+		WSHistoryRow last = null;
+		if(history.getHistory() != null) {
+			for(WSHistoryRow row : history.getHistory()) {
+				// timestamps are yyyyMMddHHmmss
+				if(last == null || String.valueOf(row.getTimestamp()).compareTo(String.valueOf(last.getTimestamp())) > 0) {
+					last = row;
+				}
+			}
+		}
+		if(last != null) {
+			metadata.setLastModified(formatTimestamp(last.getTimestamp()));
+			metadata.setAuthor(last.getUser() == null ? "" : last.getUser());
+		}
+		// the imported revision can be older than the last edit shown next to it
+		if(history.getRevision() != null && !history.getRevision().isEmpty()) {
+			metadata.setRevision(history.getRevision());
+		} else {
+			metadata.setRevision(getLocalRevision(id));
+		}
+		return metadata;
+	}
+
+	/**
+	 * ids of the pathways with each tag of {@link #TAG_NAMES}, tags that
+	 * could not be loaded are missing, loaded on first use so call
+	 * it outside of the event dispatch thread
+	 */
+	public synchronized Map<String, Set<String>> getTagMembers() {
+		getTags();
+		return tags != null ? tagMembers : partialMembers;
+	}
+
+	/**
+	 * true if all tag names have been loaded, otherwise
+	 * {@link #getTagMembers} is incomplete
+	 */
+	public synchronized boolean hasAllTags() {
+		return tags != null;
+	}
+
+	/**
+	 * pathway id to tag display names, loaded on first use and
+	 * again after a minute if a tag name could not be loaded
+	 */
+	private synchronized Map<String, List<String>> getTags() {
+		if(tags != null) {
+			return tags;
+		}
+		if(partialTags == null || tagsRetry < System.currentTimeMillis()) {
+			boolean complete = true;
+			Map<String, List<String>> map = new HashMap<String, List<String>>();
+			Map<String, Set<String>> members = new HashMap<String, Set<String>>();
+			for(String name : TAG_NAMES) {
+				try {
+					Set<String> ids = new HashSet<String>();
+					for(WSCurationTag tag : wpQueries.getCurationTagsByName(name, null)) {
+						if(tag.getPathway() == null) {
+							continue;
+						}
+						ids.add(tag.getPathway().getId());
+						List<String> list = map.get(tag.getPathway().getId());
+						if(list == null) {
+							list = new ArrayList<String>();
+							map.put(tag.getPathway().getId(), list);
+						}
+						list.add(tag.getDisplayName() == null ? name.replace("Curation:", "") : tag.getDisplayName());
+					}
+					members.put(name, ids);
+				} catch (Exception e) {
+					Logger.log.error("Could not load curation tag " + name, e);
+					complete = false;
+				}
+			}
+			if(complete) {
+				tags = map;
+				tagMembers = members;
+				partialTags = null;
+				partialMembers = null;
+				completeTags(map);
+				return tags;
+			}
+			partialTags = map;
+			partialMembers = members;
+			tagsRetry = System.currentTimeMillis() + RETRY_DELAY;
+		}
+		return partialTags;
+	}
+
+	private String getLocalRevision(String id) {
+		int slot = localStore.getCatalog().getSlot(id);
+		String revision = slot == -1 ? null : localStore.getCatalog().getRevision(slot);
+		return revision == null ? "" : revision;
+	}
+
+	private static String formatTimestamp(String timestamp) {
+		if(timestamp == null || timestamp.length() < 8) {
+			return timestamp == null ? "" : timestamp;
+		}
+		return timestamp.substring(0, 4) + "-" + timestamp.substring(4, 6) + "-" + timestamp.substring(6, 8);
+	}
+
+	private static class Factory implements ThreadFactory {
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "wpclient-metadata");
+			t.setDaemon(true);
+			return t;
+		}
+	}
+}
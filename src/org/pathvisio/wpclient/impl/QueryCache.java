@@ -0,0 +1,334 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.bridgedb.Xref;
+import org.pathvisio.libgpml.debug.Logger;
+import org.pathvisio.wikipathways.webservice.WSIndexField;
+import org.pathvisio.wikipathways.webservice.WSSearchResult;
+
+/**
+ * cache for search results of the webservice, used by {@link WPQueries}
+ * so it is shared by all panels and other plugins using the API
+ * 
+ * entries expire after a time to live that is set per query type, the
+ * least recently used entries are removed when the estimated size exceeds
+ * the memory budget, the cache can be saved to a file between sessions
+ * @author mkutmon
+ */
+public class QueryCache {
+
+	public static final long TEXT_TTL = 60 * 60 * 1000L;
+	public static final long XREF_TTL = 6 * 60 * 60 * 1000L;
+	public static final long LITERATURE_TTL = 24 * 60 * 60 * 1000L;
+
+	private static final int FORMAT_VERSION = 1;
+	private static final long DEFAULT_BUDGET = 8 * 1024 * 1024;
+
+	private File file;
+	private long budget;
+	private long size;
+	private boolean loaded;
+	private LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+	/**
+	 * in-memory cache with the default budget of 8 MB
+	 */
+	public QueryCache() {
+		this(null, DEFAULT_BUDGET);
+	}
+
+	/**
+	 * @param file file the cache is loaded from and saved to, can be null
+	 * @param budget estimated memory in bytes
+	 */
+	public QueryCache(File file, long budget) {
+		this.file = file;
+		this.budget = budget;
+	}
+
+	/**
+	 * returns the cached results or null if there is no valid entry
+	 */
+	public synchronized WSSearchResult[] get(String key) {
+		load();
+		Entry entry = entries.get(key);
+		if(entry == null) {
+			return null;
+		}
+		if(entry.expires < System.currentTimeMillis()) {
+			remove(key);
+			return null;
+		}
+		return entry.results.clone();
+	}
+
+	public synchronized void put(String key, WSSearchResult[] results, long ttl) {
+		if(results == null) {
+			return;
+		}
+		load();
+		remove(key);
+		Entry entry = new Entry(results.clone(), System.currentTimeMillis() + ttl, estimateSize(key, results));
+		entries.put(key, entry);
+		size += entry.size;
+		// the map iterates from least to most recently used
+		Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+		while(size > budget && it.hasNext()) {
+			size -= it.next().getValue().size;
+			it.remove();
+		}
+	}
+
+	public synchronized void clear() {
+		entries.clear();
+		size = 0;
+	}
+
+	private void remove(String key) {
+		Entry old = entries.remove(key);
+		if(old != null) {
+			size -= old.size;
+		}
+	}
+
+	/**
+	 * normalizes a text query: lower case, single spaces, the search
+	 * operators AND, OR and NOT keep their case because they are
+	 * case sensitive on the server
+	 */
+	public static String normalize(String text) {
+		StringBuilder builder = new StringBuilder();
+		for(String word : text.trim().split("\\s+")) {
+			if(builder.length() > 0) {
+				builder.append(' ');
+			}
+			if(word.equals("AND") || word.equals("OR") || word.equals("NOT")) {
+				builder.append(word);
+			} else {
+				builder.append(word.toLowerCase());
+			}
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * normalizes a list of xrefs, the order does not matter
+	 */
+	public static String normalize(Xref[] xrefs) {
+		String[] keys = new String[xrefs.length];
+		for(int i = 0; i < xrefs.length; i++) {
+			String code = xrefs[i].getDataSource() == null ? "" : xrefs[i].getDataSource().getSystemCode();
+			keys[i] = code + ":" + xrefs[i].getId().trim();
+		}
+		Arrays.sort(keys);
+		StringBuilder builder = new StringBuilder();
+		for(int i = 0; i < keys.length; i++) {
+			// duplicates do not change the result
+			if(i == 0 || !keys[i].equals(keys[i - 1])) {
+				builder.append(i == 0 ? "" : ",").append(keys[i]);
+			}
+		}
+		return builder.toString();
+	}
+
+	private long estimateSize(String key, WSSearchResult[] results) {
+		long bytes = 64 + 2 * key.length();
+		for(WSSearchResult r : results) {
+			bytes += 64 + 2 * (length(r.getId()) + length(r.getName()) + length(r.getSpecies())
+					+ length(r.getRevision()) + length(r.getUrl()));
+			if(r.getFields() != null) {
+				for(WSIndexField field : r.getFields()) {
+					bytes += 32 + 2 * length(field.getName());
+					if(field.getValues() != null) {
+						for(String value : field.getValues()) {
+							bytes += 16 + 2 * length(value);
+						}
+					}
+				}
+			}
+		}
+		return bytes;
+	}
+
+	private int length(String s) {
+		return s == null ? 0 : s.length();
+	}
+
+	/**
+	 * reads the entries of an earlier session the first time
+	 * the cache is used
+	 */
+	private void load() {
+		if(loaded) {
+			return;
+		}
+		loaded = true;
+		if(file == null || !file.exists()) {
+			return;
+		}
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))));
+			try {
+				if(in.readInt() != FORMAT_VERSION) {
+					return;
+				}
+				long now = System.currentTimeMillis();
+				int count = in.readInt();
+				for(int i = 0; i < count; i++) {
+					String key = in.readUTF();
+					long expires = in.readLong();
+					WSSearchResult[] results = new WSSearchResult[in.readInt()];
+					for(int j = 0; j < results.length; j++) {
+						results[j] = readResult(in);
+					}
+					if(expires > now) {
+						put(key, results, expires - now);
+					}
+				}
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			Logger.log.error("Could not load query cache", e);
+		}
+	}
+
+	/**
+	 * writes the valid entries to the file
+	 */
+	public synchronized void save() throws IOException {
+		if(file == null) {
+			return;
+		}
+		load();
+		file.getParentFile().mkdirs();
+		File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(tmp))));
+		try {
+			long now = System.currentTimeMillis();
+			int count = 0;
+			for(Entry entry : entries.values()) {
+				if(entry.expires > now) {
+					count++;
+				}
+			}
+			out.writeInt(FORMAT_VERSION);
+			out.writeInt(count);
+			// least recently used first, so the order survives the reload
+			for(Map.Entry<String, Entry> e : entries.entrySet()) {
+				if(e.getValue().expires > now) {
+					out.writeUTF(e.getKey());
+					out.writeLong(e.getValue().expires);
+					out.writeInt(e.getValue().results.length);
+					for(WSSearchResult r : e.getValue().results) {
+						writeResult(out, r);
+					}
+				}
+			}
+		} finally {
+			out.close();
+		}
+		if(file.exists()) {
+			file.delete();
+		}
+		tmp.renameTo(file);
+	}
+
+	private WSSearchResult readResult(DataInputStream in) throws IOException {
+		WSSearchResult r = new WSSearchResult();
+		r.setId(readString(in));
+		r.setName(readString(in));
+		r.setSpecies(readString(in));
+		r.setRevision(readString(in));
+		r.setUrl(readString(in));
+		r.setScore(in.readDouble());
+		int fieldCount = in.readInt();
+		if(fieldCount >= 0) {
+			WSIndexField[] fields = new WSIndexField[fieldCount];
+			for(int i = 0; i < fieldCount; i++) {
+				String name = readString(in);
+				String[] values = new String[in.readInt()];
+				for(int j = 0; j < values.length; j++) {
+					values[j] = readString(in);
+				}
+				fields[i] = new WSIndexField(name, values);
+			}
+			r.setFields(fields);
+		}
+		return r;
+	}
+
+	private void writeResult(DataOutputStream out, WSSearchResult r) throws IOException {
+		writeString(out, r.getId());
+		writeString(out, r.getName());
+		writeString(out, r.getSpecies());
+		writeString(out, r.getRevision());
+		writeString(out, r.getUrl());
+		out.writeDouble(r.getScore());
+		WSIndexField[] fields = r.getFields();
+		out.writeInt(fields == null ? -1 : fields.length);
+		if(fields != null) {
+			for(WSIndexField field : fields) {
+				writeString(out, field.getName());
+				String[] values = field.getValues() == null ? new String[0] : field.getValues();
+				out.writeInt(values.length);
+				for(String value : values) {
+					writeString(out, value);
+				}
+			}
+		}
+	}
+
+	private String readString(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	private void writeString(DataOutputStream out, String s) throws IOException {
+		out.writeBoolean(s != null);
+		if(s != null) {
+			out.writeUTF(s);
+		}
+	}
+
+	private static class Entry {
+		private WSSearchResult[] results;
+		private long expires;
+		private long size;
+
+		private Entry(WSSearchResult[] results, long expires, long size) {
+			this.results = results;
+			this.expires = expires;
+			this.size = size;
+		}
+	}
+}
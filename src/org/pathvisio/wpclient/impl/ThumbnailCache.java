@@ -0,0 +1,349 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.impl;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+import javax.swing.SwingUtilities;
+
+import org.pathvisio.core.view.model.VPathwayModel;
+import org.pathvisio.libgpml.debug.Logger;
+import org.pathvisio.libgpml.model.PathwayModel;
+import org.pathvisio.wpclient.FailedConnectionException;
+import org.pathvisio.wpclient.IWPQueries;
+import org.pathvisio.wpclient.store.LocalStore;
+import org.pathvisio.wpclient.utils.FileUtils;
+
+/**
+ * renders preview images of pathways on a small pool of background
+ * threads, the previews are kept on disk by id and revision and the
+ * thumbnails of the most recently used pathways in memory
+ *
+ * the newest request is rendered first and requests for rows that are
+ * no longer visible can be dropped with {@link #retain}, so scrolling
+ * through a long table only renders what the user actually looks at
+ *
+ * the preview directory is kept between sessions, {@link #prune}
+ * removes the least recently used previews
+ * @author mkutmon
+ */
+public class ThumbnailCache {
+
+	public static final int THUMBNAIL_SIZE = 64;
+	public static final int PREVIEW_SIZE = 320;
+
+	private static final int MAX_THUMBNAILS = 1000;
+	private static final long MAX_DISK_BYTES = 64L * 1024 * 1024;
+	private static final int THREADS = 2;
+	private static final long RETRY_DELAY = 60 * 1000L;
+
+	/**
+	 * notified on the event dispatch thread when an image is ready
+	 */
+	public interface Listener {
+		public void imageReady(String id, BufferedImage image);
+	}
+
+	private IWPQueries wpQueries;
+	private LocalStore localStore;
+	private GpmlCache gpmlCache;
+	private File dir;
+
+	// access ordered, the least recently shown thumbnail is dropped first
+	private Map<String, BufferedImage> thumbnails = new LinkedHashMap<String, BufferedImage>(16, 0.75f, true) {
+		protected boolean removeEldestEntry(Map.Entry<String, BufferedImage> eldest) {
+			return size() > MAX_THUMBNAILS;
+		}
+	};
+	// time until which a pathway is not tried again, pathways that can not
+	// be converted or drawn are never retried, network errors after a minute
+	private Map<String, Long> failed = new HashMap<String, Long>();
+	private Map<String, Request> pending = new HashMap<String, Request>();
+	private LinkedList<Request> queue = new LinkedList<Request>();
+	private List<Thread> workers = new ArrayList<Thread>();
+
+	public ThumbnailCache(IWPQueries wpQueries, LocalStore localStore, GpmlCache gpmlCache, File dir) {
+		this.wpQueries = wpQueries;
+		this.localStore = localStore;
+		this.gpmlCache = gpmlCache;
+		this.dir = dir;
+	}
+
+	/**
+	 * thumbnail from memory, null if it has not been rendered yet
+	 */
+	public synchronized BufferedImage getThumbnail(String id) {
+		return thumbnails.get(id);
+	}
+
+	/**
+	 * renders the thumbnail in the background unless it is already
+	 * in memory or failed recently
+	 */
+	public synchronized void requestThumbnail(String id, Listener listener) {
+		if(!thumbnails.containsKey(id) && !isFailed(id)) {
+			request(id, false, listener);
+		}
+	}
+
+	/**
+	 * loads or renders the preview in the background
+	 */
+	public synchronized void requestPreview(String id, Listener listener) {
+		if(!isFailed(id)) {
+			request(id, true, listener);
+		}
+	}
+
+	/**
+	 * drops the thumbnail requests of a listener except for the given ids,
+	 * a request is cancelled when no other listener is waiting for it
+	 */
+	public synchronized void retain(Listener listener, Collection<String> ids) {
+		Iterator<Request> it = queue.iterator();
+		while(it.hasNext()) {
+			Request r = it.next();
+			if(!r.preview && !ids.contains(r.id)) {
+				r.listeners.remove(listener);
+				if(r.listeners.isEmpty()) {
+					it.remove();
+					pending.remove(r.getKey());
+				}
+			}
+		}
+	}
+
+	/**
+	 * removes the least recently used previews above 64 MB
+	 */
+	public void prune() {
+		FileUtils.pruneDirectory(dir, MAX_DISK_BYTES);
+	}
+
+	/**
+	 * stops the render threads and clears the memory cache
+	 */
+	public synchronized void dispose() {
+		for(Thread t : workers) {
+			t.interrupt();
+		}
+		workers.clear();
+		queue.clear();
+		pending.clear();
+		thumbnails.clear();
+	}
+
+	private boolean isFailed(String id) {
+		Long until = failed.get(id);
+		if(until == null) {
+			return false;
+		}
+		if(until < System.currentTimeMillis()) {
+			failed.remove(id);
+			return false;
+		}
+		return true;
+	}
+
+	private void request(String id, boolean preview, Listener listener) {
+		Request r = pending.get(Request.getKey(id, preview));
+		if(r == null) {
+			r = new Request(id, preview);
+			pending.put(r.getKey(), r);
+		} else {
+			queue.remove(r);
+		}
+		if(!r.listeners.contains(listener)) {
+			r.listeners.add(listener);
+		}
+		// newest first, that is the row the user is looking at
+		queue.addFirst(r);
+		if(workers.isEmpty()) {
+			startWorkers();
+		}
+		notifyAll();
+	}
+
+	private void startWorkers() {
+		for(int i = 0; i < THREADS; i++) {
+			Thread t = new Thread(new Runnable() {
+				public void run() {
+					try {
+						while(!Thread.currentThread().isInterrupted()) {
+							process(take());
+						}
+					} catch (InterruptedException e) {
+						// disposed
+					}
+				}
+			}, "wpclient-thumbnail");
+			t.setDaemon(true);
+			t.setPriority(Thread.MIN_PRIORITY);
+			workers.add(t);
+			t.start();
+		}
+	}
+
+	private synchronized Request take() throws InterruptedException {
+		while(queue.isEmpty()) {
+			wait();
+		}
+		return queue.removeFirst();
+	}
+
+	private void process(Request r) {
+		BufferedImage image = null;
+		boolean recurring = false;
+		try {
+			BufferedImage preview = getPreview(r.id);
+			image = r.preview ? preview : scale(preview, THUMBNAIL_SIZE);
+		} catch (Exception e) {
+			recurring = !(e instanceof IOException || e instanceof FailedConnectionException);
+			Logger.log.error("Could not render preview of " + r.id, e);
+		}
+		final List<Listener> listeners;
+		synchronized(this) {
+			if(image == null) {
+				failed.put(r.id, recurring ? Long.MAX_VALUE : System.currentTimeMillis() + RETRY_DELAY);
+			} else if(!r.preview) {
+				thumbnails.put(r.id, image);
+			}
+			pending.remove(r.getKey());
+			listeners = new ArrayList<Listener>(r.listeners);
+		}
+		final String id = r.id;
+		final BufferedImage result = image;
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+				for(Listener l : listeners) {
+					l.imageReady(id, result);
+				}
+			}
+		});
+	}
+
+	/**
+	 * preview from the disk cache, rendered from the cached GPML
+	 * of the current revision when it is not there yet
+	 */
+	private BufferedImage getPreview(String id) throws Exception {
+		String revision = getRevision(id);
+		File file = new File(dir, id + ".r" + revision + ".png");
+		if(file.exists()) {
+			BufferedImage image = ImageIO.read(file);
+			if(image != null) {
+				file.setLastModified(System.currentTimeMillis());
+				return image;
+			}
+		}
+		BufferedImage image = render(gpmlCache.getPathway(id, revision), PREVIEW_SIZE);
+		dir.mkdirs();
+		File tmp = new File(dir, file.getName() + "." + Thread.currentThread().getId() + ".tmp");
+		ImageIO.write(image, "png", tmp);
+		if(!tmp.renameTo(file)) {
+			tmp.delete();
+		}
+		return image;
+	}
+
+	/**
+	 * revision from the local store, asks the webservice
+	 * for pathways that have not been imported
+	 */
+	private String getRevision(String id) throws Exception {
+		int slot = localStore.getCatalog().getSlot(id);
+		if(slot != -1 && localStore.getCatalog().getRevision(slot) != null
+				&& !localStore.getCatalog().getRevision(slot).isEmpty()) {
+			return localStore.getCatalog().getRevision(slot);
+		}
+		return wpQueries.getPathwayInfo(id, null).getRevision();
+	}
+
+	/**
+	 * draws the pathway directly at the target size, so the full
+	 * size image is never created
+	 */
+	private static BufferedImage render(PathwayModel pathway, int size) {
+		VPathwayModel vpy = new VPathwayModel(null);
+		try {
+			vpy.fromModel(pathway);
+			double scale = Math.min(1.0, Math.min((double) size / Math.max(1, vpy.getVWidth()),
+					(double) size / Math.max(1, vpy.getVHeight())));
+			int width = Math.max(1, (int) Math.ceil(vpy.getVWidth() * scale));
+			int height = Math.max(1, (int) Math.ceil(vpy.getVHeight() * scale));
+			BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+			Graphics2D g = image.createGraphics();
+			g.setColor(Color.WHITE);
+			g.fillRect(0, 0, width, height);
+			g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+			g.scale(scale, scale);
+			vpy.draw(g);
+			g.dispose();
+			return image;
+		} finally {
+			vpy.dispose();
+		}
+	}
+
+	private static BufferedImage scale(BufferedImage image, int size) {
+		double scale = Math.min(1.0, Math.min((double) size / image.getWidth(), (double) size / image.getHeight()));
+		int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+		int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+		BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = result.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		g.drawImage(image, 0, 0, width, height, null);
+		g.dispose();
+		return result;
+	}
+
+	/**
+	 * pending thumbnail or preview of one pathway
+	 */
+	private static class Request {
+		private String id;
+		private boolean preview;
+		private List<Listener> listeners = new ArrayList<Listener>();
+
+		private Request(String id, boolean preview) {
+			this.id = id;
+			this.preview = preview;
+		}
+
+		private String getKey() {
+			return getKey(id, preview);
+		}
+
+		private static String getKey(String id, boolean preview) {
+			return (preview ? "preview:" : "thumbnail:") + id;
+		}
+	}
+}
@@ -21,11 +21,16 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.rmi.RemoteException;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.bridgedb.DataSource;
+import org.bridgedb.IDMapper;
+import org.bridgedb.IDMapperException;
 import org.bridgedb.Xref;
 import org.bridgedb.bio.Organism;
 import org.pathvisio.libgpml.io.ConverterException;
@@ -34,11 +39,19 @@ import org.pathvisio.core.preferences.PreferenceManager;
 import org.pathvisio.core.util.ProgressKeeper;
 import org.pathvisio.wikipathways.webservice.WSCurationTag;
 import org.pathvisio.wikipathways.webservice.WSPathway;
+import org.pathvisio.wikipathways.webservice.WSPathwayHistory;
+import org.pathvisio.wikipathways.webservice.WSIndexField;
 import org.pathvisio.wikipathways.webservice.WSPathwayInfo;
 import org.pathvisio.wikipathways.webservice.WSSearchResult;
 import org.pathvisio.wpclient.FailedConnectionException;
 import org.pathvisio.wpclient.IWPQueries;
 import org.pathvisio.wpclient.preferences.URLPreference;
+import org.pathvisio.wpclient.store.InteractionGraph.Connection;
+import org.pathvisio.wpclient.store.LocalStore;
+import org.pathvisio.wpclient.store.PathwayCatalog;
+import org.pathvisio.wpclient.store.SimilarityIndex;
+import org.pathvisio.wpclient.store.SimilarityIndex.Similarity;
+import org.pathvisio.wpclient.store.XrefKeys;
 import org.wikipathways.client.WikiPathwaysClient;
 
 
@@ -52,8 +65,29 @@ import org.wikipathways.client.WikiPathwaysClient;
  */
 public class WPQueries implements IWPQueries {
 		
+	// pathways with a lower estimated Jaccard similarity are not listed
+	private static final double MIN_SIMILARITY = 0.1;
+	// xrefs per request of the xref search, expanded lists are split
+	private static final int XREF_CHUNK = 20;
+	
 	private WikiPathwaysClient wpClient; 
 	private String currentUrl;
+	private QueryCache queryCache;
+	private XrefMappingCache mappingCache;
+	private LocalStore localStore;
+	
+	public WPQueries() {
+		this(new QueryCache(), new XrefMappingCache(), null);
+	}
+	
+	/**
+	 * @param localStore store for the queries answered locally, can be null
+	 */
+	public WPQueries(QueryCache queryCache, XrefMappingCache mappingCache, LocalStore localStore) {
+		this.queryCache = queryCache;
+		this.mappingCache = mappingCache;
+		this.localStore = localStore;
+	}
 	
 	private WikiPathwaysClient getClient() throws FailedConnectionException {
 		if(wpClient == null || !currentUrl.equals(PreferenceManager.getCurrent().get(URLPreference.CONNECTION_URL))) {
@@ -67,6 +101,14 @@ public class WPQueries implements IWPQueries {
 		return wpClient;
 	}
 	
+	/**
+	 * key of a query in the cache, results of different
+	 * webservice URLs are kept apart
+	 */
+	private String cacheKey(String type, String query) {
+		return currentUrl + "|" + type + "|" + query;
+	}
+	
 	/**
 	 * retrieves all pathways from wikipathways
 	 */
@@ -163,14 +205,40 @@ public class WPQueries implements IWPQueries {
 		return new HashSet<WSCurationTag>(Arrays.asList(tags));
 	}
 
+	/**
+	 * retrieves all curation tags with a specific name
+	 */
+	@Override
+	public WSCurationTag[] getCurationTagsByName(String tagName, ProgressKeeper pk) throws RemoteException, FailedConnectionException {
+		WikiPathwaysClient client = getClient();
+		if(pk != null) pk.setTaskName("Retrieve curation tags");
+		if(pk != null) pk.report("Get pathways with curation tag: " + tagName);
+		return client.getCurationTagsByName(tagName);
+	}
+
+	/**
+	 * retrieves the history of a pathway since its creation
+	 */
+	@Override
+	public WSPathwayHistory getPathwayHistory(String pwId, ProgressKeeper pk) throws RemoteException, FailedConnectionException {
+		WikiPathwaysClient client = getClient();
+		if(pk != null) pk.setTaskName("Get history of pathway " + pwId + ".");
+		return client.getPathwayHistory(pwId, new Date(0));
+	}
+
 	/**
 	 * finds all pathways by a text query
 	 */
 	@Override
 	public WSSearchResult[] findByText(String text, ProgressKeeper pk) throws RemoteException, FailedConnectionException  {
 		WikiPathwaysClient client = getClient();
-		if(pk != null) pk.setTaskName("Search for \"" + text + "\".");
-		WSSearchResult [] result = client.findPathwaysByText(text);
+		String key = cacheKey("text", QueryCache.normalize(text));
+		WSSearchResult [] result = queryCache.get(key);
+		if(result == null) {
+			if(pk != null) pk.setTaskName("Search for \"" + text + "\".");
+			result = client.findPathwaysByText(text);
+			queryCache.put(key, result, QueryCache.TEXT_TTL);
+		}
 		return result;
 	}
 		
@@ -191,8 +259,13 @@ public class WPQueries implements IWPQueries {
 	@Override
 	public WSSearchResult[] findByTextInOrganism(String text, Organism organism, ProgressKeeper pk) throws RemoteException, FailedConnectionException {
 		WikiPathwaysClient client = getClient();
-		if(pk != null) pk.setTaskName("Search for \"" + text + "\" in " + organism.latinName() + " pathways.");
-		WSSearchResult [] result = client.findPathwaysByText(text, organism);
+		String key = cacheKey("text " + organism.latinName(), QueryCache.normalize(text));
+		WSSearchResult [] result = queryCache.get(key);
+		if(result == null) {
+			if(pk != null) pk.setTaskName("Search for \"" + text + "\" in " + organism.latinName() + " pathways.");
+			result = client.findPathwaysByText(text, organism);
+			queryCache.put(key, result, QueryCache.TEXT_TTL);
+		}
 		return result;
 	}
 	
@@ -202,8 +275,13 @@ public class WPQueries implements IWPQueries {
 	@Override
 	public WSSearchResult[] findByLiteratureReference(String reference, ProgressKeeper pk) throws RemoteException, FailedConnectionException {
 		WikiPathwaysClient client = getClient();
-		if(pk != null) pk.setTaskName("Search for literature reference \"" + reference + "\".");
-		WSSearchResult [] result = client.findPathwaysByLiterature(reference);
+		String key = cacheKey("literature", QueryCache.normalize(reference));
+		WSSearchResult [] result = queryCache.get(key);
+		if(result == null) {
+			if(pk != null) pk.setTaskName("Search for literature reference \"" + reference + "\".");
+			result = client.findPathwaysByLiterature(reference);
+			queryCache.put(key, result, QueryCache.LITERATURE_TTL);
+		}
 		return result;
 	}
 		
@@ -259,16 +337,52 @@ public class WPQueries implements IWPQueries {
 	}
 
 	/**
-	 * find pathways by a list of xrefs
+	 * find pathways by a list of xrefs, long lists (e.g. expanded
+	 * with {@link #mapXrefs}) are sent in chunks
 	 */
 	@Override
 	public WSSearchResult[] findByXref(Xref[] xrefs, ProgressKeeper pk) throws RemoteException, FailedConnectionException, ConverterException {
+		if(xrefs.length <= XREF_CHUNK) {
+			return findByXrefChunk(xrefs, pk);
+		}
+		// a pathway is listed once, with the first result returned for it
+		Map<String, WSSearchResult> results = new LinkedHashMap<String, WSSearchResult>();
+		for(int start = 0; start < xrefs.length; start += XREF_CHUNK) {
+			if(pk != null && pk.isCancelled()) {
+				break;
+			}
+			if(pk != null) pk.report("Search xrefs " + (start + 1) + " to " + Math.min(xrefs.length, start + XREF_CHUNK) + " of " + xrefs.length);
+			for(WSSearchResult result : findByXrefChunk(Arrays.copyOfRange(xrefs, start, Math.min(xrefs.length, start + XREF_CHUNK)), pk)) {
+				if(!results.containsKey(result.getId())) {
+					results.put(result.getId(), result);
+				}
+			}
+		}
+		return results.values().toArray(new WSSearchResult[results.size()]);
+	}
+
+	private WSSearchResult[] findByXrefChunk(Xref[] xrefs, ProgressKeeper pk) throws RemoteException, FailedConnectionException {
 		WikiPathwaysClient client = getClient();
-		if(pk != null) pk.setTaskName("Find pathways containing\nxrefs.");
-		WSSearchResult[] results = client.findPathwaysByXref(xrefs);
+		String key = cacheKey("xref", QueryCache.normalize(xrefs));
+		WSSearchResult[] results = queryCache.get(key);
+		if(results == null) {
+			if(pk != null) pk.setTaskName("Find pathways containing\nxrefs.");
+			results = client.findPathwaysByXref(xrefs);
+			queryCache.put(key, results, QueryCache.XREF_TTL);
+		}
 		return results;
 	}
 
+	/**
+	 * equivalent xrefs in all data sources, mapped in one batch
+	 * with the given mapper and cached between sessions
+	 */
+	@Override
+	public Map<Xref, Set<Xref>> mapXrefs(Xref[] xrefs, IDMapper mapper, ProgressKeeper pk) throws IDMapperException {
+		if(pk != null) pk.setTaskName("Map xrefs to equivalent identifiers.");
+		return mappingCache.map(Arrays.asList(xrefs), mapper);
+	}
+
 	/**
 	 * gets xref list for a pathway
 	 */
@@ -278,4 +392,80 @@ public class WPQueries implements IWPQueries {
 		if(pk != null) pk.setTaskName("Retrieve Xref List");
 		return client.getXrefList(pwId, ds);
 	}
+
+	/**
+	 * finds pathways with similar xrefs in the local store
+	 */
+	@Override
+	public WSSearchResult[] findRelatedPathways(String pwId, int max, ProgressKeeper pk) {
+		if(localStore == null) {
+			return new WSSearchResult[0];
+		}
+		if(pk != null) pk.setTaskName("Find pathways related to " + pwId + ".");
+		SimilarityIndex index = localStore.getSimilarityIndex();
+		int slot = localStore.getCatalog().getSlot(pwId);
+		return toSearchResults(index.findSimilar(slot, max, MIN_SIMILARITY));
+	}
+
+	/**
+	 * finds pathways with similar xrefs in the local store
+	 */
+	@Override
+	public WSSearchResult[] findRelatedPathways(Xref[] xrefs, int max, ProgressKeeper pk) {
+		if(localStore == null) {
+			return new WSSearchResult[0];
+		}
+		if(pk != null) pk.setTaskName("Find related pathways.");
+		Set<String> keys = new HashSet<String>();
+		for(Xref xref : xrefs) {
+			String key = XrefKeys.toKey(xref);
+			if(key != null) {
+				keys.add(key);
+			}
+		}
+		return toSearchResults(localStore.getSimilarityIndex().findSimilar(keys, max, MIN_SIMILARITY));
+	}
+
+	/**
+	 * finds pathways with an interaction path between two xrefs in the local store
+	 */
+	@Override
+	public WSSearchResult[] findConnectingPathways(Xref from, Xref to, int maxSteps, ProgressKeeper pk) {
+		String fromKey = XrefKeys.toKey(from);
+		String toKey = XrefKeys.toKey(to);
+		if(localStore == null || fromKey == null || toKey == null) {
+			return new WSSearchResult[0];
+		}
+		if(pk != null) pk.setTaskName("Find pathways connecting " + from + " to " + to + ".");
+		PathwayCatalog catalog = localStore.getCatalog();
+		List<Connection> connections = localStore.getInteractionGraph().findConnections(fromKey, toKey, maxSteps);
+		WSSearchResult[] results = new WSSearchResult[connections.size()];
+		for(int i = 0; i < results.length; i++) {
+			Connection c = connections.get(i);
+			results[i] = new WSSearchResult();
+			results[i].setId(catalog.getId(c.getSlot()));
+			results[i].setName(catalog.getName(c.getSlot()));
+			results[i].setSpecies(catalog.getSpecies(c.getSlot()));
+			results[i].setRevision(catalog.getRevision(c.getSlot()));
+			results[i].setScore(c.getSteps());
+			List<String> path = c.getPath();
+			results[i].setFields(new WSIndexField[] { new WSIndexField("path", path.toArray(new String[path.size()])) });
+		}
+		return results;
+	}
+
+	private WSSearchResult[] toSearchResults(List<Similarity> similar) {
+		PathwayCatalog catalog = localStore.getCatalog();
+		WSSearchResult[] results = new WSSearchResult[similar.size()];
+		for(int i = 0; i < results.length; i++) {
+			int slot = similar.get(i).getSlot();
+			results[i] = new WSSearchResult();
+			results[i].setId(catalog.getId(slot));
+			results[i].setName(catalog.getName(slot));
+			results[i].setSpecies(catalog.getSpecies(slot));
+			results[i].setRevision(catalog.getRevision(slot));
+			results[i].setScore(similar.get(i).getSimilarity());
+		}
+		return results;
+	}
 }
@@ -0,0 +1,126 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bridgedb.Xref;
+import org.pathvisio.core.util.ProgressKeeper;
+import org.pathvisio.wikipathways.webservice.WSSearchResult;
+import org.pathvisio.wpclient.IWPQueries;
+
+/**
+ * searches the pathways for the xrefs of many data nodes at once,
+ * the distinct xrefs are searched in parallel and the pathways are
+ * ranked by the number of nodes they contain
+ * @author mkutmon
+ */
+public class XrefBatchSearch {
+
+	private static final int THREADS = 4;
+
+	private IWPQueries wpQueries;
+
+	public XrefBatchSearch(IWPQueries wpQueries) {
+		this.wpQueries = wpQueries;
+	}
+
+	/**
+	 * @param xrefs xref of each selected node, the same xref can occur
+	 * more than once and is counted for every node
+	 */
+	public WSResult[] search(List<Xref> xrefs, final ProgressKeeper pk) throws Exception {
+		Map<Xref, Integer> nodes = new LinkedHashMap<Xref, Integer>();
+		for(Xref xref : xrefs) {
+			nodes.put(xref, nodes.containsKey(xref) ? nodes.get(xref) + 1 : 1);
+		}
+		if(nodes.isEmpty()) {
+			return new WSResult[0];
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(THREADS, nodes.size()), new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "wpclient-batch");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		final AtomicInteger done = new AtomicInteger();
+		final int total = nodes.size();
+		Map<Xref, Future<WSSearchResult[]>> futures = new LinkedHashMap<Xref, Future<WSSearchResult[]>>();
+		try {
+			for(final Xref xref : nodes.keySet()) {
+				futures.put(xref, executor.submit(new Callable<WSSearchResult[]>() {
+					public WSSearchResult[] call() throws Exception {
+						if(pk != null && pk.isCancelled()) {
+							return new WSSearchResult[0];
+						}
+						WSSearchResult[] results = wpQueries.findByXref(new Xref[] { xref }, null);
+						if(pk != null) pk.setProgress(done.incrementAndGet() * 100 / total);
+						return results;
+					}
+				}));
+			}
+
+			Map<String, WSResult> results = new HashMap<String, WSResult>();
+			for(Map.Entry<Xref, Future<WSSearchResult[]>> e : futures.entrySet()) {
+				// a pathway can be listed more than once for the same xref
+				Set<String> ids = new HashSet<String>();
+				for(WSSearchResult r : get(e.getValue())) {
+					if(!ids.add(r.getId())) {
+						continue;
+					}
+					WSResult result = results.get(r.getId());
+					if(result == null) {
+						result = new WSResult();
+						result.setWsSearchResult(r);
+						result.setCount(0);
+						results.put(r.getId(), result);
+					}
+					result.setCount(result.getCount() + nodes.get(e.getKey()));
+				}
+			}
+			List<WSResult> list = new ArrayList<WSResult>(results.values());
+			Collections.sort(list, Collections.reverseOrder());
+			return list.toArray(new WSResult[list.size()]);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private WSSearchResult[] get(Future<WSSearchResult[]> future) throws Exception {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+		}
+	}
+}
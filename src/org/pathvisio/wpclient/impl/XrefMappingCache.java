@@ -0,0 +1,234 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.bridgedb.IDMapper;
+import org.bridgedb.IDMapperException;
+import org.bridgedb.Xref;
+import org.pathvisio.libgpml.debug.Logger;
+import org.pathvisio.wpclient.store.XrefKeys;
+
+/**
+ * cache for the equivalent xrefs of a BridgeDb mapper, used by
+ * {@link WPQueries} to expand xref searches to all data sources
+ * 
+ * the map is bounded, the oldest mappings are removed first, only
+ * successful mappings are cached because an empty result usually means
+ * that no database for the species is loaded yet
+ * 
+ * the mappings are stored by xref only, not by mapper, so mappings are
+ * treated as stable across the loaded databases: a mapping found with one
+ * database is also returned when another database is selected, until the
+ * file is older than a week or the cache is cleared
+ * @author mkutmon
+ */
+public class XrefMappingCache {
+
+	private static final int FORMAT_VERSION = 1;
+	private static final int DEFAULT_MAX_ENTRIES = 50000;
+	// mappings change with new database releases
+	private static final long MAX_AGE = 7 * 24 * 60 * 60 * 1000L;
+
+	private File file;
+	private int maxEntries;
+	private volatile boolean loaded;
+	private long created = System.currentTimeMillis();
+	private ConcurrentHashMap<String, String[]> mappings = new ConcurrentHashMap<String, String[]>();
+	private ConcurrentLinkedQueue<String> order = new ConcurrentLinkedQueue<String>();
+
+	/**
+	 * in-memory cache for 50000 xrefs
+	 */
+	public XrefMappingCache() {
+		this(null, DEFAULT_MAX_ENTRIES);
+	}
+
+	/**
+	 * @param file file the cache is loaded from and saved to, can be null
+	 * @param maxEntries maximum number of mapped xrefs
+	 */
+	public XrefMappingCache(File file, int maxEntries) {
+		this.file = file;
+		this.maxEntries = maxEntries;
+	}
+
+	/**
+	 * equivalent xrefs for each of the given xrefs, including the xref itself,
+	 * all xrefs that are not cached are mapped in one call
+	 */
+	public Map<Xref, Set<Xref>> map(Collection<Xref> xrefs, IDMapper mapper) throws IDMapperException {
+		load();
+		Map<Xref, Set<Xref>> result = new LinkedHashMap<Xref, Set<Xref>>();
+		List<Xref> missing = new ArrayList<Xref>();
+		for(Xref xref : xrefs) {
+			Set<Xref> equivalents = new LinkedHashSet<Xref>();
+			equivalents.add(xref);
+			String[] keys = mappings.get(String.valueOf(XrefKeys.toKey(xref)));
+			if(keys != null) {
+				for(String key : keys) {
+					Xref x = XrefKeys.toXref(key);
+					if(x != null) {
+						equivalents.add(x);
+					}
+				}
+			} else if(mapper != null && xref.getDataSource() != null) {
+				missing.add(xref);
+			}
+			result.put(xref, equivalents);
+		}
+		if(!missing.isEmpty()) {
+			Map<Xref, Set<Xref>> mapped = mapper.mapID(missing);
+			for(Xref xref : missing) {
+				Set<Xref> equivalents = mapped.get(xref);
+				if(equivalents != null && !equivalents.isEmpty()) {
+					result.get(xref).addAll(equivalents);
+					put(XrefKeys.toKey(xref), equivalents);
+				}
+			}
+		}
+		return result;
+	}
+
+	private void put(String key, Collection<Xref> equivalents) {
+		List<String> keys = new ArrayList<String>();
+		for(Xref x : equivalents) {
+			String k = XrefKeys.toKey(x);
+			if(k != null && !k.equals(key)) {
+				keys.add(k);
+			}
+		}
+		put(key, keys.toArray(new String[keys.size()]));
+	}
+
+	private void put(String key, String[] keys) {
+		if(mappings.put(key, keys) == null) {
+			order.add(key);
+		}
+		while(mappings.size() > maxEntries) {
+			String oldest = order.poll();
+			if(oldest == null) {
+				break;
+			}
+			mappings.remove(oldest);
+		}
+	}
+
+	public void clear() {
+		mappings.clear();
+		order.clear();
+		created = System.currentTimeMillis();
+	}
+
+	/**
+	 * reads the mappings of an earlier session the first time
+	 * the cache is used, mappings older than a week are dropped
+	 */
+	private synchronized void load() {
+		if(loaded) {
+			return;
+		}
+		loaded = true;
+		if(file == null || !file.exists()) {
+			return;
+		}
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))));
+			try {
+				if(in.readInt() != FORMAT_VERSION) {
+					return;
+				}
+				long time = in.readLong();
+				if(time + MAX_AGE < System.currentTimeMillis()) {
+					return;
+				}
+				created = time;
+				int count = in.readInt();
+				for(int i = 0; i < count; i++) {
+					String key = in.readUTF();
+					String[] keys = new String[in.readInt()];
+					for(int j = 0; j < keys.length; j++) {
+						keys[j] = in.readUTF();
+					}
+					put(key, keys);
+				}
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			Logger.log.error("Could not load xref mapping cache", e);
+		}
+	}
+
+	/**
+	 * writes the mappings to the file, oldest first
+	 */
+	public synchronized void save() throws IOException {
+		if(file == null || !loaded) {
+			return;
+		}
+		List<String> keys = new ArrayList<String>();
+		for(String key : order) {
+			if(mappings.containsKey(key)) {
+				keys.add(key);
+			}
+		}
+		file.getParentFile().mkdirs();
+		File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(tmp))));
+		try {
+			out.writeInt(FORMAT_VERSION);
+			out.writeLong(created);
+			out.writeInt(keys.size());
+			for(String key : keys) {
+				String[] equivalents = mappings.get(key);
+				out.writeUTF(key);
+				out.writeInt(equivalents == null ? 0 : equivalents.length);
+				if(equivalents != null) {
+					for(String k : equivalents) {
+						out.writeUTF(k);
+					}
+				}
+			}
+		} finally {
+			out.close();
+		}
+		if(file.exists()) {
+			file.delete();
+		}
+		tmp.renameTo(file);
+	}
+}
@@ -0,0 +1,183 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.impl;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+
+import javax.swing.SwingUtilities;
+
+import org.bridgedb.Xref;
+import org.pathvisio.libgpml.debug.Logger;
+import org.pathvisio.wikipathways.webservice.WSSearchResult;
+import org.pathvisio.wpclient.IWPQueries;
+import org.pathvisio.wpclient.store.LocalStore;
+import org.pathvisio.wpclient.store.XrefKeys;
+
+/**
+ * counts the pathways containing an xref in the background, e.g. to
+ * show the number of matches in the data node popup menu
+ * 
+ * the count comes from the (cached) xref search, the local store
+ * is used when WikiPathways can not be reached
+ * @author mkutmon
+ */
+public class XrefMatchCounter {
+
+	private static final int MAX_ENTRIES = 5000;
+
+	/**
+	 * called on the event dispatch thread when the count is known
+	 */
+	public interface Listener {
+		public void countFound(Xref xref, int count);
+	}
+
+	private IWPQueries wpQueries;
+	private LocalStore localStore;
+	private ConcurrentHashMap<Xref, CountTask> counts = new ConcurrentHashMap<Xref, CountTask>();
+	private ExecutorService executor;
+
+	public XrefMatchCounter(IWPQueries wpQueries, LocalStore localStore) {
+		this.wpQueries = wpQueries;
+		this.localStore = localStore;
+		// few threads, the counts are requested speculatively
+		executor = Executors.newFixedThreadPool(2, new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "wpclient-count");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+	}
+
+	/**
+	 * starts counting if the xref has not been counted before
+	 */
+	public Future<Integer> count(Xref xref) {
+		return getTask(xref);
+	}
+
+	/**
+	 * counts the xref and notifies the listener, nothing
+	 * happens if the count fails
+	 */
+	public void count(Xref xref, Listener listener) {
+		CountTask task = getTask(xref);
+		task.listeners.add(listener);
+		if(task.isDone()) {
+			// finished before the listener was added
+			task.notifyListeners();
+		}
+	}
+
+	private CountTask getTask(Xref xref) {
+		CountTask task = counts.get(xref);
+		if(task == null) {
+			if(counts.size() > MAX_ENTRIES) {
+				counts.clear();
+			}
+			CountTask created = new CountTask(xref);
+			task = counts.putIfAbsent(xref, created);
+			if(task == null) {
+				task = created;
+				executor.execute(task);
+			}
+		}
+		return task;
+	}
+
+	/**
+	 * count if it is already known, otherwise null
+	 */
+	public Integer getCount(Xref xref) {
+		CountTask task = counts.get(xref);
+		if(task != null && task.isDone()) {
+			try {
+				return task.get();
+			} catch (Exception e) {
+				return null;
+			}
+		}
+		return null;
+	}
+
+	private int query(Xref xref) throws Exception {
+		try {
+			Set<String> ids = new HashSet<String>();
+			for(WSSearchResult result : wpQueries.findByXref(new Xref[] { xref }, null)) {
+				ids.add(result.getId());
+			}
+			return ids.size();
+		} catch (Exception e) {
+			String key = XrefKeys.toKey(xref);
+			if(localStore == null || localStore.isEmpty() || key == null) {
+				throw e;
+			}
+			Logger.log.info("Counting " + xref + " in the local store");
+			return localStore.getXrefIndex().getPathways(key).length;
+		}
+	}
+
+	private class CountTask extends FutureTask<Integer> {
+		private Xref xref;
+		private List<Listener> listeners = new CopyOnWriteArrayList<Listener>();
+
+		private CountTask(final Xref xref) {
+			super(new Callable<Integer>() {
+				public Integer call() throws Exception {
+					return query(xref);
+				}
+			});
+			this.xref = xref;
+		}
+
+		protected void done() {
+			notifyListeners();
+		}
+
+		private void notifyListeners() {
+			final int count;
+			try {
+				count = get();
+			} catch (Exception e) {
+				// tried again next time
+				counts.remove(xref, this);
+				return;
+			}
+			for(final Listener listener : listeners) {
+				if(!listeners.remove(listener)) {
+					continue;
+				}
+				SwingUtilities.invokeLater(new Runnable() {
+					public void run() {
+						listener.countFound(xref, count);
+					}
+				});
+			}
+		}
+	}
+}
@@ -0,0 +1,136 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.pathvisio.wikipathways.webservice.WSPathwayInfo;
+
+/**
+ * compact column-wise storage of browse results
+ * 
+ * instead of keeping the webservice beans, only id, name and species
+ * are stored in parallel arrays, pathway ids (WPxxx) are stored as int
+ * and species names are dictionary encoded
+ * @author mkutmon
+ */
+public class BrowseResultSet {
+
+	private static final String ID_PREFIX = "WP";
+
+	private int[] ids;
+	private String[] names;
+	private short[] species;
+	private int size;
+
+	// ids that do not follow the WPxxx pattern are stored
+	// here and referenced by negative numbers in ids
+	private List<String> otherIds = new ArrayList<String>();
+
+	private List<String> speciesNames = new ArrayList<String>();
+	private Map<String, Short> speciesCodes = new HashMap<String, Short>();
+
+	public BrowseResultSet() {
+		this(16);
+	}
+
+	public BrowseResultSet(int capacity) {
+		ids = new int[capacity];
+		names = new String[capacity];
+		species = new short[capacity];
+	}
+
+	public BrowseResultSet(Collection<WSPathwayInfo> pathways) {
+		this(Math.max(16, pathways.size()));
+		for(WSPathwayInfo info : pathways) {
+			add(info.getId(), info.getName(), info.getSpecies());
+		}
+	}
+
+	public void add(String id, String name, String organism) {
+		if(size == ids.length) {
+			int capacity = size * 2;
+			ids = Arrays.copyOf(ids, capacity);
+			names = Arrays.copyOf(names, capacity);
+			species = Arrays.copyOf(species, capacity);
+		}
+		ids[size] = encodeId(id);
+		names[size] = name;
+		species[size] = encodeSpecies(organism);
+		size++;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public String getId(int row) {
+		int id = ids[row];
+		return id >= 0 ? ID_PREFIX + id : otherIds.get(-id - 1);
+	}
+
+	public String getName(int row) {
+		return names[row];
+	}
+
+	public String getSpecies(int row) {
+		return speciesNames.get(species[row]);
+	}
+
+	/**
+	 * number of distinct species in the result set
+	 */
+	public int getSpeciesCount() {
+		return speciesNames.size();
+	}
+
+	private int encodeId(String id) {
+		if(id != null && id.startsWith(ID_PREFIX) && id.length() > ID_PREFIX.length() && id.length() < 12) {
+			boolean numeric = true;
+			for(int i = ID_PREFIX.length(); i < id.length(); i++) {
+				if(!Character.isDigit(id.charAt(i))) {
+					numeric = false;
+					break;
+				}
+			}
+			// ids with leading zeros would not survive the round trip
+			if(numeric && id.charAt(ID_PREFIX.length()) != '0') {
+				long value = Long.parseLong(id.substring(ID_PREFIX.length()));
+				if(value <= Integer.MAX_VALUE) {
+					return (int) value;
+				}
+			}
+		}
+		otherIds.add(id);
+		return -otherIds.size();
+	}
+
+	private short encodeSpecies(String organism) {
+		Short code = speciesCodes.get(organism);
+		if(code == null) {
+			code = (short) speciesNames.size();
+			speciesNames.add(organism);
+			speciesCodes.put(organism, code);
+		}
+		return code;
+	}
+}
@@ -16,10 +16,12 @@
 //
 package org.pathvisio.wpclient.models;
 
-import java.util.List;
+import java.util.Collection;
 
 import javax.swing.table.AbstractTableModel;
 
+import org.pathvisio.wikipathways.webservice.WSPathwayInfo;
+
 		
 /**
  * This class creates the BrowseTableModel 
@@ -29,15 +31,15 @@ import javax.swing.table.AbstractTableModel;
  */
 public class BrowseTableModel extends AbstractTableModel {
 	
-	// TODO: CURATION TAGS are currently disabled to improve performance
+	// curation tags are loaded for the visible rows by the MetadataTableModel
 
-	private List<BrowseResult> results;
+	private BrowseResultSet results;
 	private String[] columnNames = new String[] { "ID", "Name", "Species"//,"Curation Tag" 
 			};
 	
 	// private HashMap<String, List<WSCurationTag>> imagetags = new HashMap<String, List<WSCurationTag>>();
 		
-	public BrowseTableModel(List<BrowseResult> results) {
+	public BrowseTableModel(BrowseResultSet results) {
 //		putImagetags(results);
 		this.results = results;
 	}
@@ -48,19 +50,28 @@ public class BrowseTableModel extends AbstractTableModel {
 //		}
 //	}
 
+	/**
+	 * adds pathways at the end of the table
+	 */
+	public void append(Collection<WSPathwayInfo> pathways) {
+		if(pathways.isEmpty()) {
+			return;
+		}
+		int first = results.size();
+		for(WSPathwayInfo info : pathways) {
+			results.add(info.getId(), info.getName(), info.getSpecies());
+		}
+		fireTableRowsInserted(first, results.size() - 1);
+	}
+
 	public int getColumnCount() {
 //		return 4;
 		return 3;
 	}
 
 	public Class getColumnClass(int column) {
-		for (int row = 0; row < getRowCount(); row++) {
-			Object o = getValueAt(row, column);
-			if (o != null) {
-				return o.getClass();
-			}
-		}
-		return Object.class;
+		// all columns are strings, no need to scan the rows
+		return String.class;
 	}
 		
 	public int getRowCount() {
@@ -68,15 +79,13 @@ public class BrowseTableModel extends AbstractTableModel {
 	}
 
 	public Object getValueAt(int rowIndex, int columnIndex) {
-		BrowseResult r = results.get(rowIndex);
-		
 		switch (columnIndex) {
 			case 0:
-				return r.getPathway().getId();
+				return results.getId(rowIndex);
 			case 1:
-				return r.getPathway().getName();
+				return results.getName(rowIndex);
 			case 2:
-				return r.getPathway().getSpecies();
+				return results.getSpecies(rowIndex);
 //			case 3: {
 //				String IMG_SEARCH = "";
 //
@@ -86,7 +95,7 @@ public class BrowseTableModel extends AbstractTableModel {
 //				ImageIcon icon;
 //
 //				// storing images of the curated tags belonging to certain pathways in Panel
-//				for (WSCurationTag tag : imagetags.get(r.getPathway().getId())) 
+//				for (WSCurationTag tag : imagetags.get(results.getId(rowIndex))) 
 //				{
 //
 //					if (BrowsePanel.tagImages.containsKey(tag.getName())) 
@@ -0,0 +1,92 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.table.AbstractTableModel;
+
+import org.bridgedb.Xref;
+import org.pathvisio.wikipathways.webservice.WSSearchResult;
+import org.pathvisio.wpclient.store.XrefKeys;
+
+/**
+ * table model for pathways connecting two identifiers, the
+ * path is stored in the first field of each search result
+ * @author mkutmon
+ */
+public class ConnectionTableModel extends AbstractTableModel {
+	private WSSearchResult[] results;
+	private String[] columnNames = new String[] { "ID", "Name", "Species", "Steps", "Path" };
+	private Class<?>[] columnClasses = new Class<?>[] { String.class, String.class, String.class, Integer.class, String.class };
+
+	public ConnectionTableModel(WSSearchResult[] results) {
+		this.results = results;
+	}
+
+	public int getColumnCount() {
+		return columnNames.length;
+	}
+
+	public int getRowCount() {
+		return results.length;
+	}
+
+	public Object getValueAt(int rowIndex, int columnIndex) {
+		WSSearchResult r = results[rowIndex];
+		switch (columnIndex) {
+			case 0:
+				return r.getId();
+			case 1:
+				return r.getName();
+			case 2:
+				return r.getSpecies();
+			case 3:
+				return (int) r.getScore();
+			case 4:
+				StringBuilder path = new StringBuilder();
+				for (String key : r.getFields()[0].getValues()) {
+					path.append(path.length() == 0 ? "" : " > ").append(key);
+				}
+				return path.toString();
+		}
+		return "";
+	}
+
+	/**
+	 * xrefs of the nodes on the path of a row
+	 */
+	public Xref[] getPath(int row) {
+		List<Xref> xrefs = new ArrayList<Xref>();
+		for (String key : results[row].getFields()[0].getValues()) {
+			Xref xref = XrefKeys.toXref(key);
+			if (xref != null) {
+				xrefs.add(xref);
+			}
+		}
+		return xrefs.toArray(new Xref[xrefs.size()]);
+	}
+
+	public String getColumnName(int column) {
+		return columnNames[column];
+	}
+
+	public Class<?> getColumnClass(int column) {
+		return columnClasses[column];
+	}
+}
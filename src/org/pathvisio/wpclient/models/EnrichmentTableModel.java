@@ -0,0 +1,74 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.models;
+
+import java.util.List;
+
+import javax.swing.table.AbstractTableModel;
+
+import org.pathvisio.wpclient.store.EnrichmentAnalysis.Enrichment;
+
+/**
+ * table model for the results of an over-representation analysis
+ * @author mkutmon
+ */
+public class EnrichmentTableModel extends AbstractTableModel {
+	private List<Enrichment> results;
+	private String[] columnNames = new String[] { "ID", "Name", "Species", "Overlap", "Size", "P-value", "FDR" };
+	private Class<?>[] columnClasses = new Class<?>[] { String.class, String.class, String.class, Integer.class, Integer.class, Double.class, Double.class };
+
+	public EnrichmentTableModel(List<Enrichment> results) {
+		this.results = results;
+	}
+
+	public int getColumnCount() {
+		return columnNames.length;
+	}
+
+	public int getRowCount() {
+		return results.size();
+	}
+
+	public Object getValueAt(int rowIndex, int columnIndex) {
+		Enrichment r = results.get(rowIndex);
+		switch (columnIndex) {
+			case 0:
+				return r.getId();
+			case 1:
+				return r.getName();
+			case 2:
+				return r.getSpecies();
+			case 3:
+				return r.getOverlap();
+			case 4:
+				return r.getSize();
+			case 5:
+				return r.getPValue();
+			case 6:
+				return r.getFdr();
+		}
+		return "";
+	}
+
+	public String getColumnName(int column) {
+		return columnNames[column];
+	}
+
+	public Class<?> getColumnClass(int column) {
+		return columnClasses[column];
+	}
+}
@@ -0,0 +1,129 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.swing.table.AbstractTableModel;
+
+import org.pathvisio.wikipathways.webservice.WSSearchResult;
+import org.pathvisio.wpclient.impl.FederatedSearch.Source;
+
+/**
+ * merged results of a {@link org.pathvisio.wpclient.impl.FederatedSearch}
+ * 
+ * every pathway is listed once with all searches that found it, rows
+ * are ranked by the most relevant search, then by the number of searches
+ * and then by the position in the result of the search
+ * @author mkutmon
+ */
+public class FederatedResultTableModel extends AbstractTableModel {
+
+	private String[] columnNames = new String[] { "ID", "Name", "Species", "Found by" };
+	private List<Source> sources;
+	private Map<String, Row> rowsById = new HashMap<String, Row>();
+	private List<Row> rows = new ArrayList<Row>();
+
+	/**
+	 * @param sources searches that will be merged, most relevant first
+	 */
+	public FederatedResultTableModel(List<Source> sources) {
+		this.sources = sources;
+	}
+
+	/**
+	 * merges the results of one search into the table
+	 */
+	public void add(Source source, WSSearchResult[] results) {
+		int rank = sources.indexOf(source);
+		for(int i = 0; i < results.length; i++) {
+			Row row = rowsById.get(results[i].getId());
+			if(row == null) {
+				row = new Row(results[i], rank, i);
+				rowsById.put(results[i].getId(), row);
+				rows.add(row);
+			} else if(rank < row.rank || (rank == row.rank && i < row.position)) {
+				row.rank = rank;
+				row.position = i;
+			}
+			row.foundBy.add(source);
+		}
+		Collections.sort(rows, new Comparator<Row>() {
+			public int compare(Row r1, Row r2) {
+				if(r1.rank != r2.rank) {
+					return r1.rank - r2.rank;
+				}
+				if(r1.foundBy.size() != r2.foundBy.size()) {
+					return r2.foundBy.size() - r1.foundBy.size();
+				}
+				return r1.position - r2.position;
+			}
+		});
+		fireTableDataChanged();
+	}
+
+	public int getColumnCount() {
+		return columnNames.length;
+	}
+
+	public int getRowCount() {
+		return rows.size();
+	}
+
+	public Object getValueAt(int rowIndex, int columnIndex) {
+		Row r = rows.get(rowIndex);
+		switch (columnIndex) {
+			case 0:
+				return r.result.getId();
+			case 1:
+				return r.result.getName();
+			case 2:
+				return r.result.getSpecies();
+			case 3:
+				StringBuilder builder = new StringBuilder();
+				for(Source source : r.foundBy) {
+					builder.append(builder.length() == 0 ? "" : ", ").append(source.getLabel());
+				}
+				return builder.toString();
+		}
+		return "";
+	}
+
+	public String getColumnName(int column) {
+		return columnNames[column];
+	}
+
+	private static class Row {
+		private WSSearchResult result;
+		private int rank;
+		private int position;
+		private Set<Source> foundBy = EnumSet.noneOf(Source.class);
+
+		private Row(WSSearchResult result, int rank, int position) {
+			this.result = result;
+			this.rank = rank;
+			this.position = position;
+		}
+	}
+}
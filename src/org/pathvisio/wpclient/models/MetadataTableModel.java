@@ -0,0 +1,219 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.models;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.swing.JTable;
+import javax.swing.JViewport;
+import javax.swing.Timer;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.TableModel;
+
+import org.pathvisio.wpclient.impl.PathwayMetadata;
+import org.pathvisio.wpclient.impl.PathwayMetadataCache;
+
+/**
+ * adds revision, last modified, author and curation tag columns to
+ * a result table model with the pathway id in the first column
+ *
+ * the values are only loaded for the rows in the viewport of the
+ * table and a few rows below, see {@link #install(JTable)}, cells
+ * are empty until their batch has been loaded
+ * @author mkutmon
+ */
+public class MetadataTableModel extends AbstractTableModel implements PathwayMetadataCache.Listener {
+
+	private static final String[] COLUMNS = new String[] { "Revision", "Last modified", "Author", "Curation tags" };
+	// rows below the viewport that are loaded with the visible ones
+	private static final int LOOKAHEAD = 20;
+	// scroll events are collected before a batch is requested
+	private static final int DELAY = 150;
+
+	private TableModel base;
+	private PathwayMetadataCache cache;
+	private Map<String, List<Integer>> rows;
+
+	public MetadataTableModel(TableModel base, PathwayMetadataCache cache) {
+		this.base = base;
+		this.cache = cache;
+		base.addTableModelListener(new TableModelListener() {
+			public void tableChanged(TableModelEvent e) {
+				rows = null;
+				fireTableChanged(new TableModelEvent(MetadataTableModel.this, e.getFirstRow(), e.getLastRow(),
+						e.getColumn(), e.getType()));
+			}
+		});
+	}
+
+	/**
+	 * requests the metadata of the rows in the viewport of the table
+	 * whenever it is scrolled or gets a new model, the table has to
+	 * be in its scroll pane already
+	 */
+	public static void install(final JTable table) {
+		final Timer timer = new Timer(DELAY, new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				if(table.getModel() instanceof MetadataTableModel) {
+					((MetadataTableModel) table.getModel()).requestVisible(table);
+				}
+			}
+		});
+		timer.setRepeats(false);
+		table.addPropertyChangeListener("model", new PropertyChangeListener() {
+			public void propertyChange(PropertyChangeEvent evt) {
+				timer.restart();
+			}
+		});
+		if(table.getParent() instanceof JViewport) {
+			((JViewport) table.getParent()).addChangeListener(new ChangeListener() {
+				public void stateChanged(ChangeEvent e) {
+					timer.restart();
+				}
+			});
+		}
+	}
+
+	/**
+	 * requests the visible rows and the lookahead as one batch
+	 */
+	public void requestVisible(JTable table) {
+		if(table.getRowCount() == 0) {
+			return;
+		}
+		Rectangle visible = table.getVisibleRect();
+		int first = table.rowAtPoint(visible.getLocation());
+		int last = table.rowAtPoint(new Point(visible.x, visible.y + visible.height - 1));
+		if(first == -1) {
+			first = 0;
+		}
+		if(last == -1) {
+			last = table.getRowCount() - 1;
+		}
+		last = Math.min(table.getRowCount() - 1, last + LOOKAHEAD);
+		Set<String> ids = new LinkedHashSet<String>();
+		for(int row = first; row <= last; row++) {
+			Object id = base.getValueAt(table.convertRowIndexToModel(row), 0);
+			if(id != null) {
+				ids.add(id.toString());
+			}
+		}
+		cache.request(ids, this);
+	}
+
+	@Override
+	public void metadataLoaded(Collection<String> ids) {
+		if(rows == null) {
+			rows = new HashMap<String, List<Integer>>();
+			for(int row = 0; row < base.getRowCount(); row++) {
+				Object id = base.getValueAt(row, 0);
+				if(id != null) {
+					List<Integer> list = rows.get(id.toString());
+					if(list == null) {
+						list = new ArrayList<Integer>(1);
+						rows.put(id.toString(), list);
+					}
+					list.add(row);
+				}
+			}
+		}
+		int min = Integer.MAX_VALUE;
+		int max = -1;
+		for(String id : ids) {
+			if(rows.containsKey(id)) {
+				for(int row : rows.get(id)) {
+					min = Math.min(min, row);
+					max = Math.max(max, row);
+				}
+			}
+		}
+		if(max != -1) {
+			// one event per column, listeners of the base columns can ignore them
+			for(int column = base.getColumnCount(); column < getColumnCount(); column++) {
+				fireTableChanged(new TableModelEvent(this, min, max, column, TableModelEvent.UPDATE));
+			}
+		}
+	}
+
+	public int getColumnCount() {
+		return base.getColumnCount() + COLUMNS.length;
+	}
+
+	public String getColumnName(int column) {
+		if(column < base.getColumnCount()) {
+			return base.getColumnName(column);
+		}
+		return COLUMNS[column - base.getColumnCount()];
+	}
+
+	public Class<?> getColumnClass(int column) {
+		if(column < base.getColumnCount()) {
+			return base.getColumnClass(column);
+		}
+		return String.class;
+	}
+
+	public int getRowCount() {
+		return base.getRowCount();
+	}
+
+	public Object getValueAt(int rowIndex, int columnIndex) {
+		if(columnIndex < base.getColumnCount()) {
+			return base.getValueAt(rowIndex, columnIndex);
+		}
+		Object id = base.getValueAt(rowIndex, 0);
+		PathwayMetadata metadata = id == null ? null : cache.get(id.toString());
+		if(metadata == null) {
+			return "";
+		}
+		switch (columnIndex - base.getColumnCount()) {
+			case 0:
+				return metadata.getRevision();
+			case 1:
+				return metadata.getLastModified();
+			case 2:
+				return metadata.getAuthor();
+			case 3:
+				return String.join(", ", metadata.getTags());
+		}
+		return "";
+	}
+
+	//////////////////////////////////////
+	// SETTERS & GETTERS
+	//////////////////////////////////////
+
+	public TableModel getBase() {
+		return base;
+	}
+}
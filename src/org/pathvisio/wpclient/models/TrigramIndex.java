@@ -0,0 +1,183 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.models;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+
+import javax.swing.table.TableModel;
+
+/**
+ * trigram index over selected columns of a table model
+ * 
+ * the index is built once when the table is filled and answers
+ * substring queries by intersecting the row lists of the query
+ * trigrams instead of scanning every row
+ * @author mkutmon
+ */
+public class TrigramIndex {
+
+	// separates the columns, never part of a query
+	private static final char SEPARATOR = '\n';
+
+	private String[] texts;
+
+	// open addressing hash table from trigram to row list,
+	// avoids boxing a key for every character of the table
+	private long[] keys = new long[1024];
+	private Postings[] postings = new Postings[1024];
+	private int count;
+
+	public TrigramIndex(TableModel model, int[] columns) {
+		int rows = model.getRowCount();
+		texts = new String[rows];
+		StringBuilder sb = new StringBuilder();
+		for(int row = 0; row < rows; row++) {
+			sb.setLength(0);
+			for(int column : columns) {
+				Object value = model.getValueAt(row, column);
+				if(value != null) {
+					sb.append(value.toString().toLowerCase());
+				}
+				sb.append(SEPARATOR);
+			}
+			String text = sb.toString();
+			texts[row] = text;
+			for(int i = 0; i + 3 <= text.length(); i++) {
+				long key = trigram(text, i);
+				int slot = find(key);
+				if(postings[slot] == null) {
+					keys[slot] = key;
+					postings[slot] = new Postings();
+					if(++count * 2 > keys.length) {
+						rehash();
+						slot = find(key);
+					}
+				}
+				postings[slot].add(row);
+			}
+		}
+	}
+
+	public int size() {
+		return texts.length;
+	}
+
+	/**
+	 * returns the rows that contain the query (case insensitive)
+	 * in one of the indexed columns
+	 */
+	public BitSet match(String query) {
+		String q = query.toLowerCase();
+		BitSet result = new BitSet(texts.length);
+		if(q.length() < 3) {
+			// too short for trigrams, scanning the prepared texts is cheap
+			for(int row = 0; row < texts.length; row++) {
+				if(texts[row].contains(q)) {
+					result.set(row);
+				}
+			}
+			return result;
+		}
+
+		Postings[] lists = new Postings[q.length() - 2];
+		for(int i = 0; i < lists.length; i++) {
+			lists[i] = postings[find(trigram(q, i))];
+			if(lists[i] == null) {
+				return result;
+			}
+		}
+		// start with the shortest list to keep the intersection small
+		Arrays.sort(lists, new Comparator<Postings>() {
+			public int compare(Postings p1, Postings p2) {
+				return p1.size - p2.size;
+			}
+		});
+		int[] candidates = Arrays.copyOf(lists[0].rows, lists[0].size);
+		int n = candidates.length;
+		for(int i = 1; i < lists.length && n > 0; i++) {
+			n = intersect(candidates, n, lists[i]);
+		}
+		// trigrams may match in different places, verify the candidates
+		for(int i = 0; i < n; i++) {
+			if(texts[candidates[i]].contains(q)) {
+				result.set(candidates[i]);
+			}
+		}
+		return result;
+	}
+
+	private int intersect(int[] candidates, int n, Postings list) {
+		int k = 0;
+		int j = 0;
+		for(int i = 0; i < n && j < list.size; i++) {
+			while(j < list.size && list.rows[j] < candidates[i]) {
+				j++;
+			}
+			if(j < list.size && list.rows[j] == candidates[i]) {
+				candidates[k++] = candidates[i];
+			}
+		}
+		return k;
+	}
+
+	private int find(long key) {
+		int mask = keys.length - 1;
+		int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+		while(postings[slot] != null && keys[slot] != key) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private void rehash() {
+		long[] oldKeys = keys;
+		Postings[] oldPostings = postings;
+		keys = new long[oldKeys.length * 2];
+		postings = new Postings[oldKeys.length * 2];
+		for(int i = 0; i < oldKeys.length; i++) {
+			if(oldPostings[i] != null) {
+				int slot = find(oldKeys[i]);
+				keys[slot] = oldKeys[i];
+				postings[slot] = oldPostings[i];
+			}
+		}
+	}
+
+	private static long trigram(String s, int i) {
+		return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+	}
+
+	/**
+	 * sorted list of rows containing a trigram
+	 */
+	private static class Postings {
+		private int[] rows = new int[4];
+		private int size;
+
+		private void add(int row) {
+			if(size > 0 && rows[size - 1] == row) {
+				return;
+			}
+			if(size == rows.length) {
+				rows = Arrays.copyOf(rows, size * 2);
+			}
+			rows[size++] = row;
+		}
+	}
+}
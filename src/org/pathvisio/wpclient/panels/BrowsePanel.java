@@ -21,32 +21,49 @@ import java.awt.CardLayout;
 import java.awt.Component;
 import java.awt.HeadlessException;
 import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.io.File;
 import java.net.MalformedURLException;
 import java.rmi.RemoteException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.swing.AbstractAction;
 import javax.swing.Action;
 import javax.swing.BorderFactory;
+import javax.swing.DefaultComboBoxModel;
+import javax.swing.DefaultListCellRenderer;
 import javax.swing.JButton;
 import javax.swing.JComboBox;
 import javax.swing.JLabel;
+import javax.swing.JList;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
+import javax.swing.JSplitPane;
 import javax.swing.JTable;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
 import javax.swing.SwingWorker;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 import javax.swing.table.TableCellRenderer;
-import javax.swing.table.TableRowSorter;
+import javax.swing.table.TableModel;
 import javax.xml.rpc.ServiceException;
 
 import org.bridgedb.bio.Organism;
@@ -56,8 +73,11 @@ import org.pathvisio.gui.ProgressDialog;
 import org.pathvisio.wikipathways.webservice.WSPathwayInfo;
 import org.pathvisio.wpclient.FailedConnectionException;
 import org.pathvisio.wpclient.WikiPathwaysClientPlugin;
-import org.pathvisio.wpclient.models.BrowseResult;
+import org.pathvisio.wpclient.actions.ExportPathwaysAction;
+import org.pathvisio.wpclient.models.BrowseResultSet;
 import org.pathvisio.wpclient.models.BrowseTableModel;
+import org.pathvisio.wpclient.models.MetadataTableModel;
+import org.pathvisio.wpclient.store.FacetIndex;
 import org.pathvisio.wpclient.utils.FileUtils;
 
 import com.jgoodies.forms.builder.DefaultFormBuilder;
@@ -84,27 +104,78 @@ public class BrowsePanel extends JPanel {
 	private JPanel thisPanel;
 	private JLabel lblNumFound;
 
-	public BrowsePanel(final WikiPathwaysClientPlugin plugin) throws RemoteException, FailedConnectionException {
+	// number of pathways for each option, computed locally
+	private FacetIndex facetIndex;
+	private CountRenderer organismCounts = new CountRenderer();
+	private CountRenderer collectionCounts = new CountRenderer();
+	private CountRenderer curationCounts = new CountRenderer();
+
+	private ActionListener facetListener = new ActionListener() {
+		public void actionPerformed(ActionEvent e) {
+			updateCounts();
+		}
+	};
+
+	// species fetched at the same time when several are selected
+	private static final int MAX_PARALLEL_SPECIES = 4;
+
+	// last entry of the species combo box
+	private SpeciesSelection speciesSelection = new SpeciesSelection();
+	private Object lastOrganism;
+	private boolean updatingOrganisms;
+
+	private ActionListener speciesListener = new ActionListener() {
+		public void actionPerformed(ActionEvent e) {
+			if (updatingOrganisms) {
+				return;
+			}
+			if (organismOpt.getSelectedItem() == speciesSelection) {
+				SwingUtilities.invokeLater(new Runnable() {
+					public void run() {
+						chooseSpecies();
+					}
+				});
+			} else {
+				lastOrganism = organismOpt.getSelectedItem();
+			}
+		}
+	};
+
+	// updates the species combo box when the organism list has been refreshed
+	private ChangeListener organismListener = new ChangeListener() {
+		public void stateChanged(ChangeEvent e) {
+			updateOrganisms();
+		}
+	};
+
+	public BrowsePanel(final WikiPathwaysClientPlugin plugin) {
 		this.plugin = plugin;
 		this.thisPanel = this;
 		
 		curationTags = new HashMap<String, String>();
 		collectionTags = new HashMap<String, String>();
 //		tagImages = new HashMap<String, String>();
-		List<String> organisms = retrieveOrgansims();
 		setUpCurationTags();
 			
 		this.setLayout(new BorderLayout());
 		
 		// Browse Option Combo boxes
-		organismOpt = new JComboBox(organisms.toArray());
-		organismOpt.setSelectedItem(Organism.HomoSapiens.latinName());
+		organismOpt = new JComboBox();
+		updateOrganisms();
 	
 		collOpt = new JComboBox(getCollectionTags().toArray());
 		collOpt.setSelectedItem("All pathways");
 		
 		curationOpt = new JComboBox(getCurationTags().toArray());
 		curationOpt.setSelectedItem("All tags");
+
+		organismOpt.setRenderer(organismCounts);
+		collOpt.setRenderer(collectionCounts);
+		curationOpt.setRenderer(curationCounts);
+		organismOpt.addActionListener(facetListener);
+		organismOpt.addActionListener(speciesListener);
+		collOpt.addActionListener(facetListener);
+		curationOpt.addActionListener(facetListener);
 			
 		DefaultFormBuilder idOptBuilder = new DefaultFormBuilder(new FormLayout("right:pref, 3dlu,right:pref"));
 		idOptBuilder.append(organismOpt);
@@ -156,7 +227,16 @@ public class BrowsePanel extends JPanel {
 		// CENTER PANEL = RESULT TABLE
 		resultTable = new JTable();
 		resultspane = new JScrollPane(resultTable);
-		add(resultspane, BorderLayout.CENTER);
+		MetadataTableModel.install(resultTable);
+		JPanel resultPanel = new JPanel(new BorderLayout());
+		resultPanel.add(new FilterPanel(resultTable), BorderLayout.NORTH);
+		ExportPathwaysAction.install(plugin, resultTable);
+		// preview of the selected pathway next to the list
+		JSplitPane split = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, resultspane,
+				new PreviewPanel(plugin.getThumbnailCache(), resultTable));
+		split.setResizeWeight(1.0);
+		resultPanel.add(split, BorderLayout.CENTER);
+		add(resultPanel, BorderLayout.CENTER);
 			
 		// SOUTH PANEL = STATUS 
 		lblNumFound = new JLabel();
@@ -168,7 +248,7 @@ public class BrowsePanel extends JPanel {
 					JTable target = (JTable) e.getSource();
 					int row = target.getSelectedRow();
 
-					BrowseTableModel model = (BrowseTableModel) target.getModel();
+					TableModel model = target.getModel();
 
 					File tmpDir = new File(plugin.getTmpDir(), FileUtils.getTimeStamp());
 					tmpDir.mkdirs();
@@ -199,21 +279,193 @@ public class BrowsePanel extends JPanel {
 	};
 	
 	/**
-	 * returns list of organisms for combo box
-	 * retrieves data from wikipathways
+	 * fills the species combo box from the shared organism cache
+	 * and keeps the current selection (Homo sapiens by default)
 	 */
-	private List<String> retrieveOrgansims() throws RemoteException, FailedConnectionException {
-		List<String> list = new ArrayList<String>();
+	private void updateOrganisms() {
+		Object selected = organismOpt.getItemCount() > 1 ? organismOpt.getSelectedItem() : Organism.HomoSapiens.latinName();
+		DefaultComboBoxModel model = new DefaultComboBoxModel();
+		// first element in list is "All species", last one opens the species list
+		model.addElement("All species");
+		for (String organism : plugin.getOrganismCache().getOrganisms()) {
+			model.addElement(organism);
+		}
+		model.addElement(speciesSelection);
+		updatingOrganisms = true;
+		try {
+			organismOpt.setModel(model);
+			organismOpt.setSelectedItem(selected);
+		} finally {
+			updatingOrganisms = false;
+		}
+		if (lastOrganism == null) {
+			lastOrganism = selected;
+		}
+		updateCounts();
+	}
 
-		// first element in list is "All species"
-		list.add("All species");
-		
-		// retrieve list of organisms from WikiPathways
-		List<String> organsims = plugin.getWpQueries().listOrganisms(null);
-		Collections.sort(organsims);
-		list.addAll(1, organsims);
-		
-		return list;
+	/**
+	 * lets the user select several species, goes back to the previous
+	 * entry when nothing has been selected
+	 */
+	private void chooseSpecies() {
+		List<String> organisms = plugin.getOrganismCache().getOrganisms();
+		JList list = new JList(organisms.toArray());
+		list.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+		list.setCellRenderer(organismCounts);
+		list.setVisibleRowCount(15);
+		for (String organism : speciesSelection.organisms) {
+			int index = organisms.indexOf(organism);
+			if (index != -1) {
+				list.addSelectionInterval(index, index);
+			}
+		}
+		int result = JOptionPane.showConfirmDialog(this, new JScrollPane(list), "Select species",
+				JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+		if (result == JOptionPane.OK_OPTION && !list.getSelectedValuesList().isEmpty()) {
+			speciesSelection.organisms.clear();
+			for (Object organism : list.getSelectedValuesList()) {
+				speciesSelection.organisms.add(organism.toString());
+			}
+			updateCounts();
+		} else if (speciesSelection.organisms.isEmpty()) {
+			organismOpt.setSelectedItem(lastOrganism);
+		}
+	}
+
+	/**
+	 * builds the facet index in the background, the counts are shown
+	 * as soon as it is available, called every time the dialog is
+	 * shown so the counts follow an import
+	 */
+	private void loadFacets() {
+		// counts of an imported snapshot can differ from the server
+		final boolean local = !plugin.getLocalStore().isEmpty();
+		new SwingWorker<FacetIndex, Void>() {
+			protected FacetIndex doInBackground() throws Exception {
+				return plugin.getFacetIndex();
+			}
+
+			protected void done() {
+				try {
+					facetIndex = get();
+					String unit = local ? " local" : "";
+					organismCounts.unit = unit;
+					collectionCounts.unit = unit;
+					curationCounts.unit = unit;
+					String tip = local ? "Numbers of pathways in the imported archive" : null;
+					organismOpt.setToolTipText(tip);
+					collOpt.setToolTipText(tip);
+					curationOpt.setToolTipText(tip);
+					updateCounts();
+				} catch (Exception e) {
+					Logger.log.error("Could not load browse facets", e);
+				}
+			}
+		}.execute();
+	}
+
+	/**
+	 * counts the pathways of every option combined with the
+	 * selected options of the other two combo boxes
+	 */
+	private void updateCounts() {
+		if (facetIndex == null || organismOpt == null || collOpt == null || curationOpt == null) {
+			return;
+		}
+		Collection<String> organism = getOrganismFacet(organismOpt.getSelectedItem());
+		String collection = getTagFacet(collectionTags.get(String.valueOf(collOpt.getSelectedItem())));
+		String curation = getTagFacet(curationTags.get(String.valueOf(curationOpt.getSelectedItem())));
+
+		organismCounts.counts.clear();
+		for (int i = 0; i < organismOpt.getItemCount(); i++) {
+			Object item = organismOpt.getItemAt(i);
+			organismCounts.counts.put(item.toString(), facetIndex.count(getOrganismFacet(item), collection, curation));
+		}
+		collectionCounts.counts.clear();
+		for (int i = 0; i < collOpt.getItemCount(); i++) {
+			String tag = getTagFacet(collectionTags.get(collOpt.getItemAt(i).toString()));
+			if (tag == null || facetIndex.hasTag(tag)) {
+				collectionCounts.counts.put(collOpt.getItemAt(i).toString(), facetIndex.count(organism, tag, curation));
+			}
+		}
+		curationCounts.counts.clear();
+		for (int i = 0; i < curationOpt.getItemCount(); i++) {
+			String tag = getTagFacet(curationTags.get(curationOpt.getItemAt(i).toString()));
+			if (tag == null || facetIndex.hasTag(tag)) {
+				curationCounts.counts.put(curationOpt.getItemAt(i).toString(), facetIndex.count(organism, collection, tag));
+			}
+		}
+		organismCounts.resize(organismOpt);
+		collectionCounts.resize(collOpt);
+		curationCounts.resize(curationOpt);
+	}
+
+	private Collection<String> getOrganismFacet(Object item) {
+		if (item instanceof SpeciesSelection) {
+			return ((SpeciesSelection) item).organisms;
+		}
+		return item == null || item.toString().equals("All species") ? null : Collections.singletonList(item.toString());
+	}
+
+	private String getTagFacet(String tag) {
+		return tag == null || tag.equals("Curation:All") || tag.equals("No Curation") ? null : tag;
+	}
+
+	/**
+	 * several species selected in a list, shown
+	 * as last entry of the species combo box
+	 */
+	private static class SpeciesSelection {
+		private List<String> organisms = new ArrayList<String>();
+
+		public String toString() {
+			return organisms.isEmpty() ? "Several species..." : String.join(", ", organisms);
+		}
+	}
+
+	/**
+	 * shows the number of pathways next to a browse option
+	 */
+	private static class CountRenderer extends DefaultListCellRenderer {
+		private Map<String, Integer> counts = new HashMap<String, Integer>();
+		private String unit = "";
+
+		public Component getListCellRendererComponent(JList list, Object value, int index, boolean isSelected,
+				boolean cellHasFocus) {
+			Integer count = value == null ? null : counts.get(value.toString());
+			return super.getListCellRendererComponent(list, count == null ? value : value + " (" + count + unit + ")",
+					index, isSelected, cellHasFocus);
+		}
+
+		/**
+		 * the combo box caches its size, a prototype with the
+		 * longest label makes it wide enough for the counts
+		 */
+		private void resize(JComboBox combo) {
+			String longest = "";
+			for (int i = 0; i < combo.getItemCount(); i++) {
+				String label = combo.getItemAt(i) + " (" + counts.get(String.valueOf(combo.getItemAt(i))) + unit + ")";
+				if (label.length() > longest.length()) {
+					longest = label;
+				}
+			}
+			combo.setPrototypeDisplayValue(longest);
+			combo.repaint();
+		}
+	}
+
+	@Override
+	public void addNotify() {
+		super.addNotify();
+		plugin.getOrganismCache().addChangeListener(organismListener);
+		loadFacets();
+	}
+
+	@Override
+	public void removeNotify() {
+		plugin.getOrganismCache().removeChangeListener(organismListener);
+		super.removeNotify();
 	}
 	
 	private List<String> getCollectionTags() {
@@ -286,13 +538,19 @@ public class BrowsePanel extends JPanel {
 	protected void browse() throws RemoteException, InterruptedException,ExecutionException, MalformedURLException, ServiceException 
 	{
 		lblNumFound.setText("");
+		if (organismOpt.getSelectedItem() == speciesSelection) {
+			if (!speciesSelection.organisms.isEmpty()) {
+				browseSpecies(new ArrayList<String>(speciesSelection.organisms));
+			}
+			return;
+		}
 		
 		final ProgressKeeper pk = new ProgressKeeper();
 		final ProgressDialog d = new ProgressDialog(JOptionPane.getFrameForComponent(this), "Browse", pk, true, true);
 		try{
-			SwingWorker<List<BrowseResult>, Void> sw = new SwingWorker<List<BrowseResult>, Void>() {
+			SwingWorker<BrowseResultSet, Void> sw = new SwingWorker<BrowseResultSet, Void>() {
 	
-				protected List<BrowseResult> doInBackground() throws Exception {
+				protected BrowseResultSet doInBackground() throws Exception {
 					String organism = organismOpt.getSelectedItem().toString();
 					String curationTag = curationOpt.getSelectedItem().toString();
 					String collection = collOpt.getSelectedItem().toString();
@@ -341,13 +599,7 @@ public class BrowsePanel extends JPanel {
 						}
 					}
 //					pk.report("Retrieve curation tags from WikiPathways");
-					List<BrowseResult> results = new ArrayList<BrowseResult>();
-					for(WSPathwayInfo info : pathways) {
-						BrowseResult res = new BrowseResult(info);
-//						Set<WSCurationTag> tags = plugin.getWpQueries().getCurationTags(info.getId(), null);
-//						res.getTags().addAll(tags);
-						results.add(res);
-					}
+					BrowseResultSet results = new BrowseResultSet(pathways);
 					pk.report(results.size() + " pathways found.");
 					return results;
 				}
@@ -375,7 +627,7 @@ public class BrowsePanel extends JPanel {
 			pk.setTaskName("Preparing Result Set");
 			
 			// prepare result table
-			resultTable.setModel(new BrowseTableModel(sw.get()));
+			resultTable.setModel(new MetadataTableModel(new BrowseTableModel(sw.get()), plugin.getMetadataCache()));
 			resultTable.setDefaultRenderer(JPanel.class, new TableCellRenderer() {
 	
 				@Override
@@ -387,11 +639,135 @@ public class BrowsePanel extends JPanel {
 				}
 			});
 			
-			resultTable.setRowSorter(new TableRowSorter(resultTable.getModel()));
 			lblNumFound.setText(sw.get().size() + " pathways found.");
 			lblNumFound.repaint();
 		} finally {
 			pk.finished();
 		}
 	}
+
+	/**
+	 * browses several species at the same time, the pathways of each
+	 * species are added to the table as soon as they have arrived
+	 * 
+	 * with a collection or quality tag the pathways of the tags are
+	 * retrieved once and filtered for the species instead
+	 */
+	private void browseSpecies(final List<String> organisms) {
+		final String collection = getTagFacet(collectionTags.get(String.valueOf(collOpt.getSelectedItem())));
+		final String curation = getTagFacet(curationTags.get(String.valueOf(curationOpt.getSelectedItem())));
+
+		final BrowseTableModel browseModel = new BrowseTableModel(new BrowseResultSet());
+		resultTable.setModel(new MetadataTableModel(browseModel, plugin.getMetadataCache()));
+
+		final ProgressKeeper pk = new ProgressKeeper(organisms.size());
+		final ProgressDialog d = new ProgressDialog(JOptionPane.getFrameForComponent(this), "Browse", pk, true, true);
+		final Set<String> ids = new HashSet<String>();
+
+		SwingWorker<Integer, Set<WSPathwayInfo>> sw = new SwingWorker<Integer, Set<WSPathwayInfo>>() {
+			protected Integer doInBackground() throws Exception {
+				try {
+					if (collection != null || curation != null) {
+						pk.setTaskName("Browsing " + organisms.size() + " species");
+						publish(browseTags(organisms, collection, curation, pk));
+						return 0;
+					}
+					return browseParallel();
+				} finally {
+					pk.finished();
+				}
+			}
+
+			private int browseParallel() throws InterruptedException {
+				ExecutorService executor = Executors.newFixedThreadPool(Math.min(organisms.size(), MAX_PARALLEL_SPECIES));
+				CompletionService<Set<WSPathwayInfo>> completion = new ExecutorCompletionService<Set<WSPathwayInfo>>(executor);
+				for (final String organism : organisms) {
+					completion.submit(new Callable<Set<WSPathwayInfo>>() {
+						public Set<WSPathwayInfo> call() throws Exception {
+							return plugin.getWpQueries().browseByOrganism(Organism.fromLatinName(organism), null);
+						}
+					});
+				}
+				int failed = 0;
+				try {
+					for (int i = 0; i < organisms.size() && !pk.isCancelled(); i++) {
+						pk.setTaskName("Browsing species " + (i + 1) + " of " + organisms.size());
+						try {
+							publish(completion.take().get());
+						} catch (ExecutionException e) {
+							Logger.log.error("Error browsing WikiPathways", e.getCause());
+							failed++;
+						}
+						pk.worked(1);
+					}
+				} finally {
+					executor.shutdownNow();
+				}
+				return failed;
+			}
+
+			protected void process(List<Set<WSPathwayInfo>> chunks) {
+				for (Set<WSPathwayInfo> chunk : chunks) {
+					List<WSPathwayInfo> added = new ArrayList<WSPathwayInfo>();
+					for (WSPathwayInfo info : chunk) {
+						if (ids.add(info.getId())) {
+							added.add(info);
+						}
+					}
+					browseModel.append(added);
+				}
+				lblNumFound.setText(browseModel.getRowCount() + " pathways found.");
+			}
+
+			protected void done() {
+				if (pk.isCancelled()) {
+					return;
+				}
+				try {
+					if (get() > 0) {
+						JOptionPane.showMessageDialog(thisPanel.getParent(), get() + " of " + organisms.size()
+								+ " species could not be browsed.", "Error", JOptionPane.ERROR_MESSAGE);
+					}
+				} catch (Exception e) {
+					JOptionPane.showMessageDialog(thisPanel.getParent(), e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+					Logger.log.error("Error browsing WikiPathways", e);
+				}
+			}
+		};
+		sw.execute();
+		d.setVisible(true);
+	}
+
+	/**
+	 * pathways of the species with all given tags, one call per tag
+	 */
+	private Set<WSPathwayInfo> browseTags(List<String> organisms, String collection, String curation, ProgressKeeper pk)
+			throws RemoteException, FailedConnectionException {
+		Set<WSPathwayInfo> pathways = new HashSet<WSPathwayInfo>();
+		Set<String> tagged = null;
+		for (String tag : new String[] { collection, curation }) {
+			if (tag == null) {
+				continue;
+			}
+			Set<String> tagIds = new HashSet<String>();
+			for (WSPathwayInfo info : plugin.getWpQueries().browseByCurationTag(tag, pk)) {
+				tagIds.add(info.getId());
+				if (tagged == null && organisms.contains(info.getSpecies())) {
+					pathways.add(info);
+				}
+			}
+			if (tagged == null) {
+				tagged = tagIds;
+			} else {
+				tagged.retainAll(tagIds);
+			}
+		}
+		Iterator<WSPathwayInfo> it = pathways.iterator();
+		while (it.hasNext()) {
+			if (!tagged.contains(it.next().getId())) {
+				it.remove();
+			}
+		}
+		return pathways;
+	}
 }
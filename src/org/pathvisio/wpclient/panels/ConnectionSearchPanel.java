@@ -0,0 +1,176 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.panels;
+
+import java.awt.BorderLayout;
+import java.awt.Font;
+import java.awt.event.ActionEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.File;
+
+import javax.swing.AbstractAction;
+import javax.swing.Action;
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JSpinner;
+import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.SpinnerNumberModel;
+import javax.swing.SwingWorker;
+
+import org.bridgedb.Xref;
+import org.pathvisio.libgpml.debug.Logger;
+import org.pathvisio.wikipathways.webservice.WSSearchResult;
+import org.pathvisio.wpclient.WikiPathwaysClientPlugin;
+import org.pathvisio.wpclient.actions.ExportPathwaysAction;
+import org.pathvisio.wpclient.impl.FederatedSearch;
+import org.pathvisio.wpclient.models.ConnectionTableModel;
+import org.pathvisio.wpclient.utils.FileUtils;
+
+import com.jgoodies.forms.layout.CellConstraints;
+import com.jgoodies.forms.layout.FormLayout;
+
+/**
+ * search tab for pathways with an interaction path from one
+ * identifier to another, answered from the local pathway store
+ * @author mkutmon
+ */
+public class ConnectionSearchPanel extends JPanel {
+
+	private WikiPathwaysClientPlugin plugin;
+
+	private JTextField txtFrom;
+	private JTextField txtTo;
+	private JSpinner spSteps;
+	private JTable resultTable;
+	private JScrollPane resultspane;
+	private JLabel lblNumFound;
+
+	public ConnectionSearchPanel(final WikiPathwaysClientPlugin plugin) {
+		this.plugin = plugin;
+		setLayout(new BorderLayout());
+
+		Action searchAction = new AbstractAction("Search") {
+			public void actionPerformed(ActionEvent e) {
+				search();
+			}
+		};
+
+		txtFrom = new JTextField();
+		txtFrom.addActionListener(searchAction);
+		txtTo = new JTextField();
+		txtTo.addActionListener(searchAction);
+		spSteps = new JSpinner(new SpinnerNumberModel(3, 1, 10, 1));
+
+		JLabel tipLabel = new JLabel("Enter identifiers as SystemCode:ID (e.g. L:1234), the pathways of the local store are searched");
+		tipLabel.setFont(new Font("SansSerif", Font.ITALIC, 11));
+
+		JPanel searchBox = new JPanel();
+		searchBox.setLayout(new FormLayout("p,3dlu,fill:pref:grow,3dlu,p,3dlu,fill:pref:grow,3dlu,p,3dlu,p,3dlu,p",
+				"pref, 4dlu, pref"));
+		searchBox.setBorder(BorderFactory.createTitledBorder(BorderFactory.createEtchedBorder(), "Search options"));
+		CellConstraints cc = new CellConstraints();
+		searchBox.add(new JLabel("From"), cc.xy(1, 1));
+		searchBox.add(txtFrom, cc.xy(3, 1));
+		searchBox.add(new JLabel("To"), cc.xy(5, 1));
+		searchBox.add(txtTo, cc.xy(7, 1));
+		searchBox.add(new JLabel("Max. steps"), cc.xy(9, 1));
+		searchBox.add(spSteps, cc.xy(11, 1));
+		searchBox.add(new JButton(searchAction), cc.xy(13, 1));
+		searchBox.add(tipLabel, cc.xyw(1, 3, 13));
+		add(searchBox, BorderLayout.NORTH);
+
+		// Center contains table model for results
+		resultTable = new JTable();
+		resultspane = new JScrollPane(resultTable);
+		resultspane.setBorder(BorderFactory.createTitledBorder(BorderFactory.createEtchedBorder(), "Pathways"));
+		JPanel resultPanel = new JPanel(new BorderLayout());
+		resultPanel.add(new FilterPanel(resultTable), BorderLayout.NORTH);
+		ExportPathwaysAction.install(plugin, resultTable);
+		resultPanel.add(resultspane, BorderLayout.CENTER);
+		add(resultPanel, BorderLayout.CENTER);
+
+		lblNumFound = new JLabel();
+		add(lblNumFound, BorderLayout.SOUTH);
+
+		resultTable.addMouseListener(new MouseAdapter() {
+			public void mouseClicked(MouseEvent e) {
+				if (e.getClickCount() == 2) {
+					JTable target = (JTable) e.getSource();
+					int row = target.convertRowIndexToModel(target.getSelectedRow());
+					ConnectionTableModel model = (ConnectionTableModel) target.getModel();
+					try {
+						File tmpDir = new File(plugin.getTmpDir(), FileUtils.getTimeStamp());
+						tmpDir.mkdirs();
+						// the nodes on the path are highlighted
+						plugin.openPathwayWithProgress(model.getValueAt(row, 0).toString(), 0, tmpDir, model.getPath(row));
+					} catch (Exception ex) {
+						JOptionPane.showMessageDialog(ConnectionSearchPanel.this, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+						Logger.log.error("Error", ex);
+					}
+				}
+			}
+		});
+	}
+
+	private void search() {
+		lblNumFound.setText("");
+		if (plugin.getLocalStore().isEmpty()) {
+			JOptionPane.showMessageDialog(this,
+					"Import a GPML archive first, the interactions are searched in the local pathway store.",
+					"Error", JOptionPane.ERROR_MESSAGE);
+			return;
+		}
+		// stores of older versions were saved without interactions
+		if (plugin.getLocalStore().getInteractionGraph().isEmpty()) {
+			JOptionPane.showMessageDialog(this,
+					"The local pathway store contains no interactions, import the GPML archive again to search connections.",
+					"Error", JOptionPane.ERROR_MESSAGE);
+			return;
+		}
+		final Xref from = FederatedSearch.toXref(txtFrom.getText());
+		final Xref to = FederatedSearch.toXref(txtTo.getText());
+		if (from == null || to == null) {
+			JOptionPane.showMessageDialog(this, "Enter Valid Xrefs ", "Error", JOptionPane.ERROR_MESSAGE);
+			return;
+		}
+		final int steps = (Integer) spSteps.getValue();
+
+		// the local search takes milliseconds, no progress dialog needed
+		new SwingWorker<WSSearchResult[], Void>() {
+			protected WSSearchResult[] doInBackground() throws Exception {
+				return plugin.getWpQueries().findConnectingPathways(from, to, steps, null);
+			}
+
+			protected void done() {
+				try {
+					WSSearchResult[] results = get();
+					resultTable.setModel(new ConnectionTableModel(results));
+					lblNumFound.setText(results.length + " pathways connect " + from + " to " + to + ".");
+				} catch (Exception ex) {
+					JOptionPane.showMessageDialog(ConnectionSearchPanel.this, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+					Logger.log.error("Error searching connecting pathways", ex);
+				}
+			}
+		}.execute();
+	}
+}
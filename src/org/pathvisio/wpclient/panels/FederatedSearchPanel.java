@@ -0,0 +1,216 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.panels;
+
+import java.awt.BorderLayout;
+import java.awt.Font;
+import java.awt.event.ActionEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import javax.swing.AbstractAction;
+import javax.swing.Action;
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.SwingUtilities;
+
+import org.bridgedb.Xref;
+import org.pathvisio.libgpml.debug.Logger;
+import org.pathvisio.wikipathways.webservice.WSSearchResult;
+import org.pathvisio.wpclient.WikiPathwaysClientPlugin;
+import org.pathvisio.wpclient.actions.ExportPathwaysAction;
+import org.pathvisio.wpclient.impl.FederatedSearch;
+import org.pathvisio.wpclient.impl.FederatedSearch.Source;
+import org.pathvisio.wpclient.models.FederatedResultTableModel;
+import org.pathvisio.wpclient.utils.FileUtils;
+
+import com.jgoodies.forms.layout.CellConstraints;
+import com.jgoodies.forms.layout.FormLayout;
+
+/**
+ * single search box that searches by keyword, pathway id, identifier
+ * and literature reference at the same time, the results are merged
+ * into one table while the searches finish
+ * @author mkutmon
+ */
+public class FederatedSearchPanel extends JPanel {
+
+	private WikiPathwaysClientPlugin plugin;
+	private FederatedSearch federatedSearch;
+
+	private JTextField searchField;
+	private JTable resultTable;
+	private JScrollPane resultspane;
+	private JLabel lblNumFound;
+
+	// state of the running search
+	private FederatedResultTableModel model;
+	private List<Future<?>> running = new ArrayList<Future<?>>();
+	private int pending;
+	private List<String> failed = new ArrayList<String>();
+	private Xref[] queryXrefs;
+
+	public FederatedSearchPanel(final WikiPathwaysClientPlugin plugin) {
+		this.plugin = plugin;
+		this.federatedSearch = new FederatedSearch(plugin.getWpQueries());
+		setLayout(new BorderLayout());
+
+		Action searchAction = new AbstractAction("Search") {
+			public void actionPerformed(ActionEvent e) {
+				resultspane.setBorder(BorderFactory.createTitledBorder(BorderFactory.createEtchedBorder(), "Pathways"));
+				search();
+			}
+		};
+
+		searchField = new JTextField();
+		searchField.setToolTipText("Enter a keyword, pathway id, identifier or publication");
+		searchField.addActionListener(searchAction);
+
+		JLabel tipLabel = new JLabel("Tip: searches all tabs at once (e.g.: 'Apoptosis', 'WP254', 'L:1234', '18651794')");
+		tipLabel.setFont(new Font("SansSerif", Font.ITALIC, 11));
+
+		JPanel searchOptBox = new JPanel();
+		FormLayout layout = new FormLayout("p,3dlu,fill:pref:grow,3dlu,pref", "p, 2dlu, p");
+		CellConstraints cc = new CellConstraints();
+
+		searchOptBox.setLayout(layout);
+		searchOptBox.setBorder(BorderFactory.createTitledBorder(BorderFactory.createEtchedBorder(), "Search options"));
+		searchOptBox.add(new JLabel("Search For:"), cc.xy(1, 1));
+		searchOptBox.add(searchField, cc.xy(3, 1));
+		searchOptBox.add(new JButton(searchAction), cc.xy(5, 1));
+		searchOptBox.add(tipLabel, cc.xyw(1, 3, 5));
+
+		add(searchOptBox, BorderLayout.NORTH);
+
+		// Center contains table model for results
+		resultTable = new JTable();
+		resultspane = new JScrollPane(resultTable);
+		JPanel resultPanel = new JPanel(new BorderLayout());
+		resultPanel.add(new FilterPanel(resultTable), BorderLayout.NORTH);
+		ExportPathwaysAction.install(plugin, resultTable);
+		resultPanel.add(resultspane, BorderLayout.CENTER);
+		add(resultPanel, BorderLayout.CENTER);
+
+		lblNumFound = new JLabel();
+		add(lblNumFound, BorderLayout.SOUTH);
+
+		resultTable.addMouseListener(new MouseAdapter() {
+			public void mouseClicked(MouseEvent e) {
+				if (e.getClickCount() == 2) {
+					JTable target = (JTable) e.getSource();
+					int row = target.convertRowIndexToModel(target.getSelectedRow());
+
+					File tmpDir = new File(plugin.getTmpDir(), FileUtils.getTimeStamp());
+					tmpDir.mkdirs();
+
+					try {
+						String id = target.getModel().getValueAt(row, 0).toString();
+						// highlights the searched identifier in the pathway
+						if (queryXrefs != null) {
+							plugin.openPathwayWithProgress(id, 0, tmpDir, queryXrefs);
+						} else {
+							plugin.openPathwayWithProgress(id, 0, tmpDir);
+						}
+					} catch (Exception ex) {
+						JOptionPane.showMessageDialog(FederatedSearchPanel.this, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+						Logger.log.error("Error", ex);
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * starts all searches for the query, a running search is cancelled
+	 */
+	private void search() {
+		String query = searchField.getText().trim();
+		if (query.isEmpty()) {
+			JOptionPane.showMessageDialog(this, "Please enter a search query", "Error", JOptionPane.ERROR_MESSAGE);
+			return;
+		}
+		for (Future<?> f : running) {
+			f.cancel(true);
+		}
+
+		List<Source> sources = FederatedSearch.classify(query);
+		Xref xref = FederatedSearch.toXref(query);
+		queryXrefs = xref == null ? null : new Xref[] { xref };
+
+		final FederatedResultTableModel searchModel = new FederatedResultTableModel(sources);
+		model = searchModel;
+		pending = sources.size();
+		failed.clear();
+		resultTable.setModel(model);
+		updateStatus();
+
+		// the listener is called on the search threads, results of a
+		// search that has been replaced by a newer one are dropped
+		running = federatedSearch.search(query, new FederatedSearch.Listener() {
+			public void found(final Source source, final WSSearchResult[] results) {
+				SwingUtilities.invokeLater(new Runnable() {
+					public void run() {
+						if (model == searchModel) {
+							model.add(source, results);
+							pending--;
+							updateStatus();
+						}
+					}
+				});
+			}
+
+			public void failed(final Source source, final Exception e) {
+				Logger.log.error("Error searching WikiPathways by " + source.getLabel(), e);
+				SwingUtilities.invokeLater(new Runnable() {
+					public void run() {
+						if (model == searchModel) {
+							failed.add(source.getLabel());
+							pending--;
+							updateStatus();
+						}
+					}
+				});
+			}
+		});
+	}
+
+	private void updateStatus() {
+		StringBuilder text = new StringBuilder();
+		text.append(model.getRowCount() + " pathways found.");
+		if (pending > 0) {
+			text.append(" Searching...");
+		}
+		if (!failed.isEmpty()) {
+			text.append(" Could not search by");
+			for (int i = 0; i < failed.size(); i++) {
+				text.append(i == 0 ? " " : ", ").append(failed.get(i));
+			}
+			text.append(".");
+		}
+		lblNumFound.setText(text.toString());
+	}
+}
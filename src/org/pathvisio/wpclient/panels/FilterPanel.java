@@ -0,0 +1,133 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.panels;
+
+import java.awt.BorderLayout;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.BitSet;
+
+import javax.swing.BorderFactory;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.RowFilter;
+import javax.swing.SwingUtilities;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import javax.swing.table.TableModel;
+import javax.swing.table.TableRowSorter;
+
+import org.pathvisio.wpclient.models.TrigramIndex;
+
+/**
+ * filter box for a result table, rows are filtered while typing
+ * 
+ * a {@link TrigramIndex} over the id, name and species column
+ * is built whenever the table gets new content, so every keystroke
+ * only intersects a few row lists
+ * @author mkutmon
+ */
+public class FilterPanel extends JPanel {
+
+	private static final int[] COLUMNS = new int[] { 0, 1, 2 };
+
+	private JTable table;
+	private JTextField filterField;
+	private TrigramIndex index;
+	private TableRowSorter<TableModel> sorter;
+
+	private TableModelListener modelListener = new TableModelListener() {
+		public void tableChanged(TableModelEvent e) {
+			// values of other columns that are loaded later do not change the filter
+			if(e.getType() == TableModelEvent.UPDATE && e.getColumn() > COLUMNS[COLUMNS.length - 1]) {
+				return;
+			}
+			index = null;
+			// let the sorter process the change before filtering again
+			SwingUtilities.invokeLater(new Runnable() {
+				public void run() {
+					applyFilter();
+				}
+			});
+		}
+	};
+
+	public FilterPanel(JTable table) {
+		this.table = table;
+		setLayout(new BorderLayout(3, 0));
+		setBorder(BorderFactory.createEmptyBorder(2, 0, 2, 0));
+
+		filterField = new JTextField();
+		filterField.setToolTipText("Show only pathways whose id, name or species contains this text");
+		add(new JLabel("Filter:"), BorderLayout.WEST);
+		add(filterField, BorderLayout.CENTER);
+
+		filterField.getDocument().addDocumentListener(new DocumentListener() {
+			public void insertUpdate(DocumentEvent e) {
+				applyFilter();
+			}
+
+			public void removeUpdate(DocumentEvent e) {
+				applyFilter();
+			}
+
+			public void changedUpdate(DocumentEvent e) {
+				applyFilter();
+			}
+		});
+
+		table.addPropertyChangeListener("model", new PropertyChangeListener() {
+			public void propertyChange(PropertyChangeEvent evt) {
+				if(evt.getOldValue() instanceof TableModel) {
+					((TableModel) evt.getOldValue()).removeTableModelListener(modelListener);
+				}
+				modelChanged();
+			}
+		});
+		modelChanged();
+	}
+
+	private void modelChanged() {
+		TableModel model = table.getModel();
+		model.addTableModelListener(modelListener);
+		index = null;
+		sorter = new TableRowSorter<TableModel>(model);
+		table.setRowSorter(sorter);
+		applyFilter();
+	}
+
+	private void applyFilter() {
+		String text = filterField.getText().trim();
+		if(text.isEmpty() || table.getModel().getColumnCount() < COLUMNS.length) {
+			sorter.setRowFilter(null);
+			return;
+		}
+		if(index == null) {
+			index = new TrigramIndex(table.getModel(), COLUMNS);
+		}
+		final BitSet matches = index.match(text);
+		sorter.setRowFilter(new RowFilter<TableModel, Integer>() {
+			public boolean include(Entry<? extends TableModel, ? extends Integer> entry) {
+				return matches.get(entry.getIdentifier());
+			}
+		});
+	}
+}
@@ -20,19 +20,17 @@ import java.awt.BorderLayout;
 import java.awt.CardLayout;
 import java.awt.Font;
 import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.io.File;
-import java.net.MalformedURLException;
-import java.rmi.RemoteException;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
 
 import javax.swing.AbstractAction;
 import javax.swing.Action;
 import javax.swing.BorderFactory;
+import javax.swing.DefaultComboBoxModel;
 import javax.swing.JComboBox;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
@@ -41,16 +39,20 @@ import javax.swing.JScrollPane;
 import javax.swing.JTable;
 import javax.swing.JTextField;
 import javax.swing.SwingWorker;
-import javax.xml.rpc.ServiceException;
+import javax.swing.Timer;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 
 import org.bridgedb.bio.Organism;
 import org.pathvisio.libgpml.debug.Logger;
-import org.pathvisio.core.util.ProgressKeeper;
-import org.pathvisio.gui.ProgressDialog;
 import org.pathvisio.wikipathways.webservice.WSSearchResult;
-import org.pathvisio.wpclient.FailedConnectionException;
 import org.pathvisio.wpclient.WikiPathwaysClientPlugin;
+import org.pathvisio.wpclient.actions.ExportPathwaysAction;
+import org.pathvisio.wpclient.dialogs.SuggestionDialog;
 import org.pathvisio.wpclient.models.ResultTableModel;
+import org.pathvisio.wpclient.store.LocalStore;
 import org.pathvisio.wpclient.utils.FileUtils;
 
 import com.jgoodies.forms.builder.DefaultFormBuilder;
@@ -75,38 +77,68 @@ public class KeywordSearchPanel extends JPanel {
 	private JLabel tipLabel;
 	private JLabel lblNumFound;
 
-	public KeywordSearchPanel(final WikiPathwaysClientPlugin plugin) throws MalformedURLException, ServiceException, RemoteException, FailedConnectionException {
+	private static final int SEARCH_DELAY = 300;
+	private static final int MIN_LIVE_QUERY = 3;
+
+	private Timer searchTimer;
+	private SwingWorker<WSSearchResult[], Void> runningSearch;
+
+	// updates the species combo box when the organism list has been refreshed
+	private ChangeListener organismListener = new ChangeListener() {
+		public void stateChanged(ChangeEvent e) {
+			updateOrganisms();
+		}
+	};
+
+	public KeywordSearchPanel(final WikiPathwaysClientPlugin plugin) {
 		this.plugin = plugin;
 		setLayout(new BorderLayout());
 
 		Action searchAction = new AbstractAction("Search") {
 			public void actionPerformed(ActionEvent e) {
-				try {
-					resultspane.setBorder(BorderFactory.createTitledBorder(BorderFactory.createEtchedBorder(), "Pathways"));
-					search();
-				} catch (Exception ex) {
-					JOptionPane
-							.showMessageDialog(KeywordSearchPanel.this,
-									ex.getMessage(), "Error",
-									JOptionPane.ERROR_MESSAGE);
-					Logger.log.error("Error searching WikiPathways", ex);
-				}
+				resultspane.setBorder(BorderFactory.createTitledBorder(BorderFactory.createEtchedBorder(), "Pathways"));
+				search(true);
 			}
 		};
 
+		// live search, starts when typing or selecting a species has paused
+		searchTimer = new Timer(SEARCH_DELAY, new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				resultspane.setBorder(BorderFactory.createTitledBorder(BorderFactory.createEtchedBorder(), "Pathways"));
+				search(false);
+			}
+		});
+		searchTimer.setRepeats(false);
+
 		searchField = new JTextField();
 		searchField
 				.setToolTipText("Enter any search query (e.g. 'Apoptosis' or 'P53').");
 		searchField.addActionListener(searchAction);
+		searchField.getDocument().addDocumentListener(new DocumentListener() {
+			public void insertUpdate(DocumentEvent e) {
+				searchTimer.restart();
+			}
+
+			public void removeUpdate(DocumentEvent e) {
+				searchTimer.restart();
+			}
+
+			public void changedUpdate(DocumentEvent e) {
+				searchTimer.restart();
+			}
+		});
 		tipLabel = new JLabel(
 				"Tip: use AND, OR, *, ?, parentheses or quotes (e.g.: 'Apoptosis or P53' , 'DNA*')");
 		tipLabel.setFont(new Font("SansSerif", Font.ITALIC, 11));
 
-		// preparing List Of Organisms to load in species combobox
-		List<String> org = retrieveOrgansims();
-
-		organismOpt = new JComboBox(org.toArray());
-		organismOpt.addActionListener(searchAction);
+		// species combobox is filled from the organism cache
+		organismOpt = new JComboBox();
+		updateOrganisms();
+		organismOpt.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				searchTimer.restart();
+			}
+		});
 		DefaultFormBuilder idOptBuilder = new DefaultFormBuilder(
 				new FormLayout("right:pref, 3dlu,right:pref"));
 		idOptBuilder.append("Species:", organismOpt);
@@ -139,8 +171,12 @@ public class KeywordSearchPanel extends JPanel {
 		// prepare result Table
 		resultTable = new JTable();
 		resultspane = new JScrollPane(resultTable);
+		JPanel resultPanel = new JPanel(new BorderLayout());
+		resultPanel.add(new FilterPanel(resultTable), BorderLayout.NORTH);
+		ExportPathwaysAction.install(plugin, resultTable);
+		resultPanel.add(resultspane, BorderLayout.CENTER);
 
-		add(resultspane, BorderLayout.CENTER);
+		add(resultPanel, BorderLayout.CENTER);
 		lblNumFound = new JLabel();
 		add (lblNumFound, BorderLayout.SOUTH);
 		searchField.requestDefaultFocus();
@@ -150,7 +186,7 @@ public class KeywordSearchPanel extends JPanel {
 				// on double click
 				if (e.getClickCount() == 2) {
 					JTable target = (JTable) e.getSource();
-					int row = target.getSelectedRow();
+					int row = target.convertRowIndexToModel(target.getSelectedRow());
 					ResultTableModel model = (ResultTableModel) target
 							.getModel();
 
@@ -171,82 +207,134 @@ public class KeywordSearchPanel extends JPanel {
 	}
 	
 	/**
-	 * returns list of organisms for combo box
-	 * retrieves data from wikipathways
+	 * fills the species combo box from the shared organism cache
+	 * and keeps the current selection
 	 */
-	private List<String> retrieveOrgansims() throws RemoteException, FailedConnectionException {
-		List<String> list = new ArrayList<String>();
-
+	private void updateOrganisms() {
+		Object selected = organismOpt.getSelectedItem();
+		DefaultComboBoxModel model = new DefaultComboBoxModel();
 		// first element in list is "All species"
-		list.add("All species");
-		
-		// retrieve list of organisms from WikiPathways
-		List<String> organsims = plugin.getWpQueries().listOrganisms(null);
-		Collections.sort(organsims);
-		list.addAll(1, organsims);
-		
-		return list;
+		model.addElement("All species");
+		for (String organism : plugin.getOrganismCache().getOrganisms()) {
+			model.addElement(organism);
+		}
+		// changing the model must not trigger a search
+		ActionListener[] listeners = organismOpt.getActionListeners();
+		for (ActionListener l : listeners) {
+			organismOpt.removeActionListener(l);
+		}
+		organismOpt.setModel(model);
+		if (selected != null) {
+			organismOpt.setSelectedItem(selected);
+		}
+		for (ActionListener l : listeners) {
+			organismOpt.addActionListener(l);
+		}
+	}
+
+	@Override
+	public void addNotify() {
+		super.addNotify();
+		plugin.getOrganismCache().addChangeListener(organismListener);
+	}
+
+	@Override
+	public void removeNotify() {
+		plugin.getOrganismCache().removeChangeListener(organismListener);
+		super.removeNotify();
+	}
+
+	/**
+	 * offers a spelling correction of the query and similar pathway
+	 * titles from the local store if the search did not find anything
+	 */
+	private void suggestQueries(String query) {
+		List<String> suggestions = new ArrayList<String>();
+		LocalStore store = plugin.getLocalStore();
+		if (!store.isEmpty()) {
+			String corrected = store.getFuzzyMatcher().correct(query);
+			if (corrected != null) {
+				suggestions.add(corrected);
+			}
+			for (String title : store.getFuzzyMatcher().suggestTitles(query, 5)) {
+				if (!suggestions.contains(title)) {
+					suggestions.add(title);
+				}
+			}
+		}
+		String choice = SuggestionDialog.showSuggestions(plugin.getDesktop().getFrame(), suggestions);
+		if (choice != null) {
+			searchField.setText(choice);
+			searchField.postActionEvent();
+		}
 	}
 
 	/**
 	 * Search method for- Search for pathways by name, pathway element labels
 	 * Search of pathways belonging to specific species
 	 * 
-	 * @throws ServiceException
-	 * @throws MalformedURLException
+	 * a running search is cancelled, earlier queries are answered
+	 * from the query cache behind the webservice queries
+	 * 
+	 * @param explicit true if the user pressed enter, only then an empty
+	 * query is reported and suggestions are shown for zero results
 	 */
-	private void search() throws RemoteException, InterruptedException, ExecutionException, MalformedURLException, ServiceException {
-		lblNumFound.setText("");
-		final String query = searchField.getText();
-
-		if (!query.isEmpty()) {
-			final ProgressKeeper pk = new ProgressKeeper();
-			final ProgressDialog d = new ProgressDialog(
-					JOptionPane.getFrameForComponent(this), "", pk, true, true);
-
-			SwingWorker<WSSearchResult[], Void> sw = new SwingWorker<WSSearchResult[], Void>() {
-				WSSearchResult[] results ;
+	private void search(final boolean explicit) {
+		searchTimer.stop();
+		final String query = searchField.getText().trim();
+		if (query.isEmpty() || (!explicit && query.length() < MIN_LIVE_QUERY)) {
+			if (explicit) {
+				JOptionPane.showMessageDialog(plugin.getDesktop().getFrame(), "Please Enter a Search Query",
+						"Error", JOptionPane.ERROR_MESSAGE);
+			}
+			return;
+		}
+		final String organism = organismOpt.getSelectedItem().toString();
 
-				protected WSSearchResult[] doInBackground() throws Exception {
-					pk.setTaskName("Starting Search");
+		// results of an older query must never reach the table
+		if (runningSearch != null) {
+			runningSearch.cancel(true);
+			runningSearch = null;
+		}
 
-					try {
-						if (organismOpt.getSelectedItem().toString().equalsIgnoreCase("ALL SPECIES")) {
-							pk.setTaskName("Searching in "
-									+ organismOpt.getSelectedItem().toString());
-							results = plugin.getWpQueries().findByText(query, pk);
-
-						} else {
-							pk.setTaskName("Searching");
-							Organism org = Organism.fromLatinName(organismOpt.getSelectedItem().toString());
-							results = plugin.getWpQueries().findByTextInOrganism(query, org, pk);
-						}
-					} finally {
-						pk.finished();
-					}
-					return results;
+		lblNumFound.setText("Searching...");
+		runningSearch = new SwingWorker<WSSearchResult[], Void>() {
+			protected WSSearchResult[] doInBackground() throws Exception {
+				if (organism.equalsIgnoreCase("ALL SPECIES")) {
+					return plugin.getWpQueries().findByText(query, null);
+				} else {
+					Organism org = Organism.fromLatinName(organism);
+					return plugin.getWpQueries().findByTextInOrganism(query, org, null);
 				}
+			}
 
-				protected void done() {
-					if (!pk.isCancelled()) {
-						if (results.length == 0) {
-							JOptionPane.showMessageDialog(plugin.getDesktop().getFrame(),
-									"0 results found");
-						}
-					} else if (pk.isCancelled()) {
-						pk.finished();
+			protected void done() {
+				if (isCancelled() || runningSearch != this) {
+					return;
+				}
+				runningSearch = null;
+				try {
+					WSSearchResult[] results = get();
+					showResults(query, results, explicit);
+				} catch (Exception ex) {
+					lblNumFound.setText("");
+					Logger.log.error("Error searching WikiPathways", ex);
+					if (explicit) {
+						JOptionPane.showMessageDialog(KeywordSearchPanel.this,
+								"Could not connect to WikiPathways to retrieve result.", "Error",
+								JOptionPane.ERROR_MESSAGE);
 					}
 				}
-			};
-
-			sw.execute();
-			d.setVisible(true);
+			}
+		};
+		runningSearch.execute();
+	}
 
-			resultTable.setModel(new ResultTableModel(sw.get()));
-			lblNumFound.setText(sw.get().length + " pathways found.");
-		} else {
-			JOptionPane.showMessageDialog(plugin.getDesktop().getFrame(), "Please Enter a Search Query",
-					"Error", JOptionPane.ERROR_MESSAGE);
+	private void showResults(String query, WSSearchResult[] results, boolean explicit) {
+		resultTable.setModel(new ResultTableModel(results));
+		lblNumFound.setText(results.length + " pathways found.");
+		if (results.length == 0 && explicit) {
+			suggestQueries(query);
 		}
 	}
 
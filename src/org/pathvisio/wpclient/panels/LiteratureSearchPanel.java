@@ -45,6 +45,7 @@ import org.pathvisio.gui.ProgressDialog;
 import org.pathvisio.wikipathways.webservice.WSIndexField;
 import org.pathvisio.wikipathways.webservice.WSSearchResult;
 import org.pathvisio.wpclient.WikiPathwaysClientPlugin;
+import org.pathvisio.wpclient.actions.ExportPathwaysAction;
 import org.pathvisio.wpclient.utils.FileUtils;
 import org.pathvisio.wpclient.validators.Validator;
 
@@ -108,8 +109,12 @@ public class LiteratureSearchPanel extends JPanel {
 		// Center contains table model for results
 		resultTable = new JTable();
 		resultspane = new JScrollPane(resultTable);
+		JPanel resultPanel = new JPanel(new BorderLayout());
+		resultPanel.add(new FilterPanel(resultTable), BorderLayout.NORTH);
+		ExportPathwaysAction.install(plugin, resultTable);
+		resultPanel.add(resultspane, BorderLayout.CENTER);
 
-		add(resultspane, BorderLayout.CENTER);
+		add(resultPanel, BorderLayout.CENTER);
 
 		lblNumFound = new JLabel();
 		add (lblNumFound, BorderLayout.SOUTH);
@@ -118,7 +123,7 @@ public class LiteratureSearchPanel extends JPanel {
 			public void mouseClicked(MouseEvent e) {
 				if (e.getClickCount() == 2) {
 					JTable target = (JTable) e.getSource();
-					int row = target.getSelectedRow();
+					int row = target.convertRowIndexToModel(target.getSelectedRow());
 					
 					try {				
 						LiteratureResultTableModel	model = (LiteratureResultTableModel) target.getModel();
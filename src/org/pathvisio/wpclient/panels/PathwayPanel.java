@@ -26,13 +26,17 @@ import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTable;
+import javax.swing.table.TableModel;
 import javax.xml.rpc.ServiceException;
 
 import org.bridgedb.Xref;
 import org.pathvisio.libgpml.debug.Logger;
 import org.pathvisio.wikipathways.webservice.WSSearchResult;
 import org.pathvisio.wpclient.WikiPathwaysClientPlugin;
+import org.pathvisio.wpclient.actions.ExportPathwaysAction;
+import org.pathvisio.wpclient.impl.WSResult;
 import org.pathvisio.wpclient.models.ResultTableModel;
+import org.pathvisio.wpclient.models.XrefResultTableModel;
 
 /**
  * This class creates the Table Model List containing the pathways  
@@ -45,6 +49,18 @@ public class PathwayPanel extends JPanel {
 	private JScrollPane resultspane;	
 	
 	public PathwayPanel(final WikiPathwaysClientPlugin plugin, WSSearchResult[] wsp, final File tmpDir,final Xref[] xref) throws MalformedURLException, ServiceException  {
+		this(plugin, new ResultTableModel(wsp), tmpDir, xref);
+	}
+
+	/**
+	 * results of a search for several xrefs with the number of
+	 * xrefs found in each pathway
+	 */
+	public PathwayPanel(final WikiPathwaysClientPlugin plugin, WSResult[] results, final File tmpDir,final Xref[] xref) {
+		this(plugin, new XrefResultTableModel(results), tmpDir, xref);
+	}
+
+	private PathwayPanel(final WikiPathwaysClientPlugin plugin, TableModel tableModel, final File tmpDir,final Xref[] xref) {
 		setLayout(new BorderLayout());	
 		JPanel searchOptBox = new JPanel();
 		
@@ -52,7 +68,8 @@ public class PathwayPanel extends JPanel {
 
 		// Center contains table model for results
 		resultTable = new JTable();
-		resultTable.setModel(new ResultTableModel(wsp));
+		resultTable.setModel(tableModel);
+		ExportPathwaysAction.install(plugin, resultTable);
 		
 		resultspane = new JScrollPane(resultTable);
 
@@ -63,7 +80,7 @@ public class PathwayPanel extends JPanel {
 				if (e.getClickCount() == 2) {
 					JTable target = (JTable) e.getSource();
 					int row = target.getSelectedRow();
-					ResultTableModel model = (ResultTableModel ) target.getModel();
+					TableModel model = target.getModel();
 					
 					tmpDir.mkdirs();
 					
@@ -25,6 +25,7 @@ import java.io.File;
 import java.net.MalformedURLException;
 import java.rmi.RemoteException;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 
 import javax.swing.AbstractAction;
@@ -46,7 +47,10 @@ import org.pathvisio.gui.ProgressDialog;
 import org.pathvisio.wikipathways.webservice.WSPathwayInfo;
 import org.pathvisio.wikipathways.webservice.WSSearchResult;
 import org.pathvisio.wpclient.WikiPathwaysClientPlugin;
+import org.pathvisio.wpclient.actions.ExportPathwaysAction;
+import org.pathvisio.wpclient.dialogs.SuggestionDialog;
 import org.pathvisio.wpclient.models.ResultTableModel;
+import org.pathvisio.wpclient.store.LocalStore;
 import org.pathvisio.wpclient.utils.FileUtils;
 import org.pathvisio.wpclient.validators.Validator;
 
@@ -130,8 +134,12 @@ public class PathwaySearchPanel extends JPanel {
 		// Center contains table model for results
 		resultTable = new JTable();
 		resultspane = new JScrollPane(resultTable);
+		JPanel resultPanel = new JPanel(new BorderLayout());
+		resultPanel.add(new FilterPanel(resultTable), BorderLayout.NORTH);
+		ExportPathwaysAction.install(plugin, resultTable);
+		resultPanel.add(resultspane, BorderLayout.CENTER);
 
-		add(resultspane, BorderLayout.CENTER);
+		add(resultPanel, BorderLayout.CENTER);
 		lblNumFound = new JLabel();
 		add (lblNumFound, BorderLayout.SOUTH);
 		pTitleOrId.requestDefaultFocus();
@@ -140,7 +148,7 @@ public class PathwaySearchPanel extends JPanel {
 			public void mouseClicked(MouseEvent e) {
 				if (e.getClickCount() == 2) {
 					JTable target = (JTable) e.getSource();
-					int row = target.getSelectedRow();
+					int row = target.convertRowIndexToModel(target.getSelectedRow());
 
 					try {
 						if (flag == 1) {
@@ -171,7 +179,8 @@ public class PathwaySearchPanel extends JPanel {
 		lblNumFound.setText("");
 		final String query = pTitleOrId.getText();
 		if (!query.isEmpty()) {
-			if (Validator.CheckNonAlpha(query)) {
+			// the local title index does not need to escape special characters
+			if (!plugin.getLocalStore().isEmpty() || Validator.CheckNonAlpha(query)) {
 				final ProgressKeeper pk = new ProgressKeeper();
 				final ProgressDialog d = new ProgressDialog(JOptionPane.getFrameForComponent(this), "", pk, true, true);
 				
@@ -184,6 +193,18 @@ public class PathwaySearchPanel extends JPanel {
 
 						int i = 0;
 						ArrayList<WSSearchResult> results2 = new ArrayList<WSSearchResult>();
+						LocalStore store = plugin.getLocalStore();
+						if (!store.isEmpty()) {
+							// answer from the local title index
+							try {
+								pk.setTaskName("Searching By Pathway Title");
+								results = store.findByTitle(query);
+							} finally {
+								pk.finished();
+							}
+							return results;
+						}
+
 						try {
 							pk.setTaskName("Searching By Pathway Title");
 							results = plugin.getWpQueries().findByText(query, pk);
@@ -206,11 +227,7 @@ public class PathwaySearchPanel extends JPanel {
 					}
 
 					protected void done() {
-						if (!pk.isCancelled()) {
-							if (results.length == 0) {
-								JOptionPane.showMessageDialog(plugin.getDesktop().getFrame(), "0 results found");
-							}
-						} else if (pk.isCancelled()) {
+						if (pk.isCancelled()) {
 							pk.finished();
 						}
 					}
@@ -218,8 +235,14 @@ public class PathwaySearchPanel extends JPanel {
 
 				sw.execute();
 				d.setVisible(true);
-				resultTable.setModel(new ResultTableModel(sw.get()));
-				lblNumFound.setText(sw.get().length + " pathways found.");
+				WSSearchResult[] results = sw.get();
+				resultTable.setModel(new ResultTableModel(results));
+				lblNumFound.setText(results.length + " pathways found.");
+				// after the results are shown, a search started from the
+				// suggestions can not be overwritten by this one
+				if (!pk.isCancelled() && results.length == 0) {
+					suggestTitles(query);
+				}
 			} else {
 				JOptionPane.showMessageDialog(plugin.getDesktop().getFrame(),
 						"Please Enter a Valid Title", "ERROR",
@@ -231,6 +254,23 @@ public class PathwaySearchPanel extends JPanel {
 		}
 	}
 
+	/**
+	 * offers similar pathway titles from the local store
+	 * if a title search did not find anything
+	 */
+	private void suggestTitles(String query) {
+		List<String> titles = new ArrayList<String>();
+		LocalStore store = plugin.getLocalStore();
+		if (!store.isEmpty()) {
+			titles = store.getFuzzyMatcher().suggestTitles(query, 10);
+		}
+		String choice = SuggestionDialog.showSuggestions(plugin.getDesktop().getFrame(), titles);
+		if (choice != null) {
+			pTitleOrId.setText(choice);
+			pTitleOrId.postActionEvent();
+		}
+	}
+
 	private void searchByID() throws RemoteException, InterruptedException, ExecutionException, MalformedURLException, ServiceException {
 		lblNumFound.setText("");
 		final String query = pTitleOrId.getText();
@@ -0,0 +1,100 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.panels;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+
+import javax.swing.BorderFactory;
+import javax.swing.ImageIcon;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.SwingConstants;
+import javax.swing.event.ListSelectionEvent;
+import javax.swing.event.ListSelectionListener;
+
+import org.pathvisio.wpclient.impl.ThumbnailCache;
+
+/**
+ * shows a preview image of the pathway selected in a result
+ * table, the pathway id has to be in the first column
+ * @author mkutmon
+ */
+public class PreviewPanel extends JPanel implements ThumbnailCache.Listener {
+
+	private ThumbnailCache cache;
+	private JTable table;
+	private JLabel image;
+	private String id;
+
+	public PreviewPanel(ThumbnailCache cache, JTable table) {
+		this.cache = cache;
+		this.table = table;
+		setLayout(new BorderLayout());
+		setBorder(BorderFactory.createTitledBorder(BorderFactory.createEtchedBorder(), "Preview"));
+
+		image = new JLabel("", SwingConstants.CENTER);
+		JScrollPane scroll = new JScrollPane(image);
+		scroll.setBorder(BorderFactory.createEmptyBorder());
+		scroll.setPreferredSize(new Dimension(ThumbnailCache.PREVIEW_SIZE + 10, ThumbnailCache.PREVIEW_SIZE + 10));
+		add(scroll, BorderLayout.CENTER);
+
+		table.getSelectionModel().addListSelectionListener(new ListSelectionListener() {
+			public void valueChanged(ListSelectionEvent e) {
+				if(!e.getValueIsAdjusting()) {
+					update();
+				}
+			}
+		});
+	}
+
+	private void update() {
+		int row = table.getSelectedRow();
+		String selected = null;
+		if(row != -1 && table.getSelectedRowCount() == 1) {
+			Object value = table.getModel().getValueAt(table.convertRowIndexToModel(row), 0);
+			selected = value == null ? null : value.toString();
+		}
+		if(selected != null && selected.equals(id)) {
+			return;
+		}
+		id = selected;
+		image.setIcon(null);
+		if(id == null) {
+			image.setText("");
+		} else {
+			image.setText("Loading preview...");
+			cache.requestPreview(id, this);
+		}
+	}
+
+	@Override
+	public void imageReady(String id, BufferedImage preview) {
+		// the selection may have changed in the meantime
+		if(id.equals(this.id)) {
+			if(preview == null) {
+				image.setText("No preview available");
+			} else {
+				image.setText("");
+				image.setIcon(new ImageIcon(preview));
+			}
+		}
+	}
+}
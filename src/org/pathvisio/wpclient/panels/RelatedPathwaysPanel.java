@@ -0,0 +1,194 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.panels;
+
+import java.awt.BorderLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.AbstractAction;
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.SwingWorker;
+import javax.swing.table.AbstractTableModel;
+
+import org.bridgedb.Xref;
+import org.pathvisio.core.ApplicationEvent;
+import org.pathvisio.core.Engine.ApplicationEventListener;
+import org.pathvisio.libgpml.debug.Logger;
+import org.pathvisio.libgpml.model.DataNode;
+import org.pathvisio.libgpml.model.PathwayModel;
+import org.pathvisio.wikipathways.webservice.WSSearchResult;
+import org.pathvisio.wpclient.WikiPathwaysClientPlugin;
+import org.pathvisio.wpclient.utils.FileUtils;
+
+/**
+ * side bar panel that lists the pathways sharing genes and metabolites
+ * with the open pathway, computed from the local pathway store
+ * @author mkutmon
+ */
+public class RelatedPathwaysPanel extends JPanel implements ApplicationEventListener {
+
+	private static final int MAX_RESULTS = 25;
+
+	private WikiPathwaysClientPlugin plugin;
+	private JTable resultTable;
+	private JLabel lblNumFound;
+	private SwingWorker<WSSearchResult[], Void> runningSearch;
+
+	public RelatedPathwaysPanel(final WikiPathwaysClientPlugin plugin) {
+		this.plugin = plugin;
+		setLayout(new BorderLayout());
+
+		resultTable = new JTable(new RelatedTableModel(new WSSearchResult[0]));
+		add(new JScrollPane(resultTable), BorderLayout.CENTER);
+
+		JPanel south = new JPanel(new BorderLayout());
+		lblNumFound = new JLabel();
+		south.add(lblNumFound, BorderLayout.CENTER);
+		south.add(new JButton(new AbstractAction("Refresh") {
+			public void actionPerformed(ActionEvent e) {
+				update();
+			}
+		}), BorderLayout.EAST);
+		add(south, BorderLayout.SOUTH);
+
+		resultTable.addMouseListener(new MouseAdapter() {
+			public void mouseClicked(MouseEvent e) {
+				if (e.getClickCount() == 2) {
+					JTable target = (JTable) e.getSource();
+					int row = target.convertRowIndexToModel(target.getSelectedRow());
+
+					File tmpDir = new File(plugin.getTmpDir(), FileUtils.getTimeStamp());
+					tmpDir.mkdirs();
+
+					try {
+						plugin.openPathwayWithProgress(target.getModel().getValueAt(row, 0).toString(), 0, tmpDir);
+					} catch (Exception ex) {
+						JOptionPane.showMessageDialog(RelatedPathwaysPanel.this, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+						Logger.log.error("Error", ex);
+					}
+				}
+			}
+		});
+	}
+
+	@Override
+	public void applicationEvent(ApplicationEvent e) {
+		if (e.getType() == ApplicationEvent.Type.VPATHWAY_OPENED || e.getType() == ApplicationEvent.Type.VPATHWAY_NEW) {
+			update();
+		}
+	}
+
+	/**
+	 * searches pathways related to the open pathway in the background
+	 */
+	private void update() {
+		if (runningSearch != null) {
+			runningSearch.cancel(true);
+			runningSearch = null;
+		}
+		PathwayModel pathway = plugin.getDesktop().getSwingEngine().getEngine().getActivePathwayModel();
+		if (pathway == null) {
+			return;
+		}
+		if (plugin.getLocalStore().isEmpty()) {
+			resultTable.setModel(new RelatedTableModel(new WSSearchResult[0]));
+			lblNumFound.setText("Import a GPML archive to find related pathways.");
+			return;
+		}
+		final List<Xref> xrefs = new ArrayList<Xref>();
+		for (DataNode node : pathway.getDataNodes()) {
+			if (node.getXref() != null && node.getXref().getDataSource() != null) {
+				xrefs.add(node.getXref());
+			}
+		}
+
+		lblNumFound.setText("Searching...");
+		runningSearch = new SwingWorker<WSSearchResult[], Void>() {
+			protected WSSearchResult[] doInBackground() throws Exception {
+				// one more, the open pathway itself is found as well
+				return plugin.getWpQueries().findRelatedPathways(xrefs.toArray(new Xref[xrefs.size()]), MAX_RESULTS + 1, null);
+			}
+
+			protected void done() {
+				if (isCancelled() || runningSearch != this) {
+					return;
+				}
+				runningSearch = null;
+				try {
+					List<WSSearchResult> related = new ArrayList<WSSearchResult>();
+					for (WSSearchResult r : get()) {
+						if (!r.getId().equals(plugin.getPathwayID()) && related.size() < MAX_RESULTS) {
+							related.add(r);
+						}
+					}
+					resultTable.setModel(new RelatedTableModel(related.toArray(new WSSearchResult[related.size()])));
+					lblNumFound.setText(related.size() + " related pathways found.");
+				} catch (Exception ex) {
+					lblNumFound.setText("");
+					Logger.log.error("Error finding related pathways", ex);
+				}
+			}
+		};
+		runningSearch.execute();
+	}
+
+	private class RelatedTableModel extends AbstractTableModel {
+		private WSSearchResult[] results;
+		private String[] columnNames = new String[] { "ID", "Name", "Species", "Similarity" };
+
+		public RelatedTableModel(WSSearchResult[] results) {
+			this.results = results;
+		}
+
+		public int getColumnCount() {
+			return 4;
+		}
+
+		public int getRowCount() {
+			return results.length;
+		}
+
+		public Object getValueAt(int rowIndex, int columnIndex) {
+			WSSearchResult r = results[rowIndex];
+			switch (columnIndex) {
+				case 0:
+					return r.getId();
+				case 1:
+					return r.getName();
+				case 2:
+					return r.getSpecies();
+				case 3:
+					return String.format("%.2f", r.getScore());
+			}
+			return "";
+		}
+
+		public String getColumnName(int column) {
+			return columnNames[column];
+		}
+	}
+}
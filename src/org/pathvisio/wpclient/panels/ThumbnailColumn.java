@@ -0,0 +1,170 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.panels;
+
+import java.awt.Component;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.swing.ImageIcon;
+import javax.swing.JLabel;
+import javax.swing.JTable;
+import javax.swing.JViewport;
+import javax.swing.SwingConstants;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.table.TableCellRenderer;
+import javax.swing.table.TableColumn;
+
+import org.pathvisio.wpclient.impl.ThumbnailCache;
+
+/**
+ * optional table column with a thumbnail of the pathway in the
+ * first column of the table
+ *
+ * thumbnails are only requested by the renderer, which the table
+ * calls for visible rows only, pending requests for rows that are
+ * scrolled out of view are dropped
+ * @author mkutmon
+ */
+public class ThumbnailColumn extends TableColumn implements ThumbnailCache.Listener {
+
+	private ThumbnailCache cache;
+	private JTable table;
+	private boolean shown;
+	private int rowHeight;
+	private JViewport viewport;
+
+	// the table recreates its columns for a new model
+	private PropertyChangeListener modelListener = new PropertyChangeListener() {
+		public void propertyChange(PropertyChangeEvent evt) {
+			if(shown) {
+				table.removeColumn(ThumbnailColumn.this);
+				table.addColumn(ThumbnailColumn.this);
+				table.moveColumn(table.getColumnCount() - 1, 0);
+			}
+		}
+	};
+
+	private ChangeListener scrollListener = new ChangeListener() {
+		public void stateChanged(ChangeEvent e) {
+			cache.retain(ThumbnailColumn.this, getVisibleIds());
+		}
+	};
+
+	public ThumbnailColumn(ThumbnailCache cache, JTable table) {
+		super(0, ThumbnailCache.THUMBNAIL_SIZE + 8);
+		this.cache = cache;
+		this.table = table;
+		setHeaderValue("Preview");
+		setMinWidth(ThumbnailCache.THUMBNAIL_SIZE + 8);
+		setMaxWidth(ThumbnailCache.THUMBNAIL_SIZE + 8);
+		setCellRenderer(new Renderer());
+		table.addPropertyChangeListener("model", modelListener);
+	}
+
+	/**
+	 * adds the column as first column and makes the rows high
+	 * enough for the thumbnails, or removes it again
+	 */
+	public void setShown(boolean shown) {
+		if(this.shown == shown) {
+			return;
+		}
+		this.shown = shown;
+		if(shown) {
+			rowHeight = table.getRowHeight();
+			table.setRowHeight(ThumbnailCache.THUMBNAIL_SIZE + 4);
+			table.addColumn(this);
+			table.moveColumn(table.getColumnCount() - 1, 0);
+			if(table.getParent() instanceof JViewport) {
+				viewport = (JViewport) table.getParent();
+				viewport.addChangeListener(scrollListener);
+			}
+		} else {
+			table.removeColumn(this);
+			table.setRowHeight(rowHeight);
+			if(viewport != null) {
+				viewport.removeChangeListener(scrollListener);
+				viewport = null;
+			}
+			cache.retain(this, new HashSet<String>());
+		}
+	}
+
+	public boolean isShown() {
+		return shown;
+	}
+
+	@Override
+	public void imageReady(String id, BufferedImage image) {
+		if(shown) {
+			table.repaint();
+		}
+	}
+
+	private Set<String> getVisibleIds() {
+		Set<String> ids = new HashSet<String>();
+		Rectangle visible = table.getVisibleRect();
+		int first = table.rowAtPoint(visible.getLocation());
+		int last = table.rowAtPoint(new Point(visible.x, visible.y + visible.height - 1));
+		if(first == -1) {
+			return ids;
+		}
+		if(last == -1) {
+			last = table.getRowCount() - 1;
+		}
+		for(int row = first; row <= last; row++) {
+			Object id = table.getModel().getValueAt(table.convertRowIndexToModel(row), 0);
+			if(id != null) {
+				ids.add(id.toString());
+			}
+		}
+		return ids;
+	}
+
+	/**
+	 * shows the thumbnail from memory or asks for it
+	 */
+	private class Renderer extends JLabel implements TableCellRenderer {
+
+		private Renderer() {
+			setOpaque(true);
+			setHorizontalAlignment(SwingConstants.CENTER);
+		}
+
+		public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+				boolean hasFocus, int row, int column) {
+			setBackground(isSelected ? table.getSelectionBackground() : table.getBackground());
+			setIcon(null);
+			if(value != null) {
+				BufferedImage image = cache.getThumbnail(value.toString());
+				if(image != null) {
+					setIcon(new ImageIcon(image));
+				} else {
+					cache.requestThumbnail(value.toString(), ThumbnailColumn.this);
+				}
+			}
+			return this;
+		}
+	}
+}
@@ -27,14 +27,19 @@ import java.rmi.RemoteException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 
 import javax.swing.AbstractAction;
 import javax.swing.Action;
 import javax.swing.BorderFactory;
+import javax.swing.DefaultComboBoxModel;
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
 import javax.swing.JComboBox;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
@@ -43,19 +48,29 @@ import javax.swing.JScrollPane;
 import javax.swing.JTable;
 import javax.swing.JTextArea;
 import javax.swing.SwingWorker;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.TableModel;
 import javax.xml.rpc.ServiceException;
 
 import org.bridgedb.DataSource;
+import org.bridgedb.IDMapperStack;
 import org.bridgedb.Xref;
 import org.pathvisio.libgpml.debug.Logger;
+import org.pathvisio.libgpml.io.ConverterException;
 import org.pathvisio.core.util.ProgressKeeper;
 import org.pathvisio.gui.DataSourceModel;
 import org.pathvisio.gui.ProgressDialog;
 import org.pathvisio.wikipathways.webservice.WSSearchResult;
+import org.pathvisio.wpclient.actions.ExportPathwaysAction;
 import org.pathvisio.wpclient.FailedConnectionException;
 import org.pathvisio.wpclient.WikiPathwaysClientPlugin;
 import org.pathvisio.wpclient.impl.WSResult;
+import org.pathvisio.wpclient.models.EnrichmentTableModel;
 import org.pathvisio.wpclient.models.XrefResultTableModel;
+import org.pathvisio.wpclient.store.EnrichmentAnalysis;
+import org.pathvisio.wpclient.store.EnrichmentAnalysis.Enrichment;
+import org.pathvisio.wpclient.store.LocalStore;
+import org.pathvisio.wpclient.store.XrefKeys;
 import org.pathvisio.wpclient.utils.FileUtils;
 
 import com.jgoodies.forms.layout.CellConstraints;
@@ -75,6 +90,10 @@ public class XrefSearchPanel extends JPanel {
 	private JTable resultTable;
 	private JTextArea txtId;
 	private JComboBox cbSyscode;
+	private JComboBox cbSpecies;
+	private JCheckBox chkEquivalents;
+	// equivalent xrefs of each searched xref, used to count the matches
+	private Map<Xref, Set<Xref>> equivalents = new HashMap<Xref, Set<Xref>>();
 	private JScrollPane resultspane;
 
 	private JLabel tipLabel;
@@ -142,30 +161,50 @@ public class XrefSearchPanel extends JPanel {
 		JButton searchButton = new JButton(searchXrefAction);
 		searchReferenceBox.add(searchButton, cc.xy(5, 1));
 
+		// enrichment of the gene list in the pathways of the local store
+		cbSpecies = new JComboBox();
+		searchReferenceBox.add(new JLabel("Species"), cc.xy(1, 3));
+		searchReferenceBox.add(cbSpecies, cc.xyw(3, 3, 2));
+		searchReferenceBox.add(new JButton(enrichmentAction), cc.xy(5, 3));
+
 		tipLabel = new JLabel(
-				"Enter Gene List (each in a new line)  eg- L:1234");
+				"Enter Gene List (each in a new line)  eg- L:1234 (Search: max. 5, Enrichment: any number)");
 		tipLabel.setFont(new Font("SansSerif", Font.ITALIC, 11));
 
 		searchReferenceBox.add(tipLabel, cc.xyw(1, 4, 5));
+
+		// maps the ids with the BridgeDb databases loaded in PathVisio
+		chkEquivalents = new JCheckBox("Include equivalent identifiers of other databases");
+		searchReferenceBox.add(chkEquivalents, cc.xyw(1, 5, 5));
 		searchBox.add(searchReferenceBox, cc.xyw(1, 4, 6));
 
 		add(searchBox, BorderLayout.NORTH);
 
 		// Center contains table model for results
 		resultTable = new JTable();
+		resultTable.setDefaultRenderer(Double.class, new DefaultTableCellRenderer() {
+			protected void setValue(Object value) {
+				setHorizontalAlignment(RIGHT);
+				setText(value == null ? "" : String.format("%.2e", (Double) value));
+			}
+		});
 		resultspane = new JScrollPane(resultTable);
+		JPanel resultPanel = new JPanel(new BorderLayout());
+		resultPanel.add(new FilterPanel(resultTable), BorderLayout.NORTH);
+		ExportPathwaysAction.install(plugin, resultTable);
+		resultPanel.add(resultspane, BorderLayout.CENTER);
 
-		add(resultspane, BorderLayout.CENTER);
+		add(resultPanel, BorderLayout.CENTER);
 		lblNumFound = new JLabel();
 		add (lblNumFound, BorderLayout.SOUTH);
 		resultTable.addMouseListener(new MouseAdapter() {
 			public void mouseClicked(MouseEvent e) {
 				if (e.getClickCount() == 2) {
 					JTable target = (JTable) e.getSource();
-					int row = target.getSelectedRow();
+					int row = target.convertRowIndexToModel(target.getSelectedRow());
 
 					try {
-						XrefResultTableModel model = (XrefResultTableModel ) target.getModel();
+						TableModel model = target.getModel();
 						File tmpDir = new File(plugin.getTmpDir(),FileUtils.getTimeStamp());
 						tmpDir.mkdirs();
 
@@ -181,9 +220,97 @@ public class XrefSearchPanel extends JPanel {
 		});
 	}
 
+	Action enrichmentAction = new AbstractAction("Enrichment") {
+		public void actionPerformed(ActionEvent e) {
+			try {
+				resultspane.setBorder(BorderFactory.createTitledBorder(
+						BorderFactory.createEtchedBorder(), "Enriched pathways"));
+				analyseEnrichment();
+			} catch (Exception ex) {
+				JOptionPane.showMessageDialog(XrefSearchPanel.this,
+						ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+				Logger.log.error("Error computing enrichment", ex);
+			}
+		}
+	};
+
+	@Override
+	public void addNotify() {
+		super.addNotify();
+		// species of the local store, it can change between two openings
+		Object selected = cbSpecies.getSelectedItem();
+		DefaultComboBoxModel model = new DefaultComboBoxModel();
+		model.addElement("All species");
+		for (String species : plugin.getLocalStore().getSpecies()) {
+			model.addElement(species);
+		}
+		cbSpecies.setModel(model);
+		if (selected != null) {
+			cbSpecies.setSelectedItem(selected);
+		}
+	}
+
+	/**
+	 * over-representation analysis of the gene list in the pathways of
+	 * the local store, no server calls are needed
+	 */
+	private void analyseEnrichment() throws InterruptedException, ExecutionException {
+		lblNumFound.setText("");
+		final LocalStore store = plugin.getLocalStore();
+		if (store.isEmpty()) {
+			JOptionPane.showMessageDialog(XrefSearchPanel.this,
+					"Import a GPML archive first, the enrichment is computed from the local pathway store.",
+					"Error", JOptionPane.ERROR_MESSAGE);
+			return;
+		}
+		final List<String> keys = new ArrayList<String>();
+		List<Xref> list = new ArrayList<Xref>();
+		int invalid = 0;
+		for (String line : txtId.getText().split("\n")) {
+			String p[] = line.trim().split(":", 2);
+			String key = p.length == 2 ? XrefKeys.toKey(p[0].trim(), p[1]) : null;
+			if (key == null) {
+				invalid += line.trim().isEmpty() ? 0 : 1;
+			} else {
+				keys.add(key);
+				Xref xref = XrefKeys.toXref(key);
+				if (xref != null) {
+					list.add(xref);
+				}
+			}
+		}
+		if (keys.isEmpty()) {
+			JOptionPane.showMessageDialog(XrefSearchPanel.this, "Enter Valid Xrefs ", "Error", JOptionPane.ERROR_MESSAGE);
+			return;
+		}
+		xrefs = list.toArray(new Xref[list.size()]);
+		final String species = cbSpecies.getSelectedIndex() <= 0 ? null : cbSpecies.getSelectedItem().toString();
+
+		final ProgressKeeper pk = new ProgressKeeper();
+		final ProgressDialog d = new ProgressDialog(JOptionPane.getFrameForComponent(this), "", pk, false, true);
+		SwingWorker<List<Enrichment>, Void> sw = new SwingWorker<List<Enrichment>, Void>() {
+			protected List<Enrichment> doInBackground() throws Exception {
+				pk.setTaskName("Computing enrichment");
+				try {
+					return new EnrichmentAnalysis(store.getCatalog(), store.getXrefIndex()).analyse(keys, species);
+				} finally {
+					pk.finished();
+				}
+			}
+		};
+		sw.execute();
+		d.setVisible(true);
+
+		resultTable.setModel(new EnrichmentTableModel(sw.get()));
+		lblNumFound.setText(sw.get().size() + " pathways contain genes of the list."
+				+ (invalid > 0 ? " " + invalid + " lines could not be read." : ""));
+	}
+
 	private void searchByXref() throws RemoteException, InterruptedException, ExecutionException, MalformedURLException, ServiceException {
 		lblNumFound.setText("");
 		pxXref.clear();
+		equivalents.clear();
+		final boolean expand = chkEquivalents.isSelected();
 		if (!txtId.getText().isEmpty()) {
 			System.out.println(txtId.getText());
 			final ProgressKeeper pk = new ProgressKeeper();
@@ -214,11 +341,26 @@ public class XrefSearchPanel extends JPanel {
 	
 							xrefs = new Xref[count];
 							pxXref.toArray(xrefs);
+
+							IDMapperStack mapper = plugin.getDesktop().getSwingEngine().getGdbManager().getCurrentGdb();
+							if (expand && mapper != null && mapper.getSize() > 0) {
+								// the pathways are opened with all equivalents highlighted
+								equivalents.putAll(plugin.getWpQueries().mapXrefs(xrefs, mapper, pk));
+								Set<Xref> expanded = new LinkedHashSet<Xref>();
+								for (Set<Xref> set : equivalents.values()) {
+									expanded.addAll(set);
+								}
+								xrefs = expanded.toArray(new Xref[expanded.size()]);
+							}
 	
 							pk.setTaskName("Searching ");
-							WSSearchResult[] p = plugin.getWpQueries().findByXref(xrefs, pk);
-							pk.setTaskName("Sorting result");
-							results = sort(p);
+							if (equivalents.isEmpty()) {
+								WSSearchResult[] p = plugin.getWpQueries().findByXref(xrefs, pk);
+								pk.setTaskName("Sorting result");
+								results = sort(p);
+							} else {
+								results = searchEquivalents();
+							}
 						} else {
 							JOptionPane.showMessageDialog(XrefSearchPanel.this, " Can have maximum 5 Xrefs ", "Error", JOptionPane.ERROR_MESSAGE);
 							pk.finished();
@@ -230,6 +372,35 @@ public class XrefSearchPanel extends JPanel {
 					return results;
 				}
 
+				/**
+				 * one search per entered xref with all its equivalents, a pathway
+				 * counts every entered xref it has been found for, so no xref
+				 * lists have to be downloaded
+				 */
+				private WSResult[] searchEquivalents() throws RemoteException, FailedConnectionException, ConverterException {
+					Map<String, WSResult> result = new HashMap<String, WSResult>();
+					for (Xref x : pxXref) {
+						Set<Xref> set = equivalents.containsKey(x) ? equivalents.get(x) : Collections.singleton(x);
+						Set<String> found = new HashSet<String>();
+						for (WSSearchResult res : plugin.getWpQueries().findByXref(set.toArray(new Xref[set.size()]), pk)) {
+							if (!found.add(res.getId())) {
+								continue;
+							}
+							WSResult wsResult = result.get(res.getId());
+							if (wsResult == null) {
+								wsResult = new WSResult();
+								wsResult.setWsSearchResult(res);
+								wsResult.setCount(0);
+								result.put(res.getId(), wsResult);
+							}
+							wsResult.setCount(wsResult.getCount() + 1);
+						}
+					}
+					List<WSResult> list = new ArrayList<WSResult>(result.values());
+					Collections.sort(list, Collections.reverseOrder());
+					return list.toArray(new WSResult[list.size()]);
+				}
+
 				private WSResult[] sort(WSSearchResult [] results) throws RemoteException, FailedConnectionException {
 					Map<String, WSResult> result = new HashMap<String, WSResult>();
 					for(WSSearchResult res : results) {
@@ -0,0 +1,236 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.store;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * over-representation analysis of a gene list against the xref sets
+ * of the pathways in the local store
+ * 
+ * the background are all xrefs of the tested pathways, for every pathway
+ * the probability to find at least the observed overlap by chance is
+ * computed with the hypergeometric distribution, p-values are adjusted
+ * for the number of tested pathways (Benjamini-Hochberg)
+ * @author mkutmon
+ */
+public class EnrichmentAnalysis {
+
+	// pathways per task when counting overlaps in parallel
+	private static final int CHUNK = 256;
+
+	private PathwayCatalog catalog;
+	private TermIndex xrefIndex;
+
+	public EnrichmentAnalysis(PathwayCatalog catalog, TermIndex xrefIndex) {
+		this.catalog = catalog;
+		this.xrefIndex = xrefIndex;
+	}
+
+	/**
+	 * tests all pathways of a species (or all pathways if species is null)
+	 * for enrichment of the xrefs, returns the pathways with at least one
+	 * matching xref, lowest p-value first
+	 * 
+	 * @param xrefs xref keys (see {@link XrefKeys})
+	 */
+	public List<Enrichment> analyse(Collection<String> xrefs, String species) {
+		// pathways to test and their xrefs as background
+		int size = catalog.size();
+		int[] slots = new int[size];
+		int[][] terms = new int[size][];
+		int m = 0;
+		BitSet background = new BitSet();
+		final BitSet query = new BitSet();
+		// the term arrays are read under one lock, the workers
+		// below never touch the shared index
+		synchronized(xrefIndex) {
+			for(int slot = 0; slot < size; slot++) {
+				int[] codes = xrefIndex.getTerms(slot);
+				if(codes.length > 0 && (species == null || species.equals(catalog.getSpecies(slot)))) {
+					slots[m] = slot;
+					terms[m++] = codes;
+					for(int code : codes) {
+						background.set(code);
+					}
+				}
+			}
+			for(String xref : xrefs) {
+				int code = xrefIndex.getCode(xref);
+				if(code != -1 && background.get(code)) {
+					query.set(code);
+				}
+			}
+		}
+		final int[] tested = slots;
+		final int[][] testedTerms = terms;
+		final int testCount = m;
+		final int total = background.cardinality();
+		final int selected = query.cardinality();
+		if(testCount == 0 || selected == 0) {
+			return Collections.emptyList();
+		}
+		final double[] logFactorial = logFactorials(total);
+
+		final Enrichment[] results = new Enrichment[testCount];
+		ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+			protected void compute() {
+				List<RecursiveAction> tasks = new ArrayList<RecursiveAction>();
+				for(int start = 0; start < testCount; start += CHUNK) {
+					final int from = start;
+					final int to = Math.min(testCount, start + CHUNK);
+					tasks.add(new RecursiveAction() {
+						protected void compute() {
+							for(int i = from; i < to; i++) {
+								int[] codes = testedTerms[i];
+								int overlap = 0;
+								for(int code : codes) {
+									if(query.get(code)) {
+										overlap++;
+									}
+								}
+								double p = upperTail(overlap, total, codes.length, selected, logFactorial);
+								results[i] = new Enrichment(tested[i], overlap, codes.length, p);
+							}
+						}
+					});
+				}
+				invokeAll(tasks);
+			}
+		});
+
+		// Benjamini-Hochberg over all tested pathways
+		List<Enrichment> sorted = new ArrayList<Enrichment>(testCount);
+		Collections.addAll(sorted, results);
+		Collections.sort(sorted, new Comparator<Enrichment>() {
+			public int compare(Enrichment e1, Enrichment e2) {
+				return Double.compare(e1.pValue, e2.pValue);
+			}
+		});
+		double min = 1;
+		for(int i = testCount - 1; i >= 0; i--) {
+			Enrichment e = sorted.get(i);
+			min = Math.min(min, e.pValue * testCount / (i + 1));
+			e.fdr = min;
+		}
+
+		List<Enrichment> result = new ArrayList<Enrichment>();
+		for(Enrichment e : sorted) {
+			if(e.overlap > 0) {
+				result.add(e);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * P(X >= k) for X hypergeometric: n draws from N xrefs of which K are in the pathway
+	 */
+	private static double upperTail(int k, int N, int K, int n, double[] logFactorial) {
+		if(k == 0) {
+			return 1;
+		}
+		int max = Math.min(K, n);
+		double logDenominator = logBinomial(N, n, logFactorial);
+		double p = 0;
+		for(int i = k; i <= max; i++) {
+			p += Math.exp(logBinomial(K, i, logFactorial) + logBinomial(N - K, n - i, logFactorial) - logDenominator);
+		}
+		return Math.min(1, p);
+	}
+
+	private static double logBinomial(int n, int k, double[] logFactorial) {
+		if(k < 0 || k > n) {
+			return Double.NEGATIVE_INFINITY;
+		}
+		return logFactorial[n] - logFactorial[k] - logFactorial[n - k];
+	}
+
+	private static double[] logFactorials(int n) {
+		double[] result = new double[n + 1];
+		for(int i = 2; i <= n; i++) {
+			result[i] = result[i - 1] + Math.log(i);
+		}
+		return result;
+	}
+
+	/**
+	 * result for one pathway
+	 */
+	public class Enrichment {
+		private int slot;
+		private int overlap;
+		private int size;
+		private double pValue;
+		private double fdr;
+
+		private Enrichment(int slot, int overlap, int size, double pValue) {
+			this.slot = slot;
+			this.overlap = overlap;
+			this.size = size;
+			this.pValue = pValue;
+		}
+
+		public int getSlot() {
+			return slot;
+		}
+
+		public String getId() {
+			return catalog.getId(slot);
+		}
+
+		public String getName() {
+			return catalog.getName(slot);
+		}
+
+		public String getSpecies() {
+			return catalog.getSpecies(slot);
+		}
+
+		/**
+		 * number of xrefs of the list in the pathway
+		 */
+		public int getOverlap() {
+			return overlap;
+		}
+
+		/**
+		 * number of xrefs of the pathway
+		 */
+		public int getSize() {
+			return size;
+		}
+
+		public double getPValue() {
+			return pValue;
+		}
+
+		/**
+		 * Benjamini-Hochberg adjusted p-value
+		 */
+		public double getFdr() {
+			return fdr;
+		}
+	}
+}
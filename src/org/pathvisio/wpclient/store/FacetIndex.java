@@ -0,0 +1,126 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.store;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * membership bitmaps of the pathways for each species and curation
+ * tag, the number of pathways for a combination of facets is the
+ * cardinality of the intersected bitmaps, so all counts of the browse
+ * options are computed locally without a call to the webservice
+ * @author mkutmon
+ */
+public class FacetIndex {
+
+	private Map<String, Integer> slots = new HashMap<String, Integer>();
+	private List<String> ids = new ArrayList<String>();
+	private BitSet all = new BitSet();
+	private Map<String, BitSet> species = new HashMap<String, BitSet>();
+	private Map<String, BitSet> tags = new HashMap<String, BitSet>();
+
+	/**
+	 * adds a pathway, pathways are only counted once
+	 */
+	public void add(String id, String organism) {
+		int slot = getSlot(id);
+		if(organism != null && !organism.isEmpty()) {
+			BitSet bits = species.get(organism);
+			if(bits == null) {
+				bits = new BitSet();
+				species.put(organism, bits);
+			}
+			bits.set(slot);
+		}
+	}
+
+	/**
+	 * sets the members of a curation tag, members that have
+	 * not been added as pathway are ignored
+	 */
+	public void setTag(String tag, Collection<String> members) {
+		BitSet bits = new BitSet();
+		for(String id : members) {
+			Integer slot = slots.get(id);
+			if(slot != null) {
+				bits.set(slot);
+			}
+		}
+		tags.put(tag, bits);
+	}
+
+	public boolean hasTag(String tag) {
+		return tags.containsKey(tag);
+	}
+
+	/**
+	 * number of pathways of the species with all of the tags,
+	 * null stands for all species and is ignored as tag,
+	 * unknown tags count as empty
+	 */
+	public int count(String organism, String... tagNames) {
+		return count(organism == null ? null : Collections.singletonList(organism), tagNames);
+	}
+
+	/**
+	 * number of pathways of any of the species with all of the tags
+	 */
+	public int count(Collection<String> organisms, String... tagNames) {
+		BitSet bits;
+		if(organisms == null) {
+			bits = (BitSet) all.clone();
+		} else {
+			bits = new BitSet();
+			for(String organism : organisms) {
+				if(species.containsKey(organism)) {
+					bits.or(species.get(organism));
+				}
+			}
+		}
+		for(String tag : tagNames) {
+			if(tag != null) {
+				BitSet tagBits = tags.get(tag);
+				if(tagBits == null) {
+					return 0;
+				}
+				bits.and(tagBits);
+			}
+		}
+		return bits.cardinality();
+	}
+
+	public int size() {
+		return ids.size();
+	}
+
+	private int getSlot(String id) {
+		Integer slot = slots.get(id);
+		if(slot == null) {
+			slot = ids.size();
+			slots.put(id, slot);
+			ids.add(id);
+			all.set(slot);
+		}
+		return slot;
+	}
+}
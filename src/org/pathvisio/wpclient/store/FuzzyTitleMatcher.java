@@ -0,0 +1,241 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.store;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * typo tolerant matching of pathway titles
+ * 
+ * the distinct title words are stored in a BK-tree, so all words within
+ * a small edit distance of a (misspelled) query word are found without
+ * comparing against every word of the catalog
+ * @author mkutmon
+ */
+public class FuzzyTitleMatcher {
+
+	private TitleIndex titleIndex;
+	private PathwayCatalog catalog;
+	private Node root;
+
+	public FuzzyTitleMatcher(TitleIndex titleIndex, PathwayCatalog catalog) {
+		this.titleIndex = titleIndex;
+		this.catalog = catalog;
+		for(String token : titleIndex.getTokens()) {
+			if(root == null) {
+				root = new Node(token);
+			} else {
+				root.add(token);
+			}
+		}
+	}
+
+	public TitleIndex getTitleIndex() {
+		return titleIndex;
+	}
+
+	/**
+	 * returns up to max pathway titles that match every word of the query
+	 * within the allowed edit distance, best matches first
+	 */
+	public List<String> suggestTitles(String query, int max) {
+		List<String> words = TitleIndex.tokenize(query);
+		int size = titleIndex.size();
+		if(words.isEmpty() || root == null || size == 0) {
+			return Collections.emptyList();
+		}
+
+		final int[] score = new int[size];
+		BitSet candidates = new BitSet(size);
+		candidates.set(0, size);
+		int[] best = new int[size];
+		for(String word : words) {
+			Arrays.fill(best, Integer.MAX_VALUE);
+			BitSet matched = new BitSet(size);
+			List<Match> matches = new ArrayList<Match>();
+			root.search(word, maxDistance(word), matches);
+			for(Match m : matches) {
+				BitSet slots = titleIndex.token(m.word);
+				for(int slot = slots.nextSetBit(0); slot >= 0; slot = slots.nextSetBit(slot + 1)) {
+					best[slot] = Math.min(best[slot], m.distance);
+					matched.set(slot);
+				}
+			}
+			candidates.and(matched);
+			if(candidates.isEmpty()) {
+				return Collections.emptyList();
+			}
+			for(int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+				score[slot] += best[slot];
+			}
+		}
+
+		List<Integer> ranked = new ArrayList<Integer>();
+		for(int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+			ranked.add(slot);
+		}
+		Collections.sort(ranked, new Comparator<Integer>() {
+			public int compare(Integer s1, Integer s2) {
+				if(score[s1] != score[s2]) {
+					return score[s1] - score[s2];
+				}
+				return catalog.getName(s1).length() - catalog.getName(s2).length();
+			}
+		});
+		Set<String> titles = new LinkedHashSet<String>();
+		for(int i = 0; i < ranked.size() && titles.size() < max; i++) {
+			titles.add(catalog.getName(ranked.get(i)));
+		}
+		return new ArrayList<String>(titles);
+	}
+
+	/**
+	 * replaces every word of the query by the closest title word,
+	 * returns null if nothing needs to or can be corrected
+	 */
+	public String correct(String query) {
+		List<String> words = TitleIndex.tokenize(query);
+		if(words.isEmpty() || root == null) {
+			return null;
+		}
+		StringBuilder sb = new StringBuilder();
+		boolean changed = false;
+		for(String word : words) {
+			List<Match> matches = new ArrayList<Match>();
+			root.search(word, maxDistance(word), matches);
+			Match closest = null;
+			for(Match m : matches) {
+				// prefer the closest and then the most frequent word
+				if(closest == null || m.distance < closest.distance
+						|| (m.distance == closest.distance && frequency(m.word) > frequency(closest.word))) {
+					closest = m;
+				}
+			}
+			if(closest == null) {
+				return null;
+			}
+			changed |= closest.distance > 0;
+			if(sb.length() > 0) sb.append(' ');
+			sb.append(closest.word);
+		}
+		return changed ? sb.toString() : null;
+	}
+
+	private int frequency(String word) {
+		return titleIndex.token(word).cardinality();
+	}
+
+	/**
+	 * short words tolerate fewer typos
+	 */
+	private static int maxDistance(String word) {
+		if(word.length() <= 2) return 0;
+		if(word.length() <= 4) return 1;
+		return 2;
+	}
+
+	/**
+	 * levenshtein distance, gives up as soon as the distance exceeds the limit
+	 */
+	static int distance(String a, String b, int limit) {
+		if(Math.abs(a.length() - b.length()) > limit) {
+			return limit + 1;
+		}
+		int[] prev = new int[b.length() + 1];
+		int[] cur = new int[b.length() + 1];
+		for(int j = 0; j <= b.length(); j++) {
+			prev[j] = j;
+		}
+		for(int i = 1; i <= a.length(); i++) {
+			cur[0] = i;
+			int rowMin = cur[0];
+			for(int j = 1; j <= b.length(); j++) {
+				int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+				cur[j] = Math.min(Math.min(cur[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+				rowMin = Math.min(rowMin, cur[j]);
+			}
+			if(rowMin > limit) {
+				return limit + 1;
+			}
+			int[] tmp = prev;
+			prev = cur;
+			cur = tmp;
+		}
+		return prev[b.length()];
+	}
+
+	private static class Match {
+		private String word;
+		private int distance;
+
+		private Match(String word, int distance) {
+			this.word = word;
+			this.distance = distance;
+		}
+	}
+
+	/**
+	 * BK-tree node, children are indexed by their distance to this word
+	 */
+	private static class Node {
+		private String word;
+		private Node[] children = new Node[0];
+
+		private Node(String word) {
+			this.word = word;
+		}
+
+		private void add(String token) {
+			Node node = this;
+			while(true) {
+				int d = distance(token, node.word, Integer.MAX_VALUE);
+				if(d == 0) {
+					return;
+				}
+				if(d >= node.children.length) {
+					node.children = Arrays.copyOf(node.children, d + 1);
+				}
+				if(node.children[d] == null) {
+					node.children[d] = new Node(token);
+					return;
+				}
+				node = node.children[d];
+			}
+		}
+
+		private void search(String query, int limit, List<Match> result) {
+			int d = distance(query, word, Integer.MAX_VALUE);
+			if(d <= limit) {
+				result.add(new Match(word, d));
+			}
+			// triangle inequality: only children within [d - limit, d + limit] can match
+			int to = Math.min(children.length - 1, d + limit);
+			for(int i = Math.max(1, d - limit); i <= to; i++) {
+				if(children[i] != null) {
+					children[i].search(query, limit, result);
+				}
+			}
+		}
+	}
+}
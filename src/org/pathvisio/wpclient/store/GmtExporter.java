@@ -0,0 +1,195 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.store;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.bridgedb.DataSource;
+import org.bridgedb.IDMapper;
+import org.bridgedb.IDMapperException;
+import org.bridgedb.Xref;
+import org.pathvisio.core.util.ProgressKeeper;
+
+/**
+ * writes the xref sets of the local store as GMT gene sets
+ * 
+ * one line per pathway: "name%WikiPathways_date%id%species", the url
+ * and the ids, the lines are written one by one while iterating the
+ * catalog, optionally the ids are mapped to a target data source
+ * @author mkutmon
+ */
+public class GmtExporter {
+
+	private LocalStore store;
+	private String species;
+	private Set<String> pathwayIds;
+	private DataSource target;
+	private IDMapper mapper;
+	// mapped ids per xref key, pathways share most of their xrefs
+	private Map<String, List<String>> mapped = new HashMap<String, List<String>>();
+
+	public GmtExporter(LocalStore store) {
+		this.store = store;
+	}
+
+	/**
+	 * exports all pathways passing the filters, returns the number of gene sets
+	 */
+	public int export(File file, ProgressKeeper pk) throws IOException, IDMapperException {
+		PathwayCatalog catalog = store.getCatalog();
+		TermIndex xrefIndex = store.getXrefIndex();
+		String source = "WikiPathways_" + new SimpleDateFormat("yyyyMMdd").format(new Date());
+		int size = catalog.size();
+		int count = 0;
+
+		if(pk != null) pk.setTaskName("Exporting gene sets");
+		FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+		Writer out = new BufferedWriter(Channels.newWriter(channel, "UTF-8"), 1 << 16);
+		try {
+			for(int slot = 0; slot < size; slot++) {
+				if(pk != null && pk.isCancelled()) {
+					break;
+				}
+				String id = catalog.getId(slot);
+				if((species != null && !species.equals(catalog.getSpecies(slot)))
+						|| (pathwayIds != null && !pathwayIds.contains(id))) {
+					continue;
+				}
+				Set<String> genes = getGenes(xrefIndex, xrefIndex.getTerms(slot));
+				if(genes.isEmpty()) {
+					continue;
+				}
+				out.write(clean(catalog.getName(slot)) + "%" + source + "%" + id + "%" + clean(catalog.getSpecies(slot)));
+				out.write("\thttps://www.wikipathways.org/pathways/" + id);
+				for(String gene : genes) {
+					out.write('\t');
+					out.write(gene);
+				}
+				out.write('\n');
+				count++;
+				if(pk != null && slot % 100 == 0) pk.setProgress(slot * 100 / size);
+			}
+		} finally {
+			out.close();
+		}
+		return count;
+	}
+
+	/**
+	 * ids of a pathway, as xref keys or in the target data source
+	 */
+	private Set<String> getGenes(TermIndex xrefIndex, int[] codes) throws IDMapperException {
+		Set<String> genes = new LinkedHashSet<String>();
+		if(target == null) {
+			for(int code : codes) {
+				genes.add(xrefIndex.getTerm(code));
+			}
+			return genes;
+		}
+		// map all new xrefs of the pathway in one call
+		List<String> keys = new ArrayList<String>();
+		List<Xref> unmapped = new ArrayList<Xref>();
+		for(int code : codes) {
+			String key = xrefIndex.getTerm(code);
+			if(!mapped.containsKey(key)) {
+				Xref xref = XrefKeys.toXref(key);
+				if(xref != null && xref.getDataSource() == target) {
+					mapped.put(key, Collections.singletonList(xref.getId()));
+				} else if(xref != null && mapper != null) {
+					keys.add(key);
+					unmapped.add(xref);
+				} else {
+					mapped.put(key, Collections.<String>emptyList());
+				}
+			}
+		}
+		if(!unmapped.isEmpty()) {
+			Map<Xref, Set<Xref>> result = mapper.mapID(unmapped, target);
+			for(int i = 0; i < unmapped.size(); i++) {
+				List<String> ids = new ArrayList<String>();
+				if(result.get(unmapped.get(i)) != null) {
+					for(Xref x : result.get(unmapped.get(i))) {
+						ids.add(x.getId());
+					}
+				}
+				mapped.put(keys.get(i), ids);
+			}
+		}
+		for(int code : codes) {
+			List<String> ids = mapped.get(xrefIndex.getTerm(code));
+			if(ids != null) {
+				genes.addAll(ids);
+			}
+		}
+		return genes;
+	}
+
+	// tabs, line breaks and % would break the format
+	private String clean(String value) {
+		return value == null ? "" : value.replaceAll("[\\t\\r\\n%]", " ");
+	}
+
+	//////////////////////////////////////
+	// SETTERS & GETTERS
+	//////////////////////////////////////
+
+	/**
+	 * only export pathways of this species, null for all
+	 */
+	public void setSpecies(String species) {
+		this.species = species;
+	}
+
+	/**
+	 * only export these pathways (e.g. a curation collection), null for all
+	 */
+	public void setPathwayIds(Set<String> pathwayIds) {
+		this.pathwayIds = pathwayIds;
+	}
+
+	/**
+	 * data source of the exported ids, null to export the xref keys
+	 * ("SystemCode:id") as they are
+	 */
+	public void setTargetDataSource(DataSource target) {
+		this.target = target;
+	}
+
+	/**
+	 * mapper for xrefs of other data sources, without a mapper only
+	 * xrefs of the target data source are exported
+	 */
+	public void setMapper(IDMapper mapper) {
+		this.mapper = mapper;
+	}
+}
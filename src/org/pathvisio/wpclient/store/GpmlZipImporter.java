@@ -0,0 +1,377 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.store;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.pathvisio.core.util.ProgressKeeper;
+import org.pathvisio.libgpml.debug.Logger;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * imports the GPML zip archives from data.wikipathways.org
+ * into the {@link LocalStore}
+ *
+ * entries are streamed from the zip file and parsed in parallel
+ * on a fork-join pool, each worker thread has its own SAX parser
+ * the number of entries in flight is bounded so memory use does
+ * not depend on the size of the archive
+ * @author mkutmon
+ */
+public class GpmlZipImporter {
+
+	// e.g. Hs_Apoptosis_WP254_118932.gpml or WP254.gpml
+	private static final Pattern FILE_NAME = Pattern.compile("(WP\\d+)(?:_r?(\\d+))?\\.gpml$");
+
+	private LocalStore store;
+	private int parallelism;
+
+	private ThreadLocal<SAXParser> parsers = new ThreadLocal<SAXParser>() {
+		protected SAXParser initialValue() {
+			try {
+				SAXParserFactory factory = SAXParserFactory.newInstance();
+				factory.setNamespaceAware(true);
+				factory.setValidating(false);
+				return factory.newSAXParser();
+			} catch (ParserConfigurationException e) {
+				throw new IllegalStateException(e);
+			} catch (SAXException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	};
+
+	public GpmlZipImporter(LocalStore store) {
+		this(store, Runtime.getRuntime().availableProcessors());
+	}
+
+	public GpmlZipImporter(LocalStore store, int parallelism) {
+		this.store = store;
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * imports all GPML files of the archive, returns the number
+	 * of imported pathways
+	 */
+	public int importArchive(File zipFile, final ProgressKeeper pk) throws IOException, InterruptedException {
+		final AtomicInteger imported = new AtomicInteger();
+		final AtomicInteger failed = new AtomicInteger();
+		final int maxInFlight = parallelism * 4;
+		final Semaphore inFlight = new Semaphore(maxInFlight);
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+
+		if(pk != null) pk.setTaskName("Importing " + zipFile.getName());
+		ZipInputStream in = new ZipInputStream(new BufferedInputStream(new FileInputStream(zipFile)));
+		try {
+			ZipEntry entry;
+			while((entry = in.getNextEntry()) != null) {
+				if(pk != null && pk.isCancelled()) {
+					break;
+				}
+				if(entry.isDirectory()) {
+					continue;
+				}
+				Matcher m = FILE_NAME.matcher(entry.getName());
+				if(!m.find()) {
+					continue;
+				}
+				final PathwaySummary summary = new PathwaySummary(m.group(1), m.group(2) == null ? "" : m.group(2));
+				final byte[] data = readEntry(in);
+
+				inFlight.acquire();
+				pool.execute(new Runnable() {
+					public void run() {
+						try {
+							parse(data, summary);
+							store.put(summary);
+							int n = imported.incrementAndGet();
+							if(pk != null && n % 100 == 0) pk.report(n + " pathways imported");
+						} catch (Exception e) {
+							failed.incrementAndGet();
+							Logger.log.error("Could not import " + summary.getId(), e);
+						} finally {
+							inFlight.release();
+						}
+					}
+				});
+			}
+			// wait until all parse tasks are done
+			inFlight.acquire(maxInFlight);
+			inFlight.release(maxInFlight);
+		} finally {
+			in.close();
+			pool.shutdown();
+			pool.awaitTermination(1, TimeUnit.MINUTES);
+		}
+		if(pk != null) pk.report(imported.get() + " pathways imported, " + failed.get() + " failed.");
+		return imported.get();
+	}
+
+	/**
+	 * parses a single GPML document (GPML2013a or GPML2021)
+	 */
+	public void parse(byte[] data, PathwaySummary summary) throws SAXException, IOException {
+		SAXParser parser = parsers.get();
+		parser.reset();
+		parser.parse(new ByteArrayInputStream(data), new SummaryHandler(summary));
+	}
+
+	private byte[] readEntry(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+		byte[] buffer = new byte[16 * 1024];
+		int n;
+		while((n = in.read(buffer)) != -1) {
+			out.write(buffer, 0, n);
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * collects the catalog information and index terms
+	 * of a GPML document
+	 *
+	 * the interactions are resolved to xref keys at the end of
+	 * the document, an interaction pointing to a group connects all
+	 * members and one pointing to an anchor connects to the target
+	 * of the anchored interaction
+	 */
+	private static class SummaryHandler extends DefaultHandler {
+
+		// nested groups and anchors on anchored interactions
+		private static final int MAX_DEPTH = 5;
+
+		private PathwaySummary summary;
+		private boolean inDataNode;
+		private boolean inCitation;
+		private boolean inPublication;
+		private boolean inPublicationId;
+		private StringBuilder text = new StringBuilder();
+
+		private String dataNodeId;
+		private Map<String, String> nodeKeys = new HashMap<String, String>();
+		// group id -> ids of the members (nodes or groups)
+		private Map<String, List<String>> groupMembers = new HashMap<String, List<String>>();
+		// GPML2013a: interactions refer to the GraphId, members to the GroupId
+		private Map<String, String> groupIds = new HashMap<String, String>();
+		private Map<String, Interaction> anchors = new HashMap<String, Interaction>();
+		private List<Interaction> interactions = new ArrayList<Interaction>();
+		private Interaction interaction;
+
+		public SummaryHandler(PathwaySummary summary) {
+			this.summary = summary;
+		}
+
+		public void startElement(String uri, String localName, String qName, Attributes attributes) {
+			if(localName.equals("Pathway")) {
+				summary.setName(attribute(attributes, "Name", "title"));
+				summary.setSpecies(attribute(attributes, "Organism", "organism"));
+			} else if(localName.equals("DataNode")) {
+				inDataNode = true;
+				dataNodeId = attribute(attributes, "GraphId", "elementId");
+				addMember(attribute(attributes, "GroupRef", "groupRef"), dataNodeId);
+				String label = attribute(attributes, "TextLabel", "textLabel");
+				if(label != null && !label.trim().isEmpty()) {
+					summary.getLabels().add(label.trim().toLowerCase());
+				}
+			} else if(localName.equals("Xref")) {
+				String ds = attribute(attributes, "Database", "dataSource");
+				String id = attribute(attributes, "ID", "identifier");
+				if(inDataNode) {
+					String key = XrefKeys.toKey(ds, id);
+					if(key != null) {
+						summary.getXrefs().add(key);
+						if(dataNodeId != null) {
+							nodeKeys.put(dataNodeId, key);
+						}
+					}
+				} else if(inCitation && ds != null && id != null && ds.equalsIgnoreCase("pubmed")) {
+					summary.getLiterature().add(id.trim());
+				}
+			} else if(localName.equals("Group")) {
+				String groupId = attribute(attributes, "GroupId", "elementId");
+				String graphId = attributes.getValue("GraphId");
+				if(groupId != null && graphId != null) {
+					groupIds.put(graphId, groupId);
+				}
+				addMember(attribute(attributes, "GroupRef", "groupRef"), groupId);
+			} else if(localName.equals("Interaction")) {
+				interaction = new Interaction();
+			} else if(interaction != null && localName.equals("Point")) {
+				String ref = attribute(attributes, "GraphRef", "elementRef");
+				boolean arrow = isArrow(attribute(attributes, "ArrowHead", "arrowHead"));
+				if(interaction.points++ == 0) {
+					interaction.start = ref;
+					interaction.startArrow = arrow;
+				} else {
+					interaction.end = ref;
+					interaction.endArrow = arrow;
+				}
+			} else if(interaction != null && localName.equals("Anchor")) {
+				String id = attribute(attributes, "GraphId", "elementId");
+				if(id != null) {
+					anchors.put(id, interaction);
+				}
+			} else if(localName.equals("Citation")) {
+				inCitation = true;
+			} else if(localName.equals("PublicationXref")) {
+				inPublication = true;
+			} else if(inPublication && localName.equals("ID")) {
+				inPublicationId = true;
+				text.setLength(0);
+			}
+		}
+
+		public void endElement(String uri, String localName, String qName) {
+			if(localName.equals("DataNode")) {
+				inDataNode = false;
+				dataNodeId = null;
+			} else if(localName.equals("Interaction")) {
+				if(interaction != null && interaction.points > 1) {
+					interactions.add(interaction);
+				}
+				interaction = null;
+			} else if(localName.equals("Citation")) {
+				inCitation = false;
+			} else if(localName.equals("PublicationXref")) {
+				inPublication = false;
+			} else if(inPublicationId && localName.equals("ID")) {
+				inPublicationId = false;
+				String id = text.toString().trim();
+				if(!id.isEmpty()) {
+					summary.getLiterature().add(id);
+				}
+			}
+		}
+
+		public void endDocument() {
+			Set<String> edges = new LinkedHashSet<String>();
+			for(Interaction i : interactions) {
+				Set<String> sources = resolve(i.start, 0);
+				Set<String> targets = resolve(i.end, 0);
+				for(String source : sources) {
+					for(String target : targets) {
+						if(source.equals(target)) {
+							continue;
+						}
+						// without arrow heads the interaction is undirected
+						if(i.endArrow || !i.startArrow) {
+							addEdge(edges, source, target);
+						}
+						if(i.startArrow || !i.endArrow) {
+							addEdge(edges, target, source);
+						}
+					}
+				}
+			}
+		}
+
+		private void addEdge(Set<String> edges, String from, String to) {
+			if(edges.add(from + "\t" + to)) {
+				summary.getInteractions().add(new String[] { from, to });
+			}
+		}
+
+		/**
+		 * xref keys of the data nodes an interaction end points to
+		 */
+		private Set<String> resolve(String ref, int depth) {
+			Set<String> keys = new LinkedHashSet<String>();
+			if(ref == null || depth > MAX_DEPTH) {
+				return keys;
+			}
+			if(nodeKeys.containsKey(ref)) {
+				keys.add(nodeKeys.get(ref));
+			}
+			String groupId = groupIds.containsKey(ref) ? groupIds.get(ref) : ref;
+			if(groupMembers.containsKey(groupId)) {
+				for(String member : groupMembers.get(groupId)) {
+					keys.addAll(resolve(member, depth + 1));
+				}
+			}
+			if(anchors.containsKey(ref)) {
+				keys.addAll(resolve(anchors.get(ref).end, depth + 1));
+			}
+			return keys;
+		}
+
+		private void addMember(String groupId, String member) {
+			if(groupId == null || member == null) {
+				return;
+			}
+			List<String> members = groupMembers.get(groupId);
+			if(members == null) {
+				members = new ArrayList<String>();
+				groupMembers.put(groupId, members);
+			}
+			members.add(member);
+		}
+
+		private boolean isArrow(String arrowHead) {
+			return arrowHead != null && !arrowHead.isEmpty() && !arrowHead.equals("Line") && !arrowHead.equals("Undirected");
+		}
+
+		public void characters(char[] ch, int start, int length) {
+			if(inPublicationId) {
+				text.append(ch, start, length);
+			}
+		}
+
+		private String attribute(Attributes attributes, String gpml2013a, String gpml2021) {
+			String value = attributes.getValue(gpml2013a);
+			return value != null ? value : attributes.getValue(gpml2021);
+		}
+	}
+
+	/**
+	 * end points of an interaction, only the first
+	 * and the last point are connected
+	 */
+	private static class Interaction {
+		private int points;
+		private String start;
+		private String end;
+		private boolean startArrow;
+		private boolean endArrow;
+	}
+}
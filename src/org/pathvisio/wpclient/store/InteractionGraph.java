@@ -0,0 +1,304 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.store;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * interaction graphs of the pathways in the local store, used to
+ * find the pathways connecting one xref to another
+ *
+ * each pathway has a compact adjacency (CSR) over the term codes of
+ * the {@link TermIndex} of the xrefs, the postings of that index are
+ * the global map from an xref to the pathways containing it, so only
+ * pathways with both xrefs are searched, in parallel
+ * @author mkutmon
+ */
+public class InteractionGraph {
+
+	private static final int CHUNK = 64;
+	private static final int[] EMPTY = new int[0];
+
+	private TermIndex xrefIndex;
+	private Adjacency[] graphs = new Adjacency[0];
+
+	public InteractionGraph(TermIndex xrefIndex) {
+		this.xrefIndex = xrefIndex;
+	}
+
+	/**
+	 * sets the interactions of a pathway, pairs of term codes
+	 * {from, to, from, to, ...}, replaces previous interactions
+	 */
+	public synchronized void set(int slot, int[] edges) {
+		if(slot >= graphs.length) {
+			graphs = Arrays.copyOf(graphs, Math.max(slot + 1, graphs.length * 2));
+		}
+		graphs[slot] = edges.length == 0 ? null : new Adjacency(edges);
+	}
+
+	/**
+	 * true if no pathway has interactions, e.g. for a store
+	 * that was saved before interactions were stored
+	 */
+	public synchronized boolean isEmpty() {
+		for(Adjacency graph : graphs) {
+			if(graph != null) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * removes the interactions of all pathways
+	 */
+	public synchronized void clear() {
+		graphs = new Adjacency[0];
+	}
+
+	/**
+	 * interactions of a pathway as pairs of term codes
+	 */
+	public synchronized int[] getEdges(int slot) {
+		if(slot < 0 || slot >= graphs.length || graphs[slot] == null) {
+			return EMPTY;
+		}
+		return graphs[slot].getEdges();
+	}
+
+	/**
+	 * shortest interaction path from one xref key to another in every
+	 * pathway containing both, sorted by the number of steps
+	 * @param maxSteps maximum number of interactions on the path
+	 */
+	public List<Connection> findConnections(String fromKey, String toKey, final int maxSteps) {
+		final int from = xrefIndex.getCode(fromKey);
+		final int to = xrefIndex.getCode(toKey);
+		if(from == -1 || to == -1 || from == to) {
+			return Collections.emptyList();
+		}
+		final int[] candidates = intersect(xrefIndex.getPathways(from), xrefIndex.getPathways(to));
+		final Adjacency[] snapshot;
+		synchronized(this) {
+			snapshot = graphs;
+		}
+		final Connection[] found = new Connection[candidates.length];
+		ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+			protected void compute() {
+				List<RecursiveAction> tasks = new ArrayList<RecursiveAction>();
+				for(int start = 0; start < candidates.length; start += CHUNK) {
+					final int first = start;
+					final int last = Math.min(candidates.length, start + CHUNK);
+					tasks.add(new RecursiveAction() {
+						protected void compute() {
+							for(int i = first; i < last; i++) {
+								int slot = candidates[i];
+								if(slot < snapshot.length && snapshot[slot] != null) {
+									int[] path = snapshot[slot].shortestPath(from, to, maxSteps);
+									if(path != null) {
+										found[i] = new Connection(slot, path);
+									}
+								}
+							}
+						}
+					});
+				}
+				invokeAll(tasks);
+			}
+		});
+
+		List<Connection> result = new ArrayList<Connection>();
+		for(Connection c : found) {
+			if(c != null) {
+				result.add(c);
+			}
+		}
+		Collections.sort(result, new Comparator<Connection>() {
+			public int compare(Connection c1, Connection c2) {
+				return c1.getSteps() != c2.getSteps() ? c1.getSteps() - c2.getSteps() : c1.getSlot() - c2.getSlot();
+			}
+		});
+		return result;
+	}
+
+	private int[] intersect(int[] a, int[] b) {
+		int[] result = new int[Math.min(a.length, b.length)];
+		int n = 0;
+		for(int i = 0, j = 0; i < a.length && j < b.length;) {
+			if(a[i] < b[j]) {
+				i++;
+			} else if(a[i] > b[j]) {
+				j++;
+			} else {
+				result[n++] = a[i];
+				i++;
+				j++;
+			}
+		}
+		return Arrays.copyOf(result, n);
+	}
+
+	/**
+	 * compressed adjacency of one pathway: the sorted term codes of
+	 * the nodes, the offsets of their targets and the targets as
+	 * indexes into the nodes
+	 */
+	private static class Adjacency {
+		private int[] nodes;
+		private int[] offsets;
+		private int[] targets;
+
+		private Adjacency(int[] edges) {
+			int[] codes = new int[edges.length];
+			System.arraycopy(edges, 0, codes, 0, edges.length);
+			Arrays.sort(codes);
+			int n = 0;
+			for(int i = 0; i < codes.length; i++) {
+				if(n == 0 || codes[n - 1] != codes[i]) {
+					codes[n++] = codes[i];
+				}
+			}
+			nodes = Arrays.copyOf(codes, n);
+
+			// edges sorted by source and target, duplicates removed
+			long[] sorted = new long[edges.length / 2];
+			for(int e = 0; e < sorted.length; e++) {
+				sorted[e] = ((long) indexOf(edges[2 * e]) << 32) | indexOf(edges[2 * e + 1]);
+			}
+			Arrays.sort(sorted);
+			offsets = new int[n + 1];
+			int[] buffer = new int[sorted.length];
+			int m = 0;
+			for(int e = 0; e < sorted.length; e++) {
+				if(e > 0 && sorted[e] == sorted[e - 1]) {
+					continue;
+				}
+				offsets[(int) (sorted[e] >>> 32) + 1]++;
+				buffer[m++] = (int) sorted[e];
+			}
+			for(int i = 0; i < n; i++) {
+				offsets[i + 1] += offsets[i];
+			}
+			targets = Arrays.copyOf(buffer, m);
+		}
+
+		private int indexOf(int code) {
+			return Arrays.binarySearch(nodes, code);
+		}
+
+		private int[] getEdges() {
+			int[] edges = new int[targets.length * 2];
+			for(int i = 0; i < nodes.length; i++) {
+				for(int e = offsets[i]; e < offsets[i + 1]; e++) {
+					edges[2 * e] = nodes[i];
+					edges[2 * e + 1] = nodes[targets[e]];
+				}
+			}
+			return edges;
+		}
+
+		/**
+		 * breadth first search, returns the term codes on the
+		 * path or null if there is none within the steps
+		 */
+		private int[] shortestPath(int fromCode, int toCode, int maxSteps) {
+			int from = indexOf(fromCode);
+			int to = indexOf(toCode);
+			if(from < 0 || to < 0) {
+				return null;
+			}
+			int[] parent = new int[nodes.length];
+			Arrays.fill(parent, -1);
+			parent[from] = from;
+			int[] queue = new int[nodes.length];
+			int head = 0, tail = 0;
+			queue[tail++] = from;
+			for(int depth = 0; depth < maxSteps && head < tail; depth++) {
+				// one level of the search
+				int end = tail;
+				while(head < end) {
+					int node = queue[head++];
+					for(int e = offsets[node]; e < offsets[node + 1]; e++) {
+						int target = targets[e];
+						if(parent[target] == -1) {
+							parent[target] = node;
+							if(target == to) {
+								return path(parent, from, to);
+							}
+							queue[tail++] = target;
+						}
+					}
+				}
+			}
+			return null;
+		}
+
+		private int[] path(int[] parent, int from, int to) {
+			int length = 1;
+			for(int node = to; node != from; node = parent[node]) {
+				length++;
+			}
+			int[] path = new int[length];
+			for(int node = to, i = length - 1; i >= 0; node = parent[node], i--) {
+				path[i] = nodes[node];
+			}
+			return path;
+		}
+	}
+
+	/**
+	 * shortest path in one pathway
+	 */
+	public class Connection {
+		private int slot;
+		private int[] path;
+
+		private Connection(int slot, int[] path) {
+			this.slot = slot;
+			this.path = path;
+		}
+
+		public int getSlot() {
+			return slot;
+		}
+
+		/**
+		 * number of interactions on the path
+		 */
+		public int getSteps() {
+			return path.length - 1;
+		}
+
+		/**
+		 * xref keys of the nodes on the path, from first to last
+		 */
+		public List<String> getPath() {
+			List<String> keys = new ArrayList<String>(path.length);
+			for(int code : path) {
+				keys.add(xrefIndex.getTerm(code));
+			}
+			return keys;
+		}
+	}
+}
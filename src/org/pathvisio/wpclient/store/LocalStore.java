@@ -0,0 +1,296 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.store;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.pathvisio.wikipathways.webservice.WSSearchResult;
+
+/**
+ * local copy of the WikiPathways catalog and the xref, label
+ * and literature indexes, filled by the {@link GpmlZipImporter}
+ * and persisted in the plugin directory between sessions
+ * @author mkutmon
+ */
+public class LocalStore {
+
+	// version 2 added the interactions
+	private static final int FORMAT_VERSION = 2;
+
+	private File file;
+	private PathwayCatalog catalog = new PathwayCatalog();
+	private TermIndex xrefIndex = new TermIndex();
+	private TermIndex labelIndex = new TermIndex();
+	private TermIndex literatureIndex = new TermIndex();
+	private InteractionGraph interactionGraph = new InteractionGraph(xrefIndex);
+	private TitleIndex titleIndex;
+	private FuzzyTitleMatcher fuzzyMatcher;
+	private SimilarityIndex similarityIndex;
+
+	public LocalStore(File dir) {
+		this.file = new File(dir, "store.bin");
+	}
+
+	/**
+	 * adds or replaces a pathway in the catalog and all indexes
+	 */
+	public synchronized void put(PathwaySummary summary) {
+		int slot = catalog.put(summary.getId(), summary.getName(), summary.getSpecies(), summary.getRevision());
+		xrefIndex.set(slot, summary.getXrefs());
+		labelIndex.set(slot, summary.getLabels());
+		literatureIndex.set(slot, summary.getLiterature());
+		int[] edges = new int[summary.getInteractions().size() * 2];
+		int n = 0;
+		for(String[] interaction : summary.getInteractions()) {
+			int from = xrefIndex.getCode(interaction[0]);
+			int to = xrefIndex.getCode(interaction[1]);
+			if(from != -1 && to != -1) {
+				edges[n++] = from;
+				edges[n++] = to;
+			}
+		}
+		interactionGraph.set(slot, Arrays.copyOf(edges, n));
+	}
+
+	public boolean isEmpty() {
+		return catalog.size() == 0;
+	}
+
+	/**
+	 * finds pathways by title, every word of the query has to
+	 * be the start of a word in the title
+	 */
+	public WSSearchResult[] findByTitle(String query) {
+		return toSearchResults(getTitleIndex().search(query));
+	}
+
+	/**
+	 * converts catalog slots to search results sorted by name
+	 */
+	public WSSearchResult[] toSearchResults(int[] slots) {
+		WSSearchResult[] results = new WSSearchResult[slots.length];
+		for(int i = 0; i < slots.length; i++) {
+			WSSearchResult result = new WSSearchResult();
+			result.setId(catalog.getId(slots[i]));
+			result.setName(catalog.getName(slots[i]));
+			result.setSpecies(catalog.getSpecies(slots[i]));
+			result.setRevision(catalog.getRevision(slots[i]));
+			results[i] = result;
+		}
+		Arrays.sort(results, new Comparator<WSSearchResult>() {
+			public int compare(WSSearchResult r1, WSSearchResult r2) {
+				return String.CASE_INSENSITIVE_ORDER.compare(String.valueOf(r1.getName()), String.valueOf(r2.getName()));
+			}
+		});
+		return results;
+	}
+
+	/**
+	 * loads the store from disk, does nothing if
+	 * it has not been saved before
+	 */
+	public synchronized void load() throws IOException {
+		if(!file.exists()) {
+			return;
+		}
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))));
+		try {
+			int version = in.readInt();
+			if(version != 1 && version != FORMAT_VERSION) {
+				return;
+			}
+			int count = in.readInt();
+			for(int i = 0; i < count; i++) {
+				PathwaySummary summary = new PathwaySummary(in.readUTF(), in.readUTF());
+				summary.setName(in.readUTF());
+				summary.setSpecies(in.readUTF());
+				readTerms(in, summary.getXrefs());
+				readTerms(in, summary.getLabels());
+				readTerms(in, summary.getLiterature());
+				if(version > 1) {
+					int edges = in.readInt();
+					for(int j = 0; j < edges; j++) {
+						summary.getInteractions().add(new String[] { in.readUTF(), in.readUTF() });
+					}
+				}
+				put(summary);
+			}
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * drops all pathways that have not been saved and loads the
+	 * store from disk again, e.g. after a cancelled import
+	 */
+	public synchronized void reload() throws IOException {
+		catalog.clear();
+		xrefIndex.clear();
+		labelIndex.clear();
+		literatureIndex.clear();
+		interactionGraph.clear();
+		load();
+	}
+
+	/**
+	 * writes the store to disk
+	 */
+	public synchronized void save() throws IOException {
+		file.getParentFile().mkdirs();
+		File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(tmp))));
+		try {
+			out.writeInt(FORMAT_VERSION);
+			out.writeInt(catalog.size());
+			for(int slot = 0; slot < catalog.size(); slot++) {
+				out.writeUTF(catalog.getId(slot));
+				out.writeUTF(nonNull(catalog.getRevision(slot)));
+				out.writeUTF(nonNull(catalog.getName(slot)));
+				out.writeUTF(nonNull(catalog.getSpecies(slot)));
+				writeTerms(out, xrefIndex, slot);
+				writeTerms(out, labelIndex, slot);
+				writeTerms(out, literatureIndex, slot);
+				int[] edges = interactionGraph.getEdges(slot);
+				out.writeInt(edges.length / 2);
+				for(int code : edges) {
+					out.writeUTF(xrefIndex.getTerm(code));
+				}
+			}
+		} finally {
+			out.close();
+		}
+		if(file.exists()) {
+			file.delete();
+		}
+		tmp.renameTo(file);
+	}
+
+	private void readTerms(DataInputStream in, Set<String> terms) throws IOException {
+		int count = in.readInt();
+		for(int i = 0; i < count; i++) {
+			terms.add(in.readUTF());
+		}
+	}
+
+	private void writeTerms(DataOutputStream out, TermIndex index, int slot) throws IOException {
+		int[] codes = index.getTerms(slot);
+		out.writeInt(codes.length);
+		for(int code : codes) {
+			out.writeUTF(index.getTerm(code));
+		}
+	}
+
+	private String nonNull(String value) {
+		return value == null ? "" : value;
+	}
+
+	//////////////////////////////////////
+	// SETTERS & GETTERS
+	//////////////////////////////////////
+
+	public PathwayCatalog getCatalog() {
+		return catalog;
+	}
+
+	/**
+	 * sorted list of the species in the catalog
+	 */
+	public List<String> getSpecies() {
+		Set<String> species = new TreeSet<String>();
+		for(int slot = 0; slot < catalog.size(); slot++) {
+			if(catalog.getSpecies(slot) != null && !catalog.getSpecies(slot).isEmpty()) {
+				species.add(catalog.getSpecies(slot));
+			}
+		}
+		return new ArrayList<String>(species);
+	}
+
+	/**
+	 * index of the pathway titles, rebuilt when the catalog has changed
+	 */
+	public synchronized TitleIndex getTitleIndex() {
+		if(titleIndex == null || titleIndex.getModCount() != catalog.getModCount()) {
+			titleIndex = new TitleIndex(catalog);
+		}
+		return titleIndex;
+	}
+
+	/**
+	 * typo tolerant title matcher, rebuilt together with the title index
+	 */
+	public synchronized FuzzyTitleMatcher getFuzzyMatcher() {
+		TitleIndex index = getTitleIndex();
+		if(fuzzyMatcher == null || fuzzyMatcher.getTitleIndex() != index) {
+			fuzzyMatcher = new FuzzyTitleMatcher(index, catalog);
+		}
+		return fuzzyMatcher;
+	}
+
+	/**
+	 * MinHash index of the xref sets, rebuilt when the catalog has changed
+	 */
+	public synchronized SimilarityIndex getSimilarityIndex() {
+		if(similarityIndex == null || similarityIndex.getModCount() != catalog.getModCount()) {
+			similarityIndex = new SimilarityIndex(catalog, xrefIndex);
+		}
+		return similarityIndex;
+	}
+
+	/**
+	 * interactions between the data nodes of each pathway
+	 */
+	public InteractionGraph getInteractionGraph() {
+		return interactionGraph;
+	}
+
+	/**
+	 * index of the data node xrefs, terms are keys of {@link XrefKeys}
+	 */
+	public TermIndex getXrefIndex() {
+		return xrefIndex;
+	}
+
+	/**
+	 * index of the lower case data node labels
+	 */
+	public TermIndex getLabelIndex() {
+		return labelIndex;
+	}
+
+	/**
+	 * index of the pubmed ids of literature references
+	 */
+	public TermIndex getLiteratureIndex() {
+		return literatureIndex;
+	}
+}
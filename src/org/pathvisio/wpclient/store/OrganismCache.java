@@ -0,0 +1,174 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.store;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+
+import org.pathvisio.libgpml.debug.Logger;
+import org.pathvisio.wpclient.IWPQueries;
+
+/**
+ * list of organisms on WikiPathways shared by the search and browse
+ * panels, persisted in the plugin directory and refreshed in the
+ * background when it is older than a day
+ * 
+ * listeners are notified on the event dispatch thread when the list changed
+ * @author mkutmon
+ */
+public class OrganismCache {
+
+	private static final long MAX_AGE = 24L * 60 * 60 * 1000;
+
+	private IWPQueries wpQueries;
+	private File file;
+	private List<String> organisms = Collections.emptyList();
+	private long timestamp;
+	private boolean refreshing;
+	private List<ChangeListener> listeners = new CopyOnWriteArrayList<ChangeListener>();
+
+	public OrganismCache(IWPQueries wpQueries, File file) {
+		this.wpQueries = wpQueries;
+		this.file = file;
+	}
+
+	/**
+	 * returns the sorted list of organisms immediately, starts a
+	 * refresh if the list is missing or outdated
+	 * (the list is empty until the first refresh has finished)
+	 */
+	public synchronized List<String> getOrganisms() {
+		if(System.currentTimeMillis() - timestamp > MAX_AGE) {
+			refresh();
+		}
+		return organisms;
+	}
+
+	/**
+	 * reads the list saved in an earlier session
+	 */
+	public void load() throws IOException {
+		if(!file.exists()) {
+			return;
+		}
+		List<String> list = new ArrayList<String>();
+		BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+		try {
+			String line;
+			while((line = in.readLine()) != null) {
+				if(!line.trim().isEmpty()) {
+					list.add(line.trim());
+				}
+			}
+		} finally {
+			in.close();
+		}
+		synchronized(this) {
+			// a refresh may have finished in the meantime
+			if(timestamp < file.lastModified()) {
+				organisms = Collections.unmodifiableList(list);
+				timestamp = file.lastModified();
+			}
+		}
+		fireChanged();
+	}
+
+	/**
+	 * retrieves the list from WikiPathways in the background
+	 */
+	public synchronized void refresh() {
+		if(refreshing) {
+			return;
+		}
+		refreshing = true;
+		new SwingWorker<List<String>, Void>() {
+			protected List<String> doInBackground() throws Exception {
+				List<String> list = new ArrayList<String>(wpQueries.listOrganisms(null));
+				Collections.sort(list);
+				return list;
+			}
+
+			protected void done() {
+				try {
+					List<String> list = get();
+					synchronized(OrganismCache.this) {
+						organisms = Collections.unmodifiableList(list);
+						timestamp = System.currentTimeMillis();
+					}
+					save(list);
+					fireChanged();
+				} catch (Exception e) {
+					Logger.log.error("Could not retrieve list of organisms from WikiPathways", e);
+				} finally {
+					synchronized(OrganismCache.this) {
+						refreshing = false;
+					}
+				}
+			}
+		}.execute();
+	}
+
+	private void save(List<String> list) {
+		try {
+			file.getParentFile().mkdirs();
+			PrintWriter out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+			try {
+				for(String organism : list) {
+					out.println(organism);
+				}
+			} finally {
+				out.close();
+			}
+		} catch (IOException e) {
+			Logger.log.error("Could not save list of organisms", e);
+		}
+	}
+
+	private void fireChanged() {
+		final ChangeEvent e = new ChangeEvent(this);
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+				for(ChangeListener l : listeners) {
+					l.stateChanged(e);
+				}
+			}
+		});
+	}
+
+	public void addChangeListener(ChangeListener l) {
+		listeners.add(l);
+	}
+
+	public void removeChangeListener(ChangeListener l) {
+		listeners.remove(l);
+	}
+}
@@ -0,0 +1,116 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.store;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * catalog of all pathways known to the local store
+ * every pathway gets a dense slot number that is used
+ * by the indexes to refer to it
+ * @author mkutmon
+ */
+public class PathwayCatalog {
+
+	private Map<String, Integer> slots = new HashMap<String, Integer>();
+	private String[] ids = new String[0];
+	private String[] names = new String[0];
+	private String[] species = new String[0];
+	private String[] revisions = new String[0];
+	private int size;
+	private int modCount;
+
+	/**
+	 * adds a pathway or replaces the entry of an already
+	 * known pathway, returns the slot of the pathway
+	 */
+	public synchronized int put(String id, String name, String organism, String revision) {
+		Integer slot = slots.get(id);
+		if(slot == null) {
+			if(size == ids.length) {
+				int capacity = Math.max(64, size * 2);
+				ids = Arrays.copyOf(ids, capacity);
+				names = Arrays.copyOf(names, capacity);
+				species = Arrays.copyOf(species, capacity);
+				revisions = Arrays.copyOf(revisions, capacity);
+			}
+			slot = size++;
+			slots.put(id, slot);
+			ids[slot] = id;
+		}
+		names[slot] = name;
+		species[slot] = organism;
+		revisions[slot] = revision;
+		modCount++;
+		return slot;
+	}
+
+	/**
+	 * returns the slot of a pathway or -1 if the pathway is unknown
+	 */
+	public synchronized int getSlot(String id) {
+		Integer slot = slots.get(id);
+		return slot == null ? -1 : slot;
+	}
+
+	/**
+	 * removes all pathways, the slots are given out again from 0
+	 */
+	public synchronized void clear() {
+		slots.clear();
+		ids = new String[0];
+		names = new String[0];
+		species = new String[0];
+		revisions = new String[0];
+		size = 0;
+		modCount++;
+	}
+
+	public synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * counter that changes whenever the catalog is modified,
+	 * can be used to detect stale derived indexes
+	 */
+	public synchronized int getModCount() {
+		return modCount;
+	}
+
+	//////////////////////////////////////
+	// SETTERS & GETTERS
+	//////////////////////////////////////
+
+	public synchronized String getId(int slot) {
+		return ids[slot];
+	}
+
+	public synchronized String getName(int slot) {
+		return names[slot];
+	}
+
+	public synchronized String getSpecies(int slot) {
+		return species[slot];
+	}
+
+	public synchronized String getRevision(int slot) {
+		return revisions[slot];
+	}
+}
@@ -0,0 +1,105 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.store;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * everything the local store keeps about one pathway
+ * (catalog entry and the terms for the indexes)
+ * @author mkutmon
+ */
+public class PathwaySummary {
+
+	private String id;
+	private String revision;
+	private String name;
+	private String species;
+	private Set<String> xrefs = new LinkedHashSet<String>();
+	private Set<String> labels = new LinkedHashSet<String>();
+	private Set<String> literature = new LinkedHashSet<String>();
+	private List<String[]> interactions = new ArrayList<String[]>();
+
+	public PathwaySummary(String id, String revision) {
+		this.id = id;
+		this.revision = revision;
+	}
+
+	//////////////////////////////////////
+	// SETTERS & GETTERS
+	//////////////////////////////////////
+
+	public String getId() {
+		return id;
+	}
+
+	public String getRevision() {
+		return revision;
+	}
+
+	public void setRevision(String revision) {
+		this.revision = revision;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public String getSpecies() {
+		return species;
+	}
+
+	public void setSpecies(String species) {
+		this.species = species;
+	}
+
+	/**
+	 * normalized xref keys, see {@link XrefKeys}
+	 */
+	public Set<String> getXrefs() {
+		return xrefs;
+	}
+
+	/**
+	 * lower case data node labels
+	 */
+	public Set<String> getLabels() {
+		return labels;
+	}
+
+	/**
+	 * pubmed ids of the literature references
+	 */
+	public Set<String> getLiterature() {
+		return literature;
+	}
+
+	/**
+	 * directed interactions between data nodes as pairs
+	 * of xref keys {from, to}
+	 */
+	public List<String[]> getInteractions() {
+		return interactions;
+	}
+}
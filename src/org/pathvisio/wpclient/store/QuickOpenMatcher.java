@@ -0,0 +1,136 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.store;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * incremental matching of pathway ids, titles and species for
+ * the quick open dialog, uses the in-memory {@link TitleIndex}
+ * @author mkutmon
+ */
+public class QuickOpenMatcher {
+
+	private PathwayCatalog catalog;
+	private TitleIndex titleIndex;
+
+	public QuickOpenMatcher(PathwayCatalog catalog, TitleIndex titleIndex) {
+		this.catalog = catalog;
+		this.titleIndex = titleIndex;
+	}
+
+	/**
+	 * returns the slots of the best max matches, best first
+	 * 
+	 * every query word has to start a word of the title or the species,
+	 * a query that looks like a pathway id (WP254, wp25, 254) also
+	 * matches ids starting with it
+	 */
+	public int[] match(String query, int max) {
+		final String q = query.trim().toLowerCase();
+		BitSet candidates = null;
+		List<String> words = TitleIndex.tokenize(q);
+		for(String word : words) {
+			BitSet matches = titleIndex.prefix(word);
+			matches.or(titleIndex.speciesPrefix(word));
+			if(candidates == null) {
+				candidates = matches;
+			} else {
+				candidates.and(matches);
+			}
+		}
+		if(candidates == null) {
+			candidates = new BitSet();
+		}
+
+		String idPrefix = idPrefix(q);
+		if(idPrefix != null) {
+			for(int slot = 0; slot < titleIndex.size(); slot++) {
+				if(catalog.getId(slot).startsWith(idPrefix)) {
+					candidates.set(slot);
+				}
+			}
+		}
+
+		// keep the best matches in a bounded heap, worst on top
+		PriorityQueue<Scored> best = new PriorityQueue<Scored>();
+		for(int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+			Scored s = new Scored(slot, score(slot, q, idPrefix));
+			if(best.size() < max) {
+				best.add(s);
+			} else if(s.compareTo(best.peek()) > 0) {
+				best.poll();
+				best.add(s);
+			}
+		}
+		int[] result = new int[best.size()];
+		for(int i = result.length - 1; i >= 0; i--) {
+			result[i] = best.poll().slot;
+		}
+		return result;
+	}
+
+	/**
+	 * lower is better: exact id, id prefix, title prefix, other
+	 * ties are broken by title length
+	 */
+	private long score(int slot, String q, String idPrefix) {
+		String id = catalog.getId(slot);
+		String name = catalog.getName(slot) == null ? "" : catalog.getName(slot);
+		long rank;
+		if(idPrefix != null && id.equals(idPrefix)) {
+			rank = 0;
+		} else if(idPrefix != null && id.startsWith(idPrefix)) {
+			rank = 1;
+		} else if(name.toLowerCase().startsWith(q)) {
+			rank = 2;
+		} else {
+			rank = 3;
+		}
+		return (rank << 32) | Math.min(name.length() + id.length(), Integer.MAX_VALUE);
+	}
+
+	private String idPrefix(String q) {
+		String digits = q.startsWith("wp") ? q.substring(2) : q;
+		if(digits.isEmpty()) {
+			return q.equals("wp") ? "WP" : null;
+		}
+		for(int i = 0; i < digits.length(); i++) {
+			if(!Character.isDigit(digits.charAt(i))) {
+				return null;
+			}
+		}
+		return "WP" + digits;
+	}
+
+	private static class Scored implements Comparable<Scored> {
+		private int slot;
+		private long score;
+
+		private Scored(int slot, long score) {
+			this.slot = slot;
+			this.score = score;
+		}
+
+		// higher score = worse match = smaller element
+		public int compareTo(Scored other) {
+			return score == other.score ? other.slot - slot : Long.compare(other.score, score);
+		}
+	}
+}
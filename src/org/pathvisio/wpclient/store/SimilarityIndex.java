@@ -0,0 +1,240 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.store;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * finds pathways with similar xref sets
+ * 
+ * every pathway gets a MinHash signature of its xrefs, the fraction of
+ * equal signature values estimates the Jaccard similarity of two pathways
+ * candidates are found with locality sensitive hashing: the signature is
+ * split into bands and pathways that agree on a whole band are compared
+ * @author mkutmon
+ */
+public class SimilarityIndex {
+
+	private static final int HASHES = 128;
+	// 64 bands of 2 rows find pairs from a similarity of about 0.15
+	private static final int ROWS = 2;
+	private static final int BANDS = HASHES / ROWS;
+
+	private PathwayCatalog catalog;
+	private int modCount;
+	private int size;
+	private long[] seeds = new long[HASHES];
+	private int[] signatures;
+	private boolean[] empty;
+	// per band: sorted (band hash << 32 | slot)
+	private long[][] buckets = new long[BANDS][];
+
+	/**
+	 * builds the index for the current content of the catalog and xref index
+	 */
+	public SimilarityIndex(PathwayCatalog catalog, TermIndex xrefIndex) {
+		this.catalog = catalog;
+		// fixed seeds, signatures only have to be comparable within one index
+		Random random = new Random(42);
+		for(int i = 0; i < HASHES; i++) {
+			seeds[i] = random.nextLong() | 1;
+		}
+		synchronized(catalog) {
+			modCount = catalog.getModCount();
+			size = catalog.size();
+		}
+
+		// terms and term codes under one lock, an import running at the
+		// same time could otherwise add codes beyond the hash array
+		int[] termHashes;
+		int[][] terms = new int[size][];
+		synchronized(xrefIndex) {
+			termHashes = new int[xrefIndex.getTermCount()];
+			for(int code = 0; code < termHashes.length; code++) {
+				termHashes[code] = xrefIndex.getTerm(code).hashCode();
+			}
+			for(int slot = 0; slot < size; slot++) {
+				terms[slot] = xrefIndex.getTerms(slot);
+			}
+		}
+
+		signatures = new int[size * HASHES];
+		empty = new boolean[size];
+		int[] hashes = new int[0];
+		for(int slot = 0; slot < size; slot++) {
+			int[] codes = terms[slot];
+			if(hashes.length < codes.length) {
+				hashes = new int[codes.length];
+			}
+			for(int i = 0; i < codes.length; i++) {
+				hashes[i] = termHashes[codes[i]];
+			}
+			empty[slot] = codes.length == 0;
+			sign(hashes, codes.length, signatures, slot * HASHES);
+		}
+
+		for(int band = 0; band < BANDS; band++) {
+			long[] bucket = new long[size];
+			int n = 0;
+			for(int slot = 0; slot < size; slot++) {
+				if(!empty[slot]) {
+					bucket[n++] = ((long) bandHash(signatures, slot * HASHES, band) << 32) | slot;
+				}
+			}
+			bucket = Arrays.copyOf(bucket, n);
+			Arrays.sort(bucket);
+			buckets[band] = bucket;
+		}
+	}
+
+	public int getModCount() {
+		return modCount;
+	}
+
+	/**
+	 * pathways similar to the pathway in the slot, most similar first
+	 */
+	public List<Similarity> findSimilar(int slot, int max, double minSimilarity) {
+		if(slot < 0 || slot >= size || empty[slot]) {
+			return Collections.emptyList();
+		}
+		return find(signatures, slot * HASHES, slot, max, minSimilarity);
+	}
+
+	/**
+	 * pathways similar to a set of xref keys (see {@link XrefKeys}),
+	 * e.g. of a pathway that is not in the store
+	 */
+	public List<Similarity> findSimilar(Collection<String> xrefs, int max, double minSimilarity) {
+		if(xrefs.isEmpty()) {
+			return Collections.emptyList();
+		}
+		int[] hashes = new int[xrefs.size()];
+		int n = 0;
+		for(String xref : xrefs) {
+			hashes[n++] = xref.hashCode();
+		}
+		int[] signature = new int[HASHES];
+		sign(hashes, n, signature, 0);
+		return find(signature, 0, -1, max, minSimilarity);
+	}
+
+	private List<Similarity> find(int[] signature, int offset, int self, int max, double minSimilarity) {
+		// a pathway can be a candidate in many bands, only compare it once
+		boolean[] seen = new boolean[size];
+		List<Similarity> result = new ArrayList<Similarity>();
+		for(int band = 0; band < BANDS; band++) {
+			long key = (long) bandHash(signature, offset, band) << 32;
+			long[] bucket = buckets[band];
+			int i = Arrays.binarySearch(bucket, key);
+			if(i < 0) {
+				i = -i - 1;
+			}
+			for(; i < bucket.length && (bucket[i] & 0xFFFFFFFF00000000L) == key; i++) {
+				int other = (int) bucket[i];
+				if(other == self || seen[other]) {
+					continue;
+				}
+				seen[other] = true;
+				double similarity = estimate(signature, offset, other * HASHES);
+				if(similarity >= minSimilarity) {
+					result.add(new Similarity(other, similarity));
+				}
+			}
+		}
+		Collections.sort(result, new Comparator<Similarity>() {
+			public int compare(Similarity s1, Similarity s2) {
+				return Double.compare(s2.getSimilarity(), s1.getSimilarity());
+			}
+		});
+		return result.size() > max ? new ArrayList<Similarity>(result.subList(0, max)) : result;
+	}
+
+	private double estimate(int[] signature, int offset, int otherOffset) {
+		int equal = 0;
+		for(int i = 0; i < HASHES; i++) {
+			if(signature[offset + i] == signatures[otherOffset + i]) {
+				equal++;
+			}
+		}
+		return equal / (double) HASHES;
+	}
+
+	/**
+	 * MinHash signature: the minimum of every hash function over the set
+	 */
+	private void sign(int[] hashes, int count, int[] signature, int offset) {
+		for(int i = 0; i < HASHES; i++) {
+			int min = Integer.MAX_VALUE;
+			long seed = seeds[i];
+			for(int j = 0; j < count; j++) {
+				int h = mix(hashes[j] * seed);
+				if(h < min) {
+					min = h;
+				}
+			}
+			signature[offset + i] = min;
+		}
+	}
+
+	private int bandHash(int[] signature, int offset, int band) {
+		int h = band;
+		for(int r = 0; r < ROWS; r++) {
+			h = 31 * h + signature[offset + band * ROWS + r];
+		}
+		return mix(h);
+	}
+
+	// finalizer of MurmurHash3
+	private static int mix(long x) {
+		x ^= x >>> 33;
+		x *= 0xff51afd7ed558ccdL;
+		x ^= x >>> 33;
+		return (int) x;
+	}
+
+	/**
+	 * a similar pathway and its estimated Jaccard similarity
+	 */
+	public class Similarity {
+		private int slot;
+		private double similarity;
+
+		private Similarity(int slot, double similarity) {
+			this.slot = slot;
+			this.similarity = similarity;
+		}
+
+		public int getSlot() {
+			return slot;
+		}
+
+		public String getId() {
+			return catalog.getId(slot);
+		}
+
+		public double getSimilarity() {
+			return similarity;
+		}
+	}
+}
@@ -0,0 +1,150 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.store;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * dictionary encoded inverted index from terms (xrefs, labels,
+ * literature references) to pathway slots of the {@link PathwayCatalog}
+ *
+ * every distinct term gets an int code, for each pathway the sorted
+ * term codes are stored, the postings per term are derived lazily
+ * @author mkutmon
+ */
+public class TermIndex {
+
+	private static final int[] EMPTY = new int[0];
+
+	private Map<String, Integer> codes = new HashMap<String, Integer>();
+	private List<String> terms = new ArrayList<String>();
+	private int[][] forward = new int[0][];
+	private int[][] postings;
+
+	/**
+	 * sets the terms of a pathway, replaces previous terms
+	 */
+	public synchronized void set(int slot, Collection<String> values) {
+		int[] encoded = new int[values.size()];
+		int i = 0;
+		for(String value : values) {
+			Integer code = codes.get(value);
+			if(code == null) {
+				code = terms.size();
+				codes.put(value, code);
+				terms.add(value);
+			}
+			encoded[i++] = code;
+		}
+		Arrays.sort(encoded);
+		int n = 0;
+		for(int j = 0; j < encoded.length; j++) {
+			if(n == 0 || encoded[n - 1] != encoded[j]) {
+				encoded[n++] = encoded[j];
+			}
+		}
+		if(slot >= forward.length) {
+			forward = Arrays.copyOf(forward, Math.max(slot + 1, forward.length * 2));
+		}
+		forward[slot] = Arrays.copyOf(encoded, n);
+		postings = null;
+	}
+
+	/**
+	 * removes all terms and pathways
+	 */
+	public synchronized void clear() {
+		codes.clear();
+		terms.clear();
+		forward = new int[0][];
+		postings = null;
+	}
+
+	/**
+	 * returns the code of a term or -1 if the term is unknown
+	 */
+	public synchronized int getCode(String term) {
+		Integer code = codes.get(term);
+		return code == null ? -1 : code;
+	}
+
+	public synchronized String getTerm(int code) {
+		return terms.get(code);
+	}
+
+	public synchronized int getTermCount() {
+		return terms.size();
+	}
+
+	/**
+	 * sorted term codes of a pathway
+	 */
+	public synchronized int[] getTerms(int slot) {
+		if(slot < 0 || slot >= forward.length || forward[slot] == null) {
+			return EMPTY;
+		}
+		return forward[slot];
+	}
+
+	/**
+	 * sorted slots of all pathways containing the term
+	 */
+	public synchronized int[] getPathways(String term) {
+		int code = getCode(term);
+		return code == -1 ? EMPTY : getPathways(code);
+	}
+
+	/**
+	 * sorted slots of all pathways containing the term code
+	 */
+	public synchronized int[] getPathways(int code) {
+		if(postings == null) {
+			buildPostings();
+		}
+		return code < postings.length ? postings[code] : EMPTY;
+	}
+
+	private void buildPostings() {
+		int[] counts = new int[terms.size()];
+		for(int[] row : forward) {
+			if(row != null) {
+				for(int code : row) {
+					counts[code]++;
+				}
+			}
+		}
+		int[][] result = new int[counts.length][];
+		for(int code = 0; code < counts.length; code++) {
+			result[code] = counts[code] == 0 ? EMPTY : new int[counts[code]];
+			counts[code] = 0;
+		}
+		// slots are visited in order, so every posting list ends up sorted
+		for(int slot = 0; slot < forward.length; slot++) {
+			if(forward[slot] != null) {
+				for(int code : forward[slot]) {
+					result[code][counts[code]++] = slot;
+				}
+			}
+		}
+		postings = result;
+	}
+}
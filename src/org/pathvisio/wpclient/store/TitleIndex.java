@@ -0,0 +1,255 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.store;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * index over the pathway titles of the {@link PathwayCatalog}
+ * 
+ * titles are split into lower case tokens, a token index maps every
+ * token to the pathways containing it and a prefix trie over the
+ * tokens finds all tokens starting with a query word
+ * the species words are indexed separately
+ * @author mkutmon
+ */
+public class TitleIndex {
+
+	private int modCount;
+	private int size;
+	private Node root = new Node();
+	private List<String> tokens = new ArrayList<String>();
+	private List<int[]> postings = new ArrayList<int[]>();
+	private Map<String, BitSet> species = new HashMap<String, BitSet>();
+
+	/**
+	 * builds the index for the current content of the catalog
+	 */
+	public TitleIndex(PathwayCatalog catalog) {
+		synchronized(catalog) {
+			modCount = catalog.getModCount();
+			size = catalog.size();
+			Map<String, List<Integer>> words = new HashMap<String, List<Integer>>();
+			for(int slot = 0; slot < size; slot++) {
+				for(String token : tokenize(catalog.getName(slot))) {
+					List<Integer> slots = words.get(token);
+					if(slots == null) {
+						slots = new ArrayList<Integer>();
+						words.put(token, slots);
+					}
+					if(slots.isEmpty() || slots.get(slots.size() - 1) != slot) {
+						slots.add(slot);
+					}
+				}
+				for(String token : tokenize(catalog.getSpecies(slot))) {
+					BitSet slots = species.get(token);
+					if(slots == null) {
+						slots = new BitSet(size);
+						species.put(token, slots);
+					}
+					slots.set(slot);
+				}
+			}
+			for(Map.Entry<String, List<Integer>> e : words.entrySet()) {
+				int[] slots = new int[e.getValue().size()];
+				for(int i = 0; i < slots.length; i++) {
+					slots[i] = e.getValue().get(i);
+				}
+				root.insert(e.getKey(), 0, postings.size());
+				tokens.add(e.getKey());
+				postings.add(slots);
+			}
+		}
+	}
+
+	/**
+	 * modification count of the catalog at the time the index was built
+	 */
+	public int getModCount() {
+		return modCount;
+	}
+
+	/**
+	 * returns the slots of all pathways whose title contains, for every
+	 * word of the query, a word starting with it (case insensitive)
+	 */
+	public int[] search(String query) {
+		List<String> words = tokenize(query);
+		if(words.isEmpty()) {
+			return new int[0];
+		}
+		BitSet result = null;
+		for(String word : words) {
+			BitSet matches = prefix(word);
+			if(result == null) {
+				result = matches;
+			} else {
+				result.and(matches);
+			}
+			if(result.isEmpty()) {
+				break;
+			}
+		}
+		return toArray(result);
+	}
+
+	/**
+	 * pathways with at least one title word starting with the prefix
+	 */
+	public BitSet prefix(String prefix) {
+		BitSet result = new BitSet(size);
+		Node node = root.find(prefix.toLowerCase(), 0);
+		if(node != null) {
+			node.collect(postings, result);
+		}
+		return result;
+	}
+
+	/**
+	 * pathways with the exact word in the title
+	 */
+	public BitSet token(String token) {
+		BitSet result = new BitSet(size);
+		Node node = root.find(token.toLowerCase(), 0);
+		if(node != null && node.token != -1) {
+			for(int slot : postings.get(node.token)) {
+				result.set(slot);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * pathways of all species with a word starting with the prefix
+	 * (e.g. "mus" for Mus musculus)
+	 */
+	public BitSet speciesPrefix(String prefix) {
+		BitSet result = new BitSet(size);
+		String p = prefix.toLowerCase();
+		// only a few dozen species words, no need for a trie
+		for(Map.Entry<String, BitSet> e : species.entrySet()) {
+			if(e.getKey().startsWith(p)) {
+				result.or(e.getValue());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * all distinct title words
+	 */
+	public List<String> getTokens() {
+		return tokens;
+	}
+
+	/**
+	 * number of catalog slots covered by the index
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * splits a title into lower case words
+	 */
+	public static List<String> tokenize(String title) {
+		List<String> tokens = new ArrayList<String>();
+		if(title == null) {
+			return tokens;
+		}
+		int start = -1;
+		for(int i = 0; i <= title.length(); i++) {
+			boolean letter = i < title.length() && Character.isLetterOrDigit(title.charAt(i));
+			if(letter && start == -1) {
+				start = i;
+			} else if(!letter && start != -1) {
+				tokens.add(title.substring(start, i).toLowerCase());
+				start = -1;
+			}
+		}
+		return tokens;
+	}
+
+	private static int[] toArray(BitSet set) {
+		int[] result = new int[set.cardinality()];
+		int i = 0;
+		for(int slot = set.nextSetBit(0); slot >= 0; slot = set.nextSetBit(slot + 1)) {
+			result[i++] = slot;
+		}
+		return result;
+	}
+
+	/**
+	 * trie node, children are kept in arrays sorted by character
+	 */
+	private static class Node {
+		private char[] chars = new char[0];
+		private Node[] children = new Node[0];
+		private int token = -1;
+
+		private void insert(String word, int pos, int tokenId) {
+			if(pos == word.length()) {
+				token = tokenId;
+				return;
+			}
+			char c = word.charAt(pos);
+			int i = Arrays.binarySearch(chars, c);
+			if(i < 0) {
+				i = -i - 1;
+				char[] newChars = new char[chars.length + 1];
+				Node[] newChildren = new Node[children.length + 1];
+				System.arraycopy(chars, 0, newChars, 0, i);
+				System.arraycopy(children, 0, newChildren, 0, i);
+				newChars[i] = c;
+				newChildren[i] = new Node();
+				System.arraycopy(chars, i, newChars, i + 1, chars.length - i);
+				System.arraycopy(children, i, newChildren, i + 1, children.length - i);
+				chars = newChars;
+				children = newChildren;
+			}
+			children[i].insert(word, pos + 1, tokenId);
+		}
+
+		private Node find(String prefix, int pos) {
+			Node node = this;
+			for(int p = pos; p < prefix.length(); p++) {
+				int i = Arrays.binarySearch(node.chars, prefix.charAt(p));
+				if(i < 0) {
+					return null;
+				}
+				node = node.children[i];
+			}
+			return node;
+		}
+
+		private void collect(List<int[]> postings, BitSet result) {
+			if(token != -1) {
+				for(int slot : postings.get(token)) {
+					result.set(slot);
+				}
+			}
+			for(Node child : children) {
+				child.collect(postings, result);
+			}
+		}
+	}
+}
@@ -0,0 +1,91 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.store;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bridgedb.DataSource;
+import org.bridgedb.Xref;
+
+/**
+ * normalizes xrefs to the "SystemCode:id" keys used
+ * in the local store (same notation as in the identifier search)
+ * @author mkutmon
+ */
+public class XrefKeys {
+
+	// data source names in GPML files are resolved once per name
+	private static ConcurrentHashMap<String, String> systemCodes = new ConcurrentHashMap<String, String>();
+
+	public static String toKey(Xref xref) {
+		if(xref == null || xref.getDataSource() == null || xref.getId() == null) {
+			return null;
+		}
+		String code = xref.getDataSource().getSystemCode();
+		if(code == null) {
+			code = xref.getDataSource().getFullName();
+		}
+		return code + ":" + xref.getId().trim();
+	}
+
+	/**
+	 * key for a data source as written in GPML, which is either
+	 * the full name (GPML2013a) or the bioregistry prefix (GPML2021)
+	 */
+	public static String toKey(String dataSource, String id) {
+		if(dataSource == null || id == null || dataSource.isEmpty() || id.trim().isEmpty()) {
+			return null;
+		}
+		String code = systemCodes.get(dataSource);
+		if(code == null) {
+			code = resolve(dataSource);
+			systemCodes.put(dataSource, code);
+		}
+		return code + ":" + id.trim();
+	}
+
+	/**
+	 * converts a key back to an xref, returns null for
+	 * keys with an unknown data source
+	 */
+	public static Xref toXref(String key) {
+		int i = key.indexOf(':');
+		if(i <= 0 || !DataSource.systemCodeExists(key.substring(0, i))) {
+			return null;
+		}
+		return new Xref(key.substring(i + 1), DataSource.getExistingBySystemCode(key.substring(0, i)));
+	}
+
+	private static String resolve(String dataSource) {
+		DataSource ds = null;
+		try {
+			if(DataSource.fullNameExists(dataSource)) {
+				ds = DataSource.getExistingByFullName(dataSource);
+			} else if(DataSource.systemCodeExists(dataSource)) {
+				ds = DataSource.getExistingBySystemCode(dataSource);
+			} else {
+				ds = DataSource.getExistingByBioregistryPrefix(dataSource);
+			}
+		} catch (IllegalArgumentException e) {
+			ds = null;
+		}
+		if(ds != null && ds.getSystemCode() != null) {
+			return ds.getSystemCode();
+		}
+		return dataSource;
+	}
+}
@@ -18,6 +18,8 @@ package org.pathvisio.wpclient.utils;
 
 import java.io.File;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Date;
 
 /**
@@ -41,6 +43,38 @@ public class FileUtils {
 		directory.delete();
 	}
 	
+	/**
+	 * deletes the least recently modified files of a directory until
+	 * the remaining files take at most maxBytes
+	 */
+	public static void pruneDirectory(File directory, long maxBytes) {
+		File[] files = directory.listFiles();
+		if(files == null) {
+			return;
+		}
+		final long[] modified = new long[files.length];
+		Integer[] order = new Integer[files.length];
+		for(int i = 0; i < files.length; i++) {
+			// read once, the sort needs stable values
+			modified[i] = files[i].lastModified();
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			public int compare(Integer i1, Integer i2) {
+				return Long.compare(modified[i2], modified[i1]);
+			}
+		});
+		long total = 0;
+		for(int i : order) {
+			if(files[i].isFile()) {
+				total += files[i].length();
+				if(total > maxBytes) {
+					files[i].delete();
+				}
+			}
+		}
+	}
+
 	public static String getTimeStamp() {
 		Date date = new Date();
 		SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMddhhmmss");
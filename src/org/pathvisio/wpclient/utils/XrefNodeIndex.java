@@ -0,0 +1,201 @@
+// PathVisio WP Client
+// Plugin that provides a WikiPathways client for PathVisio.
+// Copyright 2013 developed for Google Summer of Code
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); 
+// you may not use this file except in compliance with the License. 
+// You may obtain a copy of the License at 
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+//  
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+// See the License for the specific language governing permissions and 
+// limitations under the License.
+//
+package org.pathvisio.wpclient.utils;
+
+import java.awt.Color;
+import java.awt.Rectangle;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.bridgedb.Xref;
+import org.pathvisio.core.view.model.VDataNode;
+import org.pathvisio.core.view.model.VElement;
+import org.pathvisio.core.view.model.VPathwayModel;
+import org.pathvisio.core.view.model.VPathwayModelEvent;
+import org.pathvisio.core.view.model.VPathwayModelListener;
+import org.pathvisio.libgpml.model.DataNode;
+import org.pathvisio.libgpml.model.PathwayObjectEvent;
+import org.pathvisio.libgpml.model.PathwayObjectListener;
+import org.pathvisio.libgpml.prop.StaticProperty;
+
+/**
+ * index from xrefs to the data nodes of an open pathway, used
+ * to highlight search results without scanning all drawing objects
+ * 
+ * the index is built once per pathway and kept up to date with
+ * the added nodes and changed xrefs, removed nodes are skipped
+ * when they are looked up
+ * @author mkutmon
+ */
+public class XrefNodeIndex implements VPathwayModelListener {
+
+	// hits are shown at 100% at most
+	private static final double MAX_PCT_ZOOM = 100;
+
+	private VPathwayModel vPathway;
+	private Map<Xref, List<VDataNode>> nodes = new HashMap<Xref, List<VDataNode>>();
+	// xref each node was indexed with, to move it when the xref changes
+	private Map<DataNode, Xref> indexed = new HashMap<DataNode, Xref>();
+	private Map<DataNode, VDataNode> views = new HashMap<DataNode, VDataNode>();
+
+	private PathwayObjectListener xrefListener = new PathwayObjectListener() {
+		public void gmmlObjectModified(PathwayObjectEvent e) {
+			if(e.affectsProperty(StaticProperty.XREF) && e.getModifiedPathwayObject() instanceof DataNode) {
+				update((DataNode) e.getModifiedPathwayObject());
+			}
+		}
+	};
+
+	public XrefNodeIndex(VPathwayModel vPathway) {
+		this.vPathway = vPathway;
+		for(VElement element : vPathway.getDrawingObjects()) {
+			add(element);
+		}
+		vPathway.addVPathwayListener(this);
+	}
+
+	private synchronized void add(VElement element) {
+		if(element instanceof VDataNode) {
+			VDataNode view = (VDataNode) element;
+			DataNode node = view.getPathwayObject();
+			if(!views.containsKey(node)) {
+				node.addListener(xrefListener);
+			}
+			views.put(node, view);
+			update(node);
+		}
+	}
+
+	private synchronized void update(DataNode node) {
+		VDataNode view = views.get(node);
+		Xref old = indexed.remove(node);
+		if(old != null && nodes.containsKey(old)) {
+			nodes.get(old).remove(view);
+		}
+		Xref xref = node.getXref();
+		if(view != null && xref != null && xref.getId() != null && !xref.getId().isEmpty()) {
+			List<VDataNode> list = nodes.get(xref);
+			if(list == null) {
+				list = new ArrayList<VDataNode>(1);
+				nodes.put(xref, list);
+			}
+			list.add(view);
+			indexed.put(node, xref);
+		}
+	}
+
+	/**
+	 * data nodes with the xref, nodes removed from the pathway
+	 * are dropped from the index
+	 */
+	public synchronized List<VDataNode> getNodes(Xref xref) {
+		List<VDataNode> list = nodes.get(xref);
+		if(list == null) {
+			return Collections.emptyList();
+		}
+		for(Iterator<VDataNode> it = list.iterator(); it.hasNext();) {
+			DataNode node = it.next().getPathwayObject();
+			if(node.getPathwayModel() != vPathway.getPathwayModel()) {
+				it.remove();
+				indexed.remove(node);
+				views.remove(node);
+				node.removeListener(xrefListener);
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * highlights the data nodes of each group in the color of the
+	 * group, returns the bounding box of all hits or null
+	 */
+	public Rectangle2D highlight(Map<Color, ? extends Collection<Xref>> groups) {
+		Rectangle2D bounds = null;
+		for(Map.Entry<Color, ? extends Collection<Xref>> group : groups.entrySet()) {
+			for(Xref xref : group.getValue()) {
+				for(VDataNode node : getNodes(xref)) {
+					node.highlight(group.getKey());
+					if(bounds == null) {
+						bounds = node.getVBounds().getBounds2D();
+					} else {
+						bounds.add(node.getVBounds());
+					}
+				}
+			}
+		}
+		return bounds;
+	}
+
+	public Rectangle2D highlight(Collection<Xref> xrefs, Color color) {
+		return highlight(Collections.singletonMap(color, xrefs));
+	}
+
+	/**
+	 * zooms until the bounding box of the hits fits into the
+	 * view (at most to 100%) and scrolls to it
+	 */
+	public void zoomTo(Rectangle2D bounds) {
+		Rectangle view = vPathway.getWrapper().getViewRect();
+		if(view.width > 0 && view.height > 0 && bounds.getWidth() > 0 && bounds.getHeight() > 0) {
+			double pct = vPathway.getPctZoom();
+			double target = Math.min(MAX_PCT_ZOOM, pct * 0.9 * Math.min(view.width / bounds.getWidth(), view.height / bounds.getHeight()));
+			if(Math.abs(target - pct) >= 1) {
+				vPathway.setPctZoom(target);
+				// view coordinates scale with the zoom
+				double scale = target / pct;
+				bounds = new Rectangle2D.Double(bounds.getX() * scale, bounds.getY() * scale,
+						bounds.getWidth() * scale, bounds.getHeight() * scale);
+			}
+		}
+		vPathway.getWrapper().scrollTo(bounds.getBounds());
+	}
+
+	@Override
+	public void vPathwayModelEvent(VPathwayModelEvent e) {
+		if(e.getType() == VPathwayModelEvent.VPathwayModelEventType.ELEMENT_ADDED) {
+			add(e.getAffectedElement());
+			if(e.getAffectedElements() != null) {
+				for(VElement element : e.getAffectedElements()) {
+					add(element);
+				}
+			}
+		}
+	}
+
+	/**
+	 * stops listening to the pathway
+	 */
+	public synchronized void dispose() {
+		vPathway.removeVPathwayListener(this);
+		for(DataNode node : views.keySet()) {
+			node.removeListener(xrefListener);
+		}
+		nodes.clear();
+		indexed.clear();
+		views.clear();
+	}
+
+	public VPathwayModel getVPathwayModel() {
+		return vPathway;
+	}
+}